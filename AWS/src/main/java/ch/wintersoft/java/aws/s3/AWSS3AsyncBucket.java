@@ -0,0 +1,273 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+/**
+ * Class to interact with AWS S3 buckets without blocking, the asynchronous counterpart of {@link
+ * AWSS3Bucket}.
+ *
+ * <p>Every operation returns a {@link CompletableFuture} and sends its requests through a limiter,
+ * so at most {@code maxConcurrency} requests are in flight; further operations are queued without
+ * blocking the calling thread. Files are uploaded with a single PutObject request; for large files
+ * build the client with {@code multipartEnabled(true)}.
+ */
+public class AWSS3AsyncBucket {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AWSS3AsyncBucket.class);
+  private static final Duration DEFAULT_BUCKET_CACHE_TTL = Duration.ofMinutes(5);
+  private final S3AsyncClient s3Client;
+  private final AsyncConcurrencyLimiter limiter;
+  private final BucketExistenceCache bucketCache;
+  private final Map<String, CompletableFuture<Void>> bucketChecks = new ConcurrentHashMap<>();
+
+  /**
+   * Create an instance with at most the given number of requests in flight
+   *
+   * @param s3Client the client to use
+   * @param maxConcurrency the maximum number of requests in flight
+   */
+  public AWSS3AsyncBucket(S3AsyncClient s3Client, int maxConcurrency) {
+    this(s3Client, maxConcurrency, DEFAULT_BUCKET_CACHE_TTL);
+  }
+
+  /**
+   * Create an instance with at most the given number of requests in flight
+   *
+   * @param s3Client the client to use
+   * @param maxConcurrency the maximum number of requests in flight
+   * @param bucketCacheTtl how long a bucket is known to exist without asking S3 again, {@link
+   *     Duration#ZERO} to check before every upload
+   */
+  public AWSS3AsyncBucket(S3AsyncClient s3Client, int maxConcurrency, Duration bucketCacheTtl) {
+    this(s3Client, maxConcurrency, new BucketExistenceCache(bucketCacheTtl));
+  }
+
+  /**
+   * Create an instance sharing the known buckets with another bucket client
+   *
+   * @param s3Client the client to use
+   * @param maxConcurrency the maximum number of requests in flight
+   * @param bucketCache the cache of buckets known to exist
+   */
+  AWSS3AsyncBucket(S3AsyncClient s3Client, int maxConcurrency, BucketExistenceCache bucketCache) {
+    this.s3Client = s3Client;
+    this.limiter = new AsyncConcurrencyLimiter(maxConcurrency);
+    this.bucketCache = bucketCache;
+  }
+
+  /**
+   * Check if a bucket with the given name exists
+   *
+   * @param bucketName the name of the bucket to check
+   * @return a future completed with true if the bucket exists, false otherwise
+   */
+  public CompletableFuture<Boolean> checkBucketExists(String bucketName) {
+    return limiter
+        .submit(() -> s3Client.headBucket(b -> b.bucket(bucketName)))
+        .handle(
+            (response, failure) -> {
+              if (failure == null && response.sdkHttpResponse().statusCode() == 200) {
+                LOGGER.info("Bucket {} exists", bucketName);
+                bucketCache.add(bucketName);
+                return true;
+              }
+              if (failure != null && !(unwrap(failure) instanceof NoSuchBucketException)) {
+                throw completionException(failure);
+              }
+              LOGGER.info("Bucket {} does not exist", bucketName);
+              bucketCache.invalidate(bucketName);
+              return false;
+            });
+  }
+
+  /**
+   * Check if an object on the given bucket exists
+   *
+   * @param bucketName the name of the bucket to check
+   * @param objectName The name of the object (key) to find
+   * @return a future completed with true if the object exists, false otherwise
+   */
+  public CompletableFuture<Boolean> checkObjectExists(String bucketName, String objectName) {
+    return limiter
+        .submit(() -> s3Client.headObject(b -> b.bucket(bucketName).key(objectName)))
+        .handle(
+            (response, failure) -> {
+              if (failure == null && response.sdkHttpResponse().statusCode() == 200) {
+                LOGGER.info("Object {} exists on bucket {}", objectName, bucketName);
+                return true;
+              }
+              if (failure != null && !(unwrap(failure) instanceof NoSuchKeyException)) {
+                throw completionException(failure);
+              }
+              LOGGER.info("Object {} does not exist on bucket {}", objectName, bucketName);
+              return false;
+            });
+  }
+
+  /**
+   * Create a new S3 bucket with the given name
+   *
+   * @param bucketName the name of the bucket to create
+   * @return a future completed once the bucket exists
+   */
+  public CompletableFuture<Void> createBucket(String bucketName) {
+    return limiter
+        .submit(
+            () ->
+                s3Client
+                    .createBucket(b -> b.bucket(bucketName))
+                    .thenCompose(
+                        created ->
+                            s3Client.waiter().waitUntilBucketExists(b -> b.bucket(bucketName))))
+        .thenAccept(
+            waiterResponse -> {
+              waiterResponse
+                  .matched()
+                  .response()
+                  .ifPresent(response -> LOGGER.info("Matched response: {}", response));
+              bucketCache.add(bucketName);
+            });
+  }
+
+  /**
+   * Upload an object to an S3 bucket. The bucket is created if missing; once it is known to exist,
+   * uploads make no further HeadBucket requests. Concurrent uploads to an unknown bucket share one
+   * check.
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param fileName The name of the object to put
+   * @return a future completed once the object is stored
+   */
+  public CompletableFuture<Void> uploadObject(String bucketName, String fileName) {
+    Path file = Paths.get(fileName);
+    return ensureBucketExists(bucketName)
+        .thenCompose(exists -> putObject(bucketName, fileName, file))
+        .exceptionallyCompose(
+            failure -> {
+              if (!(unwrap(failure) instanceof NoSuchBucketException)) {
+                return CompletableFuture.failedFuture(failure);
+              }
+              LOGGER.warn("Bucket {} has been deleted in the meantime", bucketName);
+              bucketCache.invalidate(bucketName);
+              return ensureBucketExists(bucketName)
+                  .thenCompose(exists -> putObject(bucketName, fileName, file));
+            });
+  }
+
+  /**
+   * Delete an S3 bucket
+   *
+   * @param bucketName The name of the S3 bucket
+   * @return a future completed once the bucket is deleted
+   */
+  public CompletableFuture<Void> deleteBucket(String bucketName) {
+    LOGGER.info("Deleting bucket {}", bucketName);
+    bucketCache.invalidate(bucketName);
+    return limiter
+        .submit(() -> s3Client.deleteBucket(b -> b.bucket(bucketName)))
+        .handle(
+            (response, failure) -> {
+              if (failure != null) {
+                if (!(unwrap(failure) instanceof NoSuchBucketException)) {
+                  throw completionException(failure);
+                }
+                LOGGER.warn("Trying to delete non existing bucket {}", bucketName);
+              }
+              return null;
+            });
+  }
+
+  /**
+   * Delete an object from an S3 bucket
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param fileName The name of the object
+   * @return a future completed once the object is deleted
+   */
+  public CompletableFuture<Void> deleteObject(String bucketName, String fileName) {
+    LOGGER.info("Deleting object {} from bucket {}", fileName, bucketName);
+    return limiter
+        .submit(() -> s3Client.deleteObject(b -> b.bucket(bucketName).key(fileName)))
+        .handle(
+            (response, failure) -> {
+              if (failure == null) {
+                return null;
+              }
+              Throwable cause = unwrap(failure);
+              if (cause instanceof NoSuchKeyException) {
+                LOGGER.warn(
+                    "Trying to delete non existing object {} from bucket {}", fileName, bucketName);
+              } else if (cause instanceof NoSuchBucketException) {
+                LOGGER.warn(
+                    "Trying to delete object {} from non existing bucket {}", fileName, bucketName);
+                bucketCache.invalidate(bucketName);
+              } else {
+                throw completionException(failure);
+              }
+              return null;
+            });
+  }
+
+  private CompletableFuture<Void> ensureBucketExists(String bucketName) {
+    if (bucketCache.isKnown(bucketName)) {
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<Void> check = new CompletableFuture<>();
+    CompletableFuture<Void> running = bucketChecks.putIfAbsent(bucketName, check);
+    if (running != null) {
+      return running;
+    }
+    checkBucketExists(bucketName)
+        .thenCompose(
+            exists -> {
+              if (exists) {
+                return CompletableFuture.completedFuture(null);
+              }
+              LOGGER.warn("Bucket {} does not exist", bucketName);
+              return createBucket(bucketName);
+            })
+        .whenComplete(
+            (created, failure) -> {
+              bucketChecks.remove(bucketName, check);
+              if (failure != null) {
+                check.completeExceptionally(failure);
+              } else {
+                check.complete(null);
+              }
+            });
+    return check;
+  }
+
+  private CompletableFuture<Void> putObject(String bucketName, String fileName, Path file) {
+    LOGGER.info("Uploading file {} to bucket {}", fileName, bucketName);
+    return limiter
+        .submit(
+            () ->
+                s3Client.putObject(
+                    b -> b.bucket(bucketName).key(fileName), AsyncRequestBody.fromFile(file)))
+        .thenAccept(response -> {});
+  }
+
+  private static Throwable unwrap(Throwable failure) {
+    return failure instanceof CompletionException && failure.getCause() != null
+        ? failure.getCause()
+        : failure;
+  }
+
+  private static CompletionException completionException(Throwable failure) {
+    return failure instanceof CompletionException completionException
+        ? completionException
+        : new CompletionException(failure);
+  }
+}
@@ -1,10 +1,19 @@
 package ch.wintersoft.java.aws.s3;
 
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.waiters.WaiterResponse;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
 import software.amazon.awssdk.services.s3.model.DeleteBucketRequest;
@@ -21,10 +30,65 @@ import software.amazon.awssdk.services.s3.waiters.S3Waiter;
 /** Class to interact with AWS S3 buckets */
 public class AWSS3Bucket {
   private static final Logger LOGGER = LoggerFactory.getLogger(AWSS3Bucket.class);
+  private static final Duration DEFAULT_BUCKET_CACHE_TTL = Duration.ofMinutes(5);
+  private static final int DELETE_PARALLELISM = 4;
+  private static final int SYNC_PARALLELISM = 8;
+  private static final int HEAD_PARALLELISM = 16;
+  private static final int LIST_THRESHOLD = 32;
   private final S3Client s3Client;
+  private final MultipartUploadConfig multipartUploadConfig;
+  private final MultipartUploader multipartUploader;
+  private final BucketExistenceCache bucketCache;
+  private final BatchDeleter batchDeleter;
+  private final DirectorySynchronizer directorySynchronizer;
+  private final RangedDownloader rangedDownloader;
+  private final ExistenceChecker existenceChecker;
 
   public AWSS3Bucket(S3Client s3Client) {
+    this(s3Client, MultipartUploadConfig.defaults());
+  }
+
+  /**
+   * Create an instance uploading large files in parts
+   *
+   * @param s3Client the client to use
+   * @param multipartUploadConfig the settings for uploads in parts
+   */
+  public AWSS3Bucket(S3Client s3Client, MultipartUploadConfig multipartUploadConfig) {
+    this(s3Client, multipartUploadConfig, DEFAULT_BUCKET_CACHE_TTL);
+  }
+
+  /**
+   * Create an instance remembering existing buckets for the given time
+   *
+   * @param s3Client the client to use
+   * @param multipartUploadConfig the settings for uploads in parts
+   * @param bucketCacheTtl how long a bucket is known to exist without asking S3 again, {@link
+   *     Duration#ZERO} to check before every upload
+   */
+  public AWSS3Bucket(
+      S3Client s3Client, MultipartUploadConfig multipartUploadConfig, Duration bucketCacheTtl) {
     this.s3Client = s3Client;
+    this.multipartUploadConfig = multipartUploadConfig;
+    this.multipartUploader = new MultipartUploader(s3Client, multipartUploadConfig);
+    this.bucketCache = new BucketExistenceCache(bucketCacheTtl);
+    this.batchDeleter = new BatchDeleter(s3Client, DELETE_PARALLELISM);
+    this.directorySynchronizer =
+        new DirectorySynchronizer(s3Client, multipartUploadConfig, this::upload, SYNC_PARALLELISM);
+    this.rangedDownloader = new RangedDownloader(s3Client);
+    this.existenceChecker = new ExistenceChecker(s3Client, HEAD_PARALLELISM, LIST_THRESHOLD);
+  }
+
+  /**
+   * Create an asynchronous instance sharing the buckets known to exist with this one, so a bucket
+   * created or deleted through either is seen by both
+   *
+   * @param s3AsyncClient the asynchronous client to use
+   * @param maxConcurrency the maximum number of requests in flight
+   * @return the asynchronous bucket client
+   */
+  public AWSS3AsyncBucket asyncBucket(S3AsyncClient s3AsyncClient, int maxConcurrency) {
+    return new AWSS3AsyncBucket(s3AsyncClient, maxConcurrency, bucketCache);
   }
 
   /**
@@ -41,9 +105,11 @@ public class AWSS3Bucket {
       if (result.sdkHttpResponse().statusCode() == 200) {
         LOGGER.info("Bucket {} exists", bucketName);
         exists = true;
+        bucketCache.add(bucketName);
       }
     } catch (NoSuchBucketException e) {
       LOGGER.info("Bucket {} does not exist", bucketName);
+      bucketCache.invalidate(bucketName);
     }
     return exists;
   }
@@ -71,6 +137,29 @@ public class AWSS3Bucket {
     return exists;
   }
 
+  /**
+   * Find the objects of a bucket which do not exist. Keys sharing a prefix with many other
+   * requested keys are checked by listing the prefix, the others with concurrent HeadObject
+   * requests.
+   *
+   * @param bucketName the name of the bucket to check
+   * @param objectNames The names of the objects (keys) to find
+   * @return the names of the missing objects in the order S3 lists them, all of them if the bucket
+   *     does not exist
+   */
+  public NavigableSet<String> findMissingObjects(
+      String bucketName, Collection<String> objectNames) {
+    try {
+      return existenceChecker.findMissing(bucketName, objectNames);
+    } catch (NoSuchBucketException e) {
+      LOGGER.info("Bucket {} does not exist", bucketName);
+      bucketCache.invalidate(bucketName);
+      NavigableSet<String> missing = new TreeSet<>(ExistenceChecker.KEY_ORDER);
+      missing.addAll(objectNames);
+      return Collections.unmodifiableNavigableSet(missing);
+    }
+  }
+
   /**
    * Create a new S3 bucket with the given name
    *
@@ -88,23 +177,121 @@ public class AWSS3Bucket {
         .matched()
         .response()
         .ifPresent(response -> LOGGER.info("Matched response: {}", response));
+    bucketCache.add(bucketName);
   }
 
   /**
-   * Upload an object to an S3 bucket
+   * Upload an object to an S3 bucket. Files reaching the threshold of the {@link
+   * MultipartUploadConfig} are uploaded in parts, with several parts in flight. The bucket is
+   * created if missing; once it is known to exist, uploads make no further HeadBucket requests.
    *
    * @param bucketName The name of the S3 bucket
    * @param fileName The name of the object to put
    */
   public void uploadObject(String bucketName, String fileName) {
+    if (!bucketCache.isKnown(bucketName)) {
+      ensureBucketExists(bucketName);
+    }
+    Path file = Paths.get(fileName);
+    try {
+      upload(bucketName, fileName, file);
+    } catch (NoSuchBucketException e) {
+      LOGGER.warn("Bucket {} has been deleted in the meantime", bucketName);
+      bucketCache.invalidate(bucketName);
+      ensureBucketExists(bucketName);
+      upload(bucketName, fileName, file);
+    }
+  }
+
+  private void ensureBucketExists(String bucketName) {
     if (!checkBucketExists(bucketName)) {
       LOGGER.warn("Bucket {} does not exist", bucketName);
       createBucket(bucketName);
     }
-    LOGGER.info("Uploading file {} to bucket {}", fileName, bucketName);
+  }
+
+  /**
+   * Upload the new and changed files of a directory tree to an S3 bucket. Files whose object has
+   * the same size and ETag are skipped; objects without a local file are kept.
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param directory The local directory to upload
+   * @param prefix The prefix put in front of the relative file paths, e.g. {@code backup/}, or an
+   *     empty String
+   * @return the number of uploaded and skipped files and the transferred bytes
+   */
+  public SyncResult syncDirectory(String bucketName, Path directory, String prefix) {
+    if (!bucketCache.isKnown(bucketName)) {
+      ensureBucketExists(bucketName);
+    }
+    try {
+      return directorySynchronizer.sync(bucketName, directory, prefix);
+    } catch (NoSuchBucketException e) {
+      LOGGER.warn("Bucket {} has been deleted in the meantime", bucketName);
+      bucketCache.invalidate(bucketName);
+      ensureBucketExists(bucketName);
+      return directorySynchronizer.sync(bucketName, directory, prefix);
+    }
+  }
+
+  private void upload(String bucketName, String key, Path file) {
+    if (multipartUploadConfig.isMultipart(file.toFile().length())) {
+      multipartUploader.upload(bucketName, key, file);
+      return;
+    }
+    LOGGER.info("Uploading file {} to bucket {}", file, bucketName);
     PutObjectRequest putObjectRequest =
-        PutObjectRequest.builder().bucket(bucketName).key(fileName).build();
-    s3Client.putObject(putObjectRequest, RequestBody.fromFile(Paths.get(fileName)));
+        PutObjectRequest.builder().bucket(bucketName).key(key).build();
+    s3Client.putObject(putObjectRequest, RequestBody.fromFile(file));
+  }
+
+  /**
+   * Download an object from an S3 bucket into a file, with several ranges in flight
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param fileName The name of the object
+   * @param target The file to write, replaced only once the download is complete
+   * @return the number of bytes downloaded
+   */
+  public long downloadObject(String bucketName, String fileName, Path target) {
+    return downloadObject(bucketName, fileName, target, DownloadConfig.defaults());
+  }
+
+  /**
+   * Download an object from an S3 bucket into a file, with several ranges in flight
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param fileName The name of the object
+   * @param target The file to write, replaced only once the download is complete
+   * @param downloadConfig the range size and the number of ranges in flight
+   * @return the number of bytes downloaded
+   */
+  public long downloadObject(
+      String bucketName, String fileName, Path target, DownloadConfig downloadConfig) {
+    return rangedDownloader.download(bucketName, fileName, target, downloadConfig);
+  }
+
+  /**
+   * Open an object of an S3 bucket as stream, fetching the next ranges while reading
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param fileName The name of the object
+   * @return the content of the object, to be closed after use
+   */
+  public InputStream openObject(String bucketName, String fileName) {
+    return openObject(bucketName, fileName, DownloadConfig.defaults());
+  }
+
+  /**
+   * Open an object of an S3 bucket as stream, fetching the next ranges while reading
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param fileName The name of the object
+   * @param downloadConfig the range size and the number of ranges to fetch ahead
+   * @return the content of the object, to be closed after use
+   */
+  public InputStream openObject(String bucketName, String fileName, DownloadConfig downloadConfig) {
+    return rangedDownloader.open(bucketName, fileName, downloadConfig);
   }
 
   /**
@@ -114,6 +301,7 @@ public class AWSS3Bucket {
    */
   public void deleteBucket(String bucketName) {
     LOGGER.info("Deleting bucket {}", bucketName);
+    bucketCache.invalidate(bucketName);
     try {
       s3Client.deleteBucket(DeleteBucketRequest.builder().bucket(bucketName).build());
     } catch (NoSuchBucketException e) {
@@ -135,6 +323,63 @@ public class AWSS3Bucket {
       LOGGER.warn("Trying to delete non existing object {} from bucket {}", fileName, bucketName);
     } catch (NoSuchBucketException e) {
       LOGGER.warn("Trying to delete object {} from non existing bucket {}", fileName, bucketName);
+      bucketCache.invalidate(bucketName);
+    }
+  }
+
+  /**
+   * Delete objects from an S3 bucket with as few requests as possible
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param fileNames The names of the objects
+   * @return the number of deleted objects and the objects which could not be deleted
+   */
+  public BatchDeleteResult deleteObjects(String bucketName, Collection<String> fileNames) {
+    LOGGER.info("Deleting {} objects from bucket {}", fileNames.size(), bucketName);
+    try {
+      return batchDeleter.delete(bucketName, fileNames.iterator());
+    } catch (NoSuchBucketException e) {
+      LOGGER.warn("Trying to delete objects from non existing bucket {}", bucketName);
+      bucketCache.invalidate(bucketName);
+      return new BatchDeleteResult(0, List.of());
+    }
+  }
+
+  /**
+   * Delete all objects whose name starts with the given prefix from an S3 bucket
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param prefix The prefix of the object names
+   * @return the number of deleted objects and the objects which could not be deleted
+   */
+  public BatchDeleteResult deleteObjectsWithPrefix(String bucketName, String prefix) {
+    LOGGER.info("Deleting objects with prefix {} from bucket {}", prefix, bucketName);
+    try {
+      return batchDeleter.deletePrefix(bucketName, prefix);
+    } catch (NoSuchBucketException e) {
+      LOGGER.warn("Trying to delete objects from non existing bucket {}", bucketName);
+      bucketCache.invalidate(bucketName);
+      return new BatchDeleteResult(0, List.of());
+    }
+  }
+
+  /**
+   * Delete an S3 bucket together with all its objects. The bucket is kept if an object could not be
+   * deleted. Object versions of versioned buckets are not deleted.
+   *
+   * @param bucketName The name of the S3 bucket
+   * @return the number of deleted objects and the objects which could not be deleted
+   */
+  public BatchDeleteResult deleteBucketRecursively(String bucketName) {
+    BatchDeleteResult result = deleteObjectsWithPrefix(bucketName, "");
+    if (result.isComplete()) {
+      deleteBucket(bucketName);
+    } else {
+      LOGGER.warn(
+          "Keeping bucket {}, {} objects could not be deleted",
+          bucketName,
+          result.failures().size());
     }
+    return result;
   }
 }
@@ -0,0 +1,105 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of asynchronous operations running at the same time without blocking the
+ * calling thread. Operations exceeding the limit are queued and started as soon as a running one
+ * completes.
+ */
+class AsyncConcurrencyLimiter {
+  private final int maxConcurrency;
+  private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger drainRequests = new AtomicInteger();
+
+  AsyncConcurrencyLimiter(int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("At least one operation must be allowed to run!");
+    }
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  /**
+   * Start an operation now or as soon as the limit allows it
+   *
+   * @param operation the operation to start, returning a future of its result
+   * @return a future completed with the result of the operation
+   */
+  <T> CompletableFuture<T> submit(Supplier<? extends CompletableFuture<T>> operation) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    pending.add(() -> start(operation, result));
+    drain();
+    return result;
+  }
+
+  /**
+   * Get the number of operations currently running
+   *
+   * @return the number of started but not yet completed operations
+   */
+  int inFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * Get the number of operations waiting to be started
+   *
+   * @return the number of queued operations
+   */
+  int queued() {
+    return pending.size();
+  }
+
+  private <T> void start(
+      Supplier<? extends CompletableFuture<T>> operation, CompletableFuture<T> result) {
+    CompletableFuture<T> future;
+    try {
+      future = operation.get();
+      if (future == null) {
+        future =
+            CompletableFuture.failedFuture(
+                new NullPointerException("The operation returned no future!"));
+      }
+    } catch (RuntimeException e) {
+      future = CompletableFuture.failedFuture(e);
+    }
+    future.whenComplete(
+        (value, failure) -> {
+          inFlight.decrementAndGet();
+          if (failure != null) {
+            result.completeExceptionally(failure);
+          } else {
+            result.complete(value);
+          }
+          drain();
+        });
+  }
+
+  /**
+   * Starts queued operations while the limit allows it. Only one thread drains at a time; a call
+   * arriving meanwhile, also from an operation completing synchronously, makes that thread loop
+   * once more instead of recursing.
+   */
+  private void drain() {
+    if (drainRequests.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      while (inFlight.get() < maxConcurrency) {
+        Runnable next = pending.poll();
+        if (next == null) {
+          break;
+        }
+        inFlight.incrementAndGet();
+        next.run();
+      }
+      missed = drainRequests.addAndGet(-missed);
+    } while (missed != 0);
+  }
+}
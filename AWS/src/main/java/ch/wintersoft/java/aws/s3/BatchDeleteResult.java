@@ -0,0 +1,33 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk deletion of {@link AWSS3Bucket}.
+ *
+ * @param deleted The number of deleted objects
+ * @param failures The objects which could not be deleted
+ */
+public record BatchDeleteResult(long deleted, List<Failure> failures) {
+  public BatchDeleteResult {
+    failures = List.copyOf(failures);
+  }
+
+  /**
+   * Check if every object was deleted
+   *
+   * @return true if no deletion failed, false otherwise
+   */
+  public boolean isComplete() {
+    return failures.isEmpty();
+  }
+
+  /**
+   * An object which could not be deleted.
+   *
+   * @param key The key of the object
+   * @param code The S3 error code, e.g. {@code AccessDenied}
+   * @param message The error message
+   */
+  public record Failure(String key, String code, String message) {}
+}
@@ -0,0 +1,178 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Deletes many objects with DeleteObjects requests of up to {@value #MAX_BATCH_SIZE} keys, several
+ * of them in flight.
+ *
+ * <p>Keys are consumed lazily, so a prefix can be deleted while it is still being listed. At most
+ * twice as many batches as there are threads are held in memory. Keys S3 refuses to delete are
+ * reported. A batch whose request fails as a whole with a client, I/O, throttling or server error
+ * is sent again with exponential backoff, up to {@value #MAX_ATTEMPTS} times; if it still fails,
+ * all its keys are reported and the other batches continue. A missing bucket is not a per-key
+ * failure, its {@link NoSuchBucketException} is thrown.
+ */
+final class BatchDeleter {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchDeleter.class);
+
+  /** The maximum number of keys of one DeleteObjects request. */
+  static final int MAX_BATCH_SIZE = 1000;
+
+  /** The number of attempts per batch before its keys are reported as failed. */
+  static final int MAX_ATTEMPTS = 3;
+
+  private final S3Client s3Client;
+  private final int parallelism;
+
+  BatchDeleter(S3Client s3Client, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("At least one batch must be in flight!");
+    }
+    this.s3Client = s3Client;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Delete all objects whose key starts with the given prefix
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param prefix The prefix of the keys to delete, empty for all objects
+   * @return the number of deleted objects and the failures
+   */
+  BatchDeleteResult deletePrefix(String bucketName, String prefix) {
+    Iterator<String> keys =
+        s3Client
+            .listObjectsV2Paginator(b -> b.bucket(bucketName).prefix(prefix))
+            .contents()
+            .stream()
+            .map(S3Object::key)
+            .iterator();
+    return delete(bucketName, keys);
+  }
+
+  /**
+   * Delete the given objects
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param keys The keys of the objects to delete
+   * @return the number of deleted objects and the failures
+   */
+  BatchDeleteResult delete(String bucketName, Iterator<String> keys) {
+    AtomicLong deleted = new AtomicLong();
+    List<BatchDeleteResult.Failure> failures = Collections.synchronizedList(new ArrayList<>());
+    Semaphore batchesInMemory = new Semaphore(2 * parallelism);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelism, Thread.ofPlatform().name("s3-delete-batch-", 0).daemon().factory());
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      while (keys.hasNext()) {
+        List<ObjectIdentifier> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (batch.size() < MAX_BATCH_SIZE && keys.hasNext()) {
+          batch.add(ObjectIdentifier.builder().key(keys.next()).build());
+        }
+        batchesInMemory.acquire();
+        futures.add(
+            executor.submit(
+                () -> {
+                  try {
+                    deleteBatch(bucketName, batch, deleted, failures);
+                  } finally {
+                    batchesInMemory.release();
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw SdkClientException.create("Deleting objects from " + bucketName + " failed", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw SdkClientException.create("Interrupted while deleting from " + bucketName, e);
+    } finally {
+      executor.shutdownNow();
+    }
+    LOGGER.info(
+        "Deleted {} objects from bucket {}, {} failed", deleted.get(), bucketName, failures.size());
+    return new BatchDeleteResult(deleted.get(), failures);
+  }
+
+  private void deleteBatch(
+      String bucketName,
+      List<ObjectIdentifier> batch,
+      AtomicLong deleted,
+      List<BatchDeleteResult.Failure> failures) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        DeleteObjectsResponse response =
+            s3Client.deleteObjects(
+                b -> b.bucket(bucketName).delete(d -> d.objects(batch).quiet(true)));
+        for (S3Error error : response.errors()) {
+          failures.add(new BatchDeleteResult.Failure(error.key(), error.code(), error.message()));
+        }
+        deleted.addAndGet(batch.size() - response.errors().size());
+        return;
+      } catch (NoSuchBucketException e) {
+        throw e;
+      } catch (SdkException | UncheckedIOException e) {
+        Exception cause = e instanceof UncheckedIOException unchecked ? unchecked.getCause() : e;
+        if (attempt >= MAX_ATTEMPTS || !Retries.isRetryable(cause)) {
+          LOGGER.warn("Deleting {} objects from bucket {} failed", batch.size(), bucketName, e);
+          reportBatch(batch, e, failures);
+          return;
+        }
+        LOGGER.info(
+            "Attempt {} to delete {} objects from bucket {} failed, retrying: {}",
+            attempt,
+            batch.size(),
+            bucketName,
+            e.getMessage());
+        try {
+          Retries.backoff(attempt);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          reportBatch(batch, e, failures);
+          return;
+        }
+      }
+    }
+  }
+
+  /** Reports every key of a batch whose request failed as a whole. */
+  private static void reportBatch(
+      List<ObjectIdentifier> batch, Exception e, List<BatchDeleteResult.Failure> failures) {
+    String code =
+        e instanceof S3Exception s3Exception && s3Exception.awsErrorDetails() != null
+            ? s3Exception.awsErrorDetails().errorCode()
+            : null;
+    for (ObjectIdentifier object : batch) {
+      failures.add(new BatchDeleteResult.Failure(object.key(), code, e.getMessage()));
+    }
+  }
+}
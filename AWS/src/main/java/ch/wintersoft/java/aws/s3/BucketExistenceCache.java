@@ -0,0 +1,67 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers buckets known to exist for a limited time, so that uploads do not need a HeadBucket
+ * request each. Entries are only a hint: a bucket deleted by someone else is noticed by the next
+ * request failing with a {@code NoSuchBucketException}, which has to invalidate the entry.
+ */
+class BucketExistenceCache {
+  private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+  private final long ttlNanos;
+  private final LongSupplier nanoTime;
+
+  BucketExistenceCache(Duration ttl) {
+    this(ttl, System::nanoTime);
+  }
+
+  BucketExistenceCache(Duration ttl, LongSupplier nanoTime) {
+    if (ttl.isNegative()) {
+      throw new IllegalArgumentException("The bucket cache TTL must not be negative!");
+    }
+    this.ttlNanos = ttl.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Check if a bucket is known to exist
+   *
+   * @param bucketName the name of the bucket
+   * @return true if the bucket was seen within the TTL, false otherwise
+   */
+  boolean isKnown(String bucketName) {
+    Long expiry = expiries.get(bucketName);
+    if (expiry == null) {
+      return false;
+    }
+    if (nanoTime.getAsLong() - expiry < 0) {
+      return true;
+    }
+    expiries.remove(bucketName, expiry);
+    return false;
+  }
+
+  /**
+   * Remember that a bucket exists
+   *
+   * @param bucketName the name of the bucket
+   */
+  void add(String bucketName) {
+    if (ttlNanos > 0) {
+      expiries.put(bucketName, nanoTime.getAsLong() + ttlNanos);
+    }
+  }
+
+  /**
+   * Forget a bucket, e.g. because it was deleted
+   *
+   * @param bucketName the name of the bucket
+   */
+  void invalidate(String bucketName) {
+    expiries.remove(bucketName);
+  }
+}
@@ -0,0 +1,206 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Uploads the new and changed files of a local directory tree to S3.
+ *
+ * <p>The remote objects below the prefix are listed once. A file is skipped if an object with the
+ * same size and ETag exists. The ETag of a single request upload is the MD5 of the content; the
+ * ETag {@code "<md5>-<n>"} of a multipart upload is the MD5 of the part MD5s, which is reproduced
+ * with the part size of the {@link MultipartUploadConfig}. Objects uploaded with another part size
+ * or encrypted with SSE-KMS never match and are uploaded again. Digests are computed with streaming
+ * reads by the worker threads, so hashing and uploading run in parallel with the directory walk.
+ * Only a bounded number of files is queued at a time, and the walk stops at the first failure.
+ */
+final class DirectorySynchronizer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DirectorySynchronizer.class);
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final ThreadLocal<ByteBuffer> BUFFERS =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+  /** Uploads a single file, deciding between a single request and a multipart upload. */
+  @FunctionalInterface
+  interface Uploader {
+    void upload(String bucketName, String key, Path file);
+  }
+
+  private final S3Client s3Client;
+  private final MultipartUploadConfig config;
+  private final Uploader uploader;
+  private final int parallelism;
+
+  DirectorySynchronizer(
+      S3Client s3Client, MultipartUploadConfig config, Uploader uploader, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("At least one file must be in flight!");
+    }
+    this.s3Client = s3Client;
+    this.config = config;
+    this.uploader = uploader;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Upload all files of a directory tree which differ from their remote object
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param directory The local directory
+   * @param prefix The prefix put in front of the relative file paths, e.g. {@code backup/}
+   * @return the number of uploaded and skipped files and the transferred bytes
+   */
+  SyncResult sync(String bucketName, Path directory, String prefix) {
+    Map<String, S3Object> remoteObjects = new HashMap<>();
+    for (S3Object object :
+        s3Client.listObjectsV2Paginator(b -> b.bucket(bucketName).prefix(prefix)).contents()) {
+      remoteObjects.put(object.key(), object);
+    }
+
+    AtomicInteger uploadedFiles = new AtomicInteger();
+    AtomicInteger skippedFiles = new AtomicInteger();
+    AtomicLong transferredBytes = new AtomicLong();
+    int maxFilesInFlight = 2 * parallelism;
+    Semaphore filesInFlight = new Semaphore(maxFilesInFlight);
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelism, Thread.ofPlatform().name("s3-sync-", 0).daemon().factory());
+    try (Stream<Path> files = Files.walk(directory)) {
+      Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+      while (failure.get() == null && iterator.hasNext()) {
+        Path file = iterator.next();
+        String key = prefix + key(directory.relativize(file));
+        S3Object remoteObject = remoteObjects.get(key);
+        filesInFlight.acquire();
+        executor.execute(
+            () -> {
+              try {
+                long size = Files.size(file);
+                if (isUnchanged(file, size, remoteObject)) {
+                  skippedFiles.incrementAndGet();
+                  return;
+                }
+                uploader.upload(bucketName, key, file);
+                uploadedFiles.incrementAndGet();
+                transferredBytes.addAndGet(size);
+              } catch (IOException | RuntimeException e) {
+                failure.compareAndSet(null, e);
+              } finally {
+                filesInFlight.release();
+              }
+            });
+      }
+      // every file releases its permit when done, so holding all permits means all are done
+      filesInFlight.acquire(maxFilesInFlight);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw SdkClientException.create("Interrupted while synchronizing " + directory, e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+    if (failure.get() instanceof IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (failure.get() instanceof RuntimeException e) {
+      throw e;
+    }
+    SyncResult result =
+        new SyncResult(uploadedFiles.get(), skippedFiles.get(), transferredBytes.get());
+    LOGGER.info(
+        "Synchronized {} to bucket {}: {} files uploaded ({} bytes), {} unchanged",
+        directory,
+        bucketName,
+        result.uploadedFiles(),
+        result.transferredBytes(),
+        result.skippedFiles());
+    return result;
+  }
+
+  private boolean isUnchanged(Path file, long size, S3Object remoteObject) throws IOException {
+    if (remoteObject == null || remoteObject.size() == null || remoteObject.size() != size) {
+      return false;
+    }
+    String eTag = remoteObject.eTag().replace("\"", "");
+    int separator = eTag.indexOf('-');
+    if (separator < 0) {
+      return eTag.equalsIgnoreCase(HexFormat.of().formatHex(md5(file, 0, size)));
+    }
+    long partSize = config.partSize(size);
+    long partCount = Math.max(1, Math.ceilDiv(size, partSize));
+    if (!eTag.substring(separator + 1).equals(Long.toString(partCount))) {
+      return false;
+    }
+    MessageDigest partDigests = messageDigest();
+    for (long part = 0; part < partCount; part++) {
+      long offset = part * partSize;
+      partDigests.update(md5(file, offset, Math.min(partSize, size - offset)));
+    }
+    return eTag.substring(0, separator)
+        .equalsIgnoreCase(HexFormat.of().formatHex(partDigests.digest()));
+  }
+
+  /** Computes the MD5 of a range of a file with positional reads into a reused buffer. */
+  private static byte[] md5(Path file, long offset, long length) throws IOException {
+    MessageDigest digest = messageDigest();
+    ByteBuffer buffer = BUFFERS.get();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long position = offset;
+      long end = offset + length;
+      while (position < end) {
+        buffer.clear().limit((int) Math.min(BUFFER_SIZE, end - position));
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          break;
+        }
+        position += read;
+        digest.update(buffer.flip());
+      }
+    }
+    return digest.digest();
+  }
+
+  private static MessageDigest messageDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not supported", e);
+    }
+  }
+
+  private static String key(Path relativePath) {
+    StringBuilder key = new StringBuilder();
+    for (Path element : relativePath) {
+      if (!key.isEmpty()) {
+        key.append('/');
+      }
+      key.append(element);
+    }
+    return key.toString();
+  }
+}
@@ -0,0 +1,51 @@
+package ch.wintersoft.java.aws.s3;
+
+/**
+ * Settings for ranged downloads of {@link AWSS3Bucket#downloadObject(String, String,
+ * java.nio.file.Path, DownloadConfig)} and {@link AWSS3Bucket#openObject(String, String,
+ * DownloadConfig)}.
+ *
+ * <p>Objects are fetched in ranges of {@code rangeSize} bytes with ranged GET requests. A download
+ * to a file keeps {@code maxInFlight} ranges in flight; a stream prefetches that many ranges ahead
+ * of the reader and therefore buffers up to {@code maxInFlight * rangeSize} bytes.
+ *
+ * @param rangeSize The size of each range in bytes, except the last one
+ * @param maxInFlight The maximum number of ranges fetched at the same time
+ * @param maxAttempts The number of attempts per range before the download fails
+ */
+public record DownloadConfig(long rangeSize, int maxInFlight, int maxAttempts) {
+  /** The largest range size, so a prefetched range fits into an array. */
+  public static final long MAX_RANGE_SIZE = 1024L * 1024 * 1024;
+
+  public DownloadConfig {
+    if (rangeSize < 1 || rangeSize > MAX_RANGE_SIZE) {
+      throw new IllegalArgumentException(
+          "Range size must be between 1 and " + MAX_RANGE_SIZE + " bytes!");
+    }
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("At least one range must be in flight!");
+    }
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("At least one attempt must be allowed!");
+    }
+  }
+
+  /**
+   * The default settings: 8 MiB ranges, 4 ranges in flight and 3 attempts per range
+   *
+   * @return the default settings
+   */
+  public static DownloadConfig defaults() {
+    return new DownloadConfig(8L * 1024 * 1024, 4, 3);
+  }
+
+  /**
+   * The number of ranges of an object of the given size
+   *
+   * @param objectSize the object size in bytes
+   * @return the number of ranges, 0 for an empty object
+   */
+  public long rangeCount(long objectSize) {
+    return Math.ceilDiv(objectSize, rangeSize);
+  }
+}
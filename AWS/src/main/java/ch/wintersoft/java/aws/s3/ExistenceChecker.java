@@ -0,0 +1,217 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Finds which of many keys do not exist, choosing between HeadObject and ListObjectsV2 requests.
+ *
+ * <p>The sorted keys are grouped by their parent prefix, the part up to the last {@code /}. Groups
+ * with fewer than {@code listThreshold} keys are checked with HeadObject requests, several in
+ * flight. Larger groups are listed from their first to their last key and merged with the sorted
+ * keys, so one request covers up to 1000 keys. A listing that needs more pages than it resolves
+ * keys, because the prefix holds many objects that were not asked for, falls back to HeadObject
+ * requests for the remaining keys.
+ *
+ * <p>Keys are sorted and merged in {@link #KEY_ORDER}, the order in which S3 lists them.
+ */
+final class ExistenceChecker {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExistenceChecker.class);
+
+  /**
+   * The binary order of the UTF-8 bytes of keys, in which S3 lists them. It equals the order of
+   * their code points, which differs from {@link String#compareTo} for supplementary characters.
+   */
+  static final Comparator<String> KEY_ORDER = ExistenceChecker::compareCodePoints;
+
+  private final S3Client s3Client;
+  private final int parallelism;
+  private final int listThreshold;
+
+  ExistenceChecker(S3Client s3Client, int parallelism, int listThreshold) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("At least one request must be in flight!");
+    }
+    if (listThreshold < 1) {
+      throw new IllegalArgumentException("List threshold must be at least 1!");
+    }
+    this.s3Client = s3Client;
+    this.parallelism = parallelism;
+    this.listThreshold = listThreshold;
+  }
+
+  /**
+   * Find the keys without an object
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param keys The keys to check
+   * @return the sorted keys which do not exist
+   */
+  NavigableSet<String> findMissing(String bucketName, Collection<String> keys) {
+    Map<String, List<String>> groups = new TreeMap<>(KEY_ORDER);
+    NavigableSet<String> sorted = new TreeSet<>(KEY_ORDER);
+    sorted.addAll(keys);
+    for (String key : sorted) {
+      groups.computeIfAbsent(parent(key), p -> new ArrayList<>()).add(key);
+    }
+
+    Collection<String> missing = new ConcurrentLinkedQueue<>();
+    Semaphore headsInFlight = new Semaphore(2 * parallelism);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelism, Thread.ofPlatform().name("s3-head-object-", 0).daemon().factory());
+    int listed = 0;
+    int headed = 0;
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+        List<String> unresolved = group.getValue();
+        if (unresolved.size() >= listThreshold) {
+          int before = unresolved.size();
+          unresolved = list(bucketName, group.getKey(), unresolved, missing);
+          listed += before - unresolved.size();
+        }
+        for (String key : unresolved) {
+          headsInFlight.acquire();
+          futures.add(
+              executor.submit(
+                  () -> {
+                    try {
+                      if (!exists(bucketName, key)) {
+                        missing.add(key);
+                      }
+                    } finally {
+                      headsInFlight.release();
+                    }
+                  }));
+        }
+        headed += unresolved.size();
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw SdkClientException.create("Checking objects of " + bucketName + " failed", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw SdkClientException.create("Interrupted while checking objects of " + bucketName, e);
+    } finally {
+      executor.shutdownNow();
+    }
+    LOGGER.info(
+        "Checked {} keys in bucket {} ({} listed, {} with HEAD), {} missing",
+        listed + headed,
+        bucketName,
+        listed,
+        headed,
+        missing.size());
+    NavigableSet<String> result = new TreeSet<>(KEY_ORDER);
+    result.addAll(missing);
+    return Collections.unmodifiableNavigableSet(result);
+  }
+
+  /**
+   * Lists the range of the sorted keys and adds the keys not listed to the missing ones.
+   *
+   * @return the keys not resolved because listing turned out to be more expensive than HEADs
+   */
+  private List<String> list(
+      String bucketName, String prefix, List<String> keys, Collection<String> missing) {
+    String first = keys.getFirst();
+    String last = keys.getLast();
+    // any key sorting directly before the first one, so the first one itself is listed; the last
+    // code point is removed as a whole so no surrogate pair is split
+    String startAfter = first.substring(0, first.offsetByCodePoints(first.length(), -1));
+    Iterator<ListObjectsV2Response> pages =
+        s3Client
+            .listObjectsV2Paginator(b -> b.bucket(bucketName).prefix(prefix).startAfter(startAfter))
+            .iterator();
+    int resolved = 0;
+    int pageCount = 0;
+    while (resolved < keys.size() && pages.hasNext()) {
+      ListObjectsV2Response page = pages.next();
+      pageCount++;
+      for (S3Object object : page.contents()) {
+        int compared = 0;
+        while (resolved < keys.size()
+            && (compared = KEY_ORDER.compare(keys.get(resolved), object.key())) < 0) {
+          missing.add(keys.get(resolved++));
+        }
+        if (resolved < keys.size() && compared == 0) {
+          resolved++;
+        }
+        if (KEY_ORDER.compare(object.key(), last) >= 0) {
+          break;
+        }
+      }
+      if (page.contents().isEmpty()
+          || KEY_ORDER.compare(page.contents().getLast().key(), last) >= 0) {
+        break;
+      }
+      if (pageCount > resolved) {
+        LOGGER.info(
+            "Listing prefix {} of bucket {} resolved only {} keys in {} pages, using HEAD requests",
+            prefix,
+            bucketName,
+            resolved,
+            pageCount);
+        return keys.subList(resolved, keys.size());
+      }
+    }
+    // the listing ended before reaching the remaining keys
+    missing.addAll(keys.subList(resolved, keys.size()));
+    return List.of();
+  }
+
+  private boolean exists(String bucketName, String key) {
+    try {
+      s3Client.headObject(b -> b.bucket(bucketName).key(key));
+      return true;
+    } catch (NoSuchKeyException e) {
+      return false;
+    }
+  }
+
+  private static int compareCodePoints(String a, String b) {
+    int i = 0;
+    int j = 0;
+    while (i < a.length() && j < b.length()) {
+      int codePointA = a.codePointAt(i);
+      int codePointB = b.codePointAt(j);
+      if (codePointA != codePointB) {
+        return Integer.compare(codePointA, codePointB);
+      }
+      i += Character.charCount(codePointA);
+      j += Character.charCount(codePointB);
+    }
+    return Integer.compare(a.length() - i, b.length() - j);
+  }
+
+  private static String parent(String key) {
+    return key.substring(0, key.lastIndexOf('/') + 1);
+  }
+}
@@ -0,0 +1,76 @@
+package ch.wintersoft.java.aws.s3;
+
+/**
+ * Settings for multipart uploads of {@link AWSS3Bucket#uploadObject(String, String)}.
+ *
+ * <p>Files of at least {@code threshold} bytes are split into parts of {@code partSize} bytes,
+ * which are uploaded concurrently. S3 allows at most {@value #MAX_PARTS} parts per upload, so the
+ * part size is increased for files that would need more parts.
+ *
+ * @param threshold The file size in bytes from which on multipart uploads are used
+ * @param partSize The size of each part in bytes, except the last one
+ * @param maxInFlight The maximum number of parts uploaded at the same time
+ * @param maxAttempts The number of attempts per part before the upload is aborted
+ */
+public record MultipartUploadConfig(
+    long threshold, long partSize, int maxInFlight, int maxAttempts) {
+  /** The smallest part size accepted by S3, except for the last part. */
+  public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+  /** The largest part size accepted by S3. */
+  public static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+
+  /** The maximum number of parts of one upload. */
+  public static final int MAX_PARTS = 10_000;
+
+  public MultipartUploadConfig {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("Threshold must be at least 1 byte!");
+    }
+    if (partSize < MIN_PART_SIZE || partSize > MAX_PART_SIZE) {
+      throw new IllegalArgumentException(
+          "Part size must be between " + MIN_PART_SIZE + " and " + MAX_PART_SIZE + " bytes!");
+    }
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("At least one part must be in flight!");
+    }
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("At least one attempt must be allowed!");
+    }
+  }
+
+  /**
+   * The default settings: multipart from 64 MiB on, 16 MiB parts, 4 parts in flight and 3 attempts
+   * per part
+   *
+   * @return the default settings
+   */
+  public static MultipartUploadConfig defaults() {
+    return new MultipartUploadConfig(64L * 1024 * 1024, 16L * 1024 * 1024, 4, 3);
+  }
+
+  /**
+   * Check if a file of the given size is uploaded in parts
+   *
+   * @param objectSize the file size in bytes
+   * @return true if the size reaches the threshold
+   */
+  public boolean isMultipart(long objectSize) {
+    return objectSize >= threshold;
+  }
+
+  /**
+   * The part size used for a file of the given size
+   *
+   * @param objectSize the file size in bytes
+   * @return the configured part size, or a larger one if the file would need more than {@value
+   *     #MAX_PARTS} parts
+   */
+  public long partSize(long objectSize) {
+    long size = Math.max(partSize, Math.ceilDiv(objectSize, MAX_PARTS));
+    if (size > MAX_PART_SIZE) {
+      throw new IllegalArgumentException("Object of " + objectSize + " bytes is too large for S3!");
+    }
+    return size;
+  }
+}
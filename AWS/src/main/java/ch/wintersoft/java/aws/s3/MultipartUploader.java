@@ -0,0 +1,216 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * Uploads a file as S3 multipart upload with several parts in flight.
+ *
+ * <p>Each part is streamed directly from the file with positional reads, so memory use does not
+ * depend on the part size. A part that fails with a client error, a throttling or a server error is
+ * retried with exponential backoff. If a part finally fails, the remaining parts are cancelled and
+ * the multipart upload is aborted, so S3 does not keep the uploaded parts.
+ */
+final class MultipartUploader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MultipartUploader.class);
+  private static final String CONTENT_TYPE = "application/octet-stream";
+
+  private final S3Client s3Client;
+  private final MultipartUploadConfig config;
+
+  MultipartUploader(S3Client s3Client, MultipartUploadConfig config) {
+    this.s3Client = s3Client;
+    this.config = config;
+  }
+
+  /**
+   * Upload a file in parts
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param key The key of the object
+   * @param file The file to upload
+   * @return the ETag of the completed object
+   */
+  String upload(String bucketName, String key, Path file) {
+    long size = size(file);
+    long partSize = config.partSize(size);
+    int partCount = (int) Math.max(1, Math.ceilDiv(size, partSize));
+    String uploadId = s3Client.createMultipartUpload(b -> b.bucket(bucketName).key(key)).uploadId();
+    LOGGER.info(
+        "Uploading file {} to bucket {} in {} parts (upload {})",
+        file,
+        bucketName,
+        partCount,
+        uploadId);
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(config.maxInFlight(), partCount),
+            Thread.ofPlatform().name("s3-upload-part-", 0).daemon().factory());
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      List<Future<CompletedPart>> futures = new ArrayList<>(partCount);
+      for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+        long offset = (partNumber - 1) * partSize;
+        long length = Math.min(partSize, size - offset);
+        int number = partNumber;
+        futures.add(
+            executor.submit(
+                () -> uploadPart(bucketName, key, uploadId, number, channel, offset, length)));
+      }
+      List<CompletedPart> parts = new ArrayList<>(partCount);
+      for (Future<CompletedPart> future : futures) {
+        parts.add(future.get());
+      }
+      String eTag =
+          s3Client
+              .completeMultipartUpload(
+                  b ->
+                      b.bucket(bucketName)
+                          .key(key)
+                          .uploadId(uploadId)
+                          .multipartUpload(m -> m.parts(parts)))
+              .eTag();
+      LOGGER.info("Completed upload {} of file {} to bucket {}", uploadId, file, bucketName);
+      return eTag;
+    } catch (ExecutionException e) {
+      abort(bucketName, key, uploadId, executor);
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw SdkClientException.create("Uploading a part of " + file + " failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abort(bucketName, key, uploadId, executor);
+      throw SdkClientException.create("Interrupted while uploading " + file, e);
+    } catch (IOException e) {
+      abort(bucketName, key, uploadId, executor);
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException e) {
+      abort(bucketName, key, uploadId, executor);
+      throw e;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private CompletedPart uploadPart(
+      String bucketName,
+      String key,
+      String uploadId,
+      int partNumber,
+      FileChannel channel,
+      long offset,
+      long length)
+      throws InterruptedException {
+    UploadPartRequest request =
+        UploadPartRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .uploadId(uploadId)
+            .partNumber(partNumber)
+            .contentLength(length)
+            .build();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        String eTag =
+            s3Client
+                .uploadPart(
+                    request,
+                    RequestBody.fromContentProvider(
+                        () -> new FileRangeInputStream(channel, offset, length),
+                        length,
+                        CONTENT_TYPE))
+                .eTag();
+        return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+      } catch (SdkException e) {
+        if (attempt >= config.maxAttempts() || !Retries.isRetryable(e)) {
+          throw e;
+        }
+        LOGGER.warn(
+            "Attempt {} to upload part {} of {} failed, retrying: {}",
+            attempt,
+            partNumber,
+            key,
+            e.getMessage());
+        Retries.backoff(attempt);
+      }
+    }
+  }
+
+  /** Stop all parts in flight before aborting, so no part is stored after the abort. */
+  private void abort(String bucketName, String key, String uploadId, ExecutorService executor) {
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    LOGGER.warn("Aborting upload {} of {} to bucket {}", uploadId, key, bucketName);
+    try {
+      s3Client.abortMultipartUpload(b -> b.bucket(bucketName).key(key).uploadId(uploadId));
+    } catch (SdkException e) {
+      LOGGER.warn("Failed to abort upload {} of {}", uploadId, key, e);
+    }
+  }
+
+  private static long size(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Reads a range of a file with positional reads, so several parts can share one channel. */
+  private static final class FileRangeInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    FileRangeInputStream(FileChannel channel, long offset, long length) {
+      this.channel = channel;
+      this.position = offset;
+      this.end = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (position >= end) {
+        return -1;
+      }
+      int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+      if (n < 0) {
+        throw new IOException("File ended before position " + end);
+      }
+      position += n;
+      return n;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads an object range by range while the following ranges are already being fetched.
+ *
+ * <p>Up to {@link DownloadConfig#maxInFlight()} ranges are fetched ahead of the range being read.
+ * Each consumed range triggers the fetch of the next one, so a steady reader never waits for a
+ * request once the first range has arrived. Closing the stream cancels all outstanding fetches.
+ */
+final class PrefetchingInputStream extends InputStream {
+
+  /** Fetches a range of the object. */
+  @FunctionalInterface
+  interface RangeFetcher {
+    byte[] fetch(long offset, int length) throws Exception;
+  }
+
+  private final long size;
+  private final long rangeSize;
+  private final int prefetchRanges;
+  private final RangeFetcher fetcher;
+  private final Queue<Future<byte[]>> prefetched = new ArrayDeque<>();
+  private final ExecutorService executor;
+  private long nextOffset;
+  private byte[] current = new byte[0];
+  private int position;
+  private boolean closed;
+
+  PrefetchingInputStream(long size, DownloadConfig config, RangeFetcher fetcher) {
+    this.size = size;
+    this.rangeSize = config.rangeSize();
+    this.prefetchRanges = config.maxInFlight();
+    this.fetcher = fetcher;
+    this.executor =
+        Executors.newFixedThreadPool(
+            prefetchRanges, Thread.ofPlatform().name("s3-prefetch-range-", 0).daemon().factory());
+    prefetch();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextRange()) {
+      return -1;
+    }
+    return current[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextRange()) {
+      return -1;
+    }
+    int count = Math.min(len, current.length - position);
+    System.arraycopy(current, position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public int available() throws IOException {
+    ensureOpen();
+    return current.length - position;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    current = new byte[0];
+    for (Future<byte[]> future : prefetched) {
+      future.cancel(true);
+    }
+    prefetched.clear();
+    executor.shutdownNow();
+  }
+
+  /** Makes the next range current once the current one is consumed. */
+  private boolean nextRange() throws IOException {
+    ensureOpen();
+    if (position < current.length) {
+      return true;
+    }
+    Future<byte[]> next = prefetched.poll();
+    if (next == null) {
+      return false;
+    }
+    try {
+      current = next.get();
+      position = 0;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while fetching a range");
+    } catch (ExecutionException e) {
+      close();
+      Throwable cause = e.getCause();
+      if (cause instanceof UncheckedIOException unchecked) {
+        throw unchecked.getCause();
+      }
+      throw cause instanceof IOException ioException ? ioException : new IOException(cause);
+    }
+    prefetch();
+    return true;
+  }
+
+  private void prefetch() {
+    while (prefetched.size() < prefetchRanges && nextOffset < size) {
+      long offset = nextOffset;
+      int length = (int) Math.min(rangeSize, size - offset);
+      prefetched.add(executor.submit(() -> fetcher.fetch(offset, length)));
+      nextOffset += length;
+    }
+    if (nextOffset >= size && prefetched.isEmpty()) {
+      executor.shutdown();
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+/**
+ * Downloads an object with ranged GET requests, several ranges in flight.
+ *
+ * <p>Every range is requested with the ETag of the object as {@code If-Match}, so an object
+ * replaced during the download fails with {@code 412 Precondition Failed} instead of producing a
+ * mix of both versions. A range that fails with a client, I/O, throttling or server error is
+ * fetched again with exponential backoff.
+ */
+final class RangedDownloader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RangedDownloader.class);
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String PART_SUFFIX = ".part";
+  private static final ThreadLocal<byte[]> BUFFERS =
+      ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+  /** Receives the bytes of a range in order. */
+  @FunctionalInterface
+  private interface RangeSink {
+    void write(byte[] buffer, int length, long position) throws IOException;
+  }
+
+  private final S3Client s3Client;
+
+  RangedDownloader(S3Client s3Client) {
+    this.s3Client = s3Client;
+  }
+
+  /**
+   * Download an object into a file. The ranges are written into a sibling file with the suffix
+   * {@code .part}, allocated with the object size up front; each range is written at its offset
+   * with positional writes and no range is buffered as a whole. Only once all ranges are complete,
+   * the part file atomically replaces the target. If the download fails, the part file is deleted
+   * and an existing target is left untouched.
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param key The key of the object
+   * @param target The file to write, replaced once the download is complete
+   * @param config The range size, parallelism and attempts
+   * @return the number of bytes downloaded
+   */
+  long download(String bucketName, String key, Path target, DownloadConfig config) {
+    HeadObjectResponse head = s3Client.headObject(b -> b.bucket(bucketName).key(key));
+    long size = head.contentLength();
+    int rangeCount = (int) config.rangeCount(size);
+    LOGGER.info(
+        "Downloading object {} from bucket {} to {} in {} ranges",
+        key,
+        bucketName,
+        target,
+        rangeCount);
+
+    Path part = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+    // opened outside of the try, a file that cannot be opened is not ours to delete
+    FileChannel channel;
+    try {
+      channel =
+          FileChannel.open(
+              part,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.max(1, Math.min(config.maxInFlight(), rangeCount)),
+            Thread.ofPlatform().name("s3-download-range-", 0).daemon().factory());
+    try (channel) {
+      if (size > 0) {
+        channel.write(ByteBuffer.allocate(1), size - 1);
+      }
+      List<Future<?>> futures = new ArrayList<>(rangeCount);
+      for (long offset = 0; offset < size; offset += config.rangeSize()) {
+        long start = offset;
+        long length = Math.min(config.rangeSize(), size - offset);
+        futures.add(
+            executor.submit(
+                () -> {
+                  fetchRange(
+                      bucketName,
+                      key,
+                      head.eTag(),
+                      start,
+                      length,
+                      config,
+                      (buffer, read, position) -> write(channel, buffer, read, position));
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      fail(part, executor);
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw SdkClientException.create("Downloading a range of " + key + " failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      fail(part, executor);
+      throw SdkClientException.create("Interrupted while downloading " + key, e);
+    } catch (IOException e) {
+      fail(part, executor);
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException e) {
+      fail(part, executor);
+      throw e;
+    } finally {
+      executor.shutdownNow();
+    }
+    try {
+      Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      delete(part);
+      throw new UncheckedIOException(e);
+    }
+    return size;
+  }
+
+  /**
+   * Open an object as stream which fetches the next ranges while the current one is read
+   *
+   * @param bucketName The name of the S3 bucket
+   * @param key The key of the object
+   * @param config The range size, the number of ranges to prefetch and attempts
+   * @return the content of the object, to be closed after use
+   */
+  InputStream open(String bucketName, String key, DownloadConfig config) {
+    HeadObjectResponse head = s3Client.headObject(b -> b.bucket(bucketName).key(key));
+    return new PrefetchingInputStream(
+        head.contentLength(),
+        config,
+        (offset, length) -> {
+          byte[] range = new byte[length];
+          fetchRange(
+              bucketName,
+              key,
+              head.eTag(),
+              offset,
+              length,
+              config,
+              (buffer, read, position) ->
+                  System.arraycopy(buffer, 0, range, (int) (position - offset), read));
+          return range;
+        });
+  }
+
+  private void fetchRange(
+      String bucketName,
+      String key,
+      String eTag,
+      long offset,
+      long length,
+      DownloadConfig config,
+      RangeSink sink)
+      throws IOException, InterruptedException {
+    String range = "bytes=" + offset + "-" + (offset + length - 1);
+    for (int attempt = 1; ; attempt++) {
+      try (ResponseInputStream<GetObjectResponse> in =
+          s3Client.getObject(b -> b.bucket(bucketName).key(key).range(range).ifMatch(eTag))) {
+        byte[] buffer = BUFFERS.get();
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+          int read = in.read(buffer, 0, (int) Math.min(buffer.length, end - position));
+          if (read < 0) {
+            throw new IOException(
+                "Range " + range + " of " + key + " ended after " + (position - offset) + " bytes");
+          }
+          sink.write(buffer, read, position);
+          position += read;
+        }
+        return;
+      } catch (SdkException | IOException e) {
+        if (attempt >= config.maxAttempts() || !Retries.isRetryable(e)) {
+          throw e;
+        }
+        LOGGER.warn(
+            "Attempt {} to download range {} of {} failed, retrying: {}",
+            attempt,
+            range,
+            key,
+            e.getMessage());
+        Retries.backoff(attempt);
+      }
+    }
+  }
+
+  private static void write(FileChannel channel, byte[] buffer, int length, long position)
+      throws IOException {
+    ByteBuffer source = ByteBuffer.wrap(buffer, 0, length);
+    while (source.hasRemaining()) {
+      position += channel.write(source, position);
+    }
+  }
+
+  /** Stop all ranges in flight before deleting the incomplete file. */
+  private static void fail(Path part, ExecutorService executor) {
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    delete(part);
+  }
+
+  private static void delete(Path part) {
+    try {
+      Files.deleteIfExists(part);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to delete incomplete download {}", part, e);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/** Retry policy shared by the part and range transfers. */
+final class Retries {
+  private static final long BACKOFF_MILLIS = 200;
+
+  private Retries() {}
+
+  /**
+   * Check if a failed transfer is worth another attempt: client and I/O errors, throttling and
+   * server errors are, rejected requests and closed channels are not
+   *
+   * @param e the failure
+   * @return true if the transfer should be retried
+   */
+  static boolean isRetryable(Exception e) {
+    if (e instanceof S3Exception s3Exception) {
+      return s3Exception.statusCode() >= 500 || s3Exception.statusCode() == 429;
+    }
+    if (e instanceof IOException) {
+      return !(e instanceof ClosedChannelException);
+    }
+    return e instanceof SdkClientException;
+  }
+
+  /**
+   * Wait before the next attempt, doubling the delay after each attempt
+   *
+   * @param attempt the number of the failed attempt, starting at 1
+   * @throws InterruptedException if interrupted while waiting
+   */
+  static void backoff(int attempt) throws InterruptedException {
+    Thread.sleep(BACKOFF_MILLIS << (attempt - 1));
+  }
+}
@@ -0,0 +1,10 @@
+package ch.wintersoft.java.aws.s3;
+
+/**
+ * The outcome of {@link AWSS3Bucket#syncDirectory(String, java.nio.file.Path, String)}.
+ *
+ * @param uploadedFiles The number of new or changed files which were uploaded
+ * @param skippedFiles The number of files which were already up to date
+ * @param transferredBytes The number of bytes uploaded
+ */
+public record SyncResult(int uploadedFiles, int skippedFiles, long transferredBytes) {}
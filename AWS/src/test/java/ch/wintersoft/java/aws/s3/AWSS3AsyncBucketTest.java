@@ -0,0 +1,95 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AWSS3AsyncBucketTest {
+
+  private static final String BUCKET_NAME = "my-bucket";
+
+  @TempDir Path directory;
+  private final InMemoryS3Client s3Client = new InMemoryS3Client();
+  private final InMemoryS3AsyncClient s3AsyncClient = new InMemoryS3AsyncClient(s3Client, 1);
+  private final AWSS3AsyncBucket awss3Bucket = new AWSS3AsyncBucket(s3AsyncClient, 16);
+
+  @Test
+  void createBucket_resultsInExistingBucket() {
+    awss3Bucket.createBucket(BUCKET_NAME).join();
+    assertTrue(awss3Bucket.checkBucketExists(BUCKET_NAME).join());
+  }
+
+  @Test
+  void deletingABucket_resultsInNotExistingBucket() {
+    awss3Bucket.createBucket(BUCKET_NAME).join();
+    awss3Bucket.deleteBucket(BUCKET_NAME).join();
+    assertFalse(awss3Bucket.checkBucketExists(BUCKET_NAME).join());
+    awss3Bucket.deleteBucket(BUCKET_NAME).join();
+  }
+
+  @Test
+  void creatingObjectOnNonExistingBucket_createsBucketAndObject() throws IOException {
+    String objectName = file("content").toString();
+    awss3Bucket.uploadObject(BUCKET_NAME, objectName).join();
+    assertTrue(awss3Bucket.checkBucketExists(BUCKET_NAME).join());
+    assertTrue(awss3Bucket.checkObjectExists(BUCKET_NAME, objectName).join());
+  }
+
+  @Test
+  void deletingAnObject_resultsInNonExistingObject() throws IOException {
+    String objectName = file("content").toString();
+    awss3Bucket.uploadObject(BUCKET_NAME, objectName).join();
+    awss3Bucket.deleteObject(BUCKET_NAME, objectName).join();
+    assertFalse(awss3Bucket.checkObjectExists(BUCKET_NAME, objectName).join());
+    awss3Bucket.deleteObject("other-bucket", objectName).join();
+  }
+
+  @Test
+  void asyncBucketOfSyncBucket_sharesKnownBuckets() throws IOException {
+    AWSS3Bucket syncBucket = new AWSS3Bucket(s3Client);
+    AWSS3AsyncBucket sharing = syncBucket.asyncBucket(s3AsyncClient, 16);
+    syncBucket.createBucket(BUCKET_NAME);
+    int headBucketCalls = s3Client.headBucketCalls.get();
+
+    sharing.uploadObject(BUCKET_NAME, file("content").toString()).join();
+
+    assertEquals(headBucketCalls, s3Client.headBucketCalls.get());
+  }
+
+  @Test
+  void manyConcurrentUploads_respectTheLimit() throws IOException {
+    List<String> objectNames = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      objectNames.add(file("file" + i).toString());
+    }
+
+    List<CompletableFuture<Void>> uploads = new ArrayList<>();
+    for (String objectName : objectNames) {
+      uploads.add(awss3Bucket.uploadObject(BUCKET_NAME, objectName));
+    }
+    CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+
+    assertEquals(2000, s3Client.putObjectCalls.get());
+    assertTrue(s3AsyncClient.maxInFlight.get() <= 16, "max in flight " + s3AsyncClient.maxInFlight);
+    // all uploads waited for the same existence check
+    assertEquals(2, s3Client.headBucketCalls.get());
+    assertArrayEquals(
+        "file1999".getBytes(StandardCharsets.UTF_8),
+        s3Client.get(BUCKET_NAME, objectNames.getLast()));
+  }
+
+  private Path file(String content) throws IOException {
+    return Files.writeString(directory.resolve(content), content);
+  }
+}
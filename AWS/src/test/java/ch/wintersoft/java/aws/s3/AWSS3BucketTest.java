@@ -1,6 +1,14 @@
 package ch.wintersoft.java.aws.s3;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -12,18 +20,23 @@ import org.testcontainers.localstack.LocalStackContainer;
 import org.testcontainers.utility.DockerImageName;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class AWSS3BucketTest {
 
   private static final String BUCKET_NAME = "my-bucket";
+  private static final long MIB = 1024 * 1024;
   private final String objectName =
       Objects.requireNonNull(getClass().getClassLoader().getResource("myfile.txt")).getFile();
   private LocalStackContainer localStackContainer;
   private AWSS3Bucket awss3Bucket;
+  private AWSS3Bucket multipartBucket;
+  private S3Client s3Client;
 
   @BeforeAll
   void startContainer() {
@@ -34,7 +47,7 @@ class AWSS3BucketTest {
 
     localStackContainer.start();
     // initializing the S3 client to connect to the LocalStack S3 service
-    S3Client s3Client =
+    s3Client =
         S3Client.builder()
             .credentialsProvider(
                 StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
@@ -43,6 +56,7 @@ class AWSS3BucketTest {
             .endpointOverride(localStackContainer.getEndpoint())
             .build();
     awss3Bucket = new AWSS3Bucket(s3Client);
+    multipartBucket = new AWSS3Bucket(s3Client, new MultipartUploadConfig(5 * MIB, 5 * MIB, 2, 3));
   }
 
   @BeforeEach
@@ -108,4 +122,129 @@ class AWSS3BucketTest {
     awss3Bucket.deleteObject(BUCKET_NAME, objectName);
     Assertions.assertFalse(awss3Bucket.checkObjectExists(BUCKET_NAME, objectName));
   }
+
+  @Test
+  void deletingANonEmptyBucketRecursively_deletesObjectsAndBucket() {
+    awss3Bucket.createBucket(BUCKET_NAME);
+    for (int i = 0; i < 1500; i++) {
+      String key = "logs/" + i;
+      s3Client.putObject(b -> b.bucket(BUCKET_NAME).key(key), RequestBody.fromString("x"));
+    }
+    s3Client.putObject(b -> b.bucket(BUCKET_NAME).key("data/keep"), RequestBody.fromString("x"));
+
+    BatchDeleteResult logs = awss3Bucket.deleteObjectsWithPrefix(BUCKET_NAME, "logs/");
+    Assertions.assertEquals(new BatchDeleteResult(1500, List.of()), logs);
+    Assertions.assertTrue(awss3Bucket.checkObjectExists(BUCKET_NAME, "data/keep"));
+
+    BatchDeleteResult all = awss3Bucket.deleteBucketRecursively(BUCKET_NAME);
+    Assertions.assertEquals(new BatchDeleteResult(1, List.of()), all);
+    Assertions.assertFalse(awss3Bucket.checkBucketExists(BUCKET_NAME));
+  }
+
+  @Test
+  void deletingObjectsFromNonExistingBucket_deletesNothing() {
+    BatchDeleteResult result = awss3Bucket.deleteObjects(BUCKET_NAME, List.of("a", "b"));
+    Assertions.assertEquals(new BatchDeleteResult(0, List.of()), result);
+  }
+
+  @Test
+  void syncingADirectoryTwice_skipsUnchangedFiles() throws IOException {
+    Path directory = Files.createTempDirectory("sync");
+    Files.writeString(directory.resolve("a.txt"), "alpha");
+    Files.createDirectories(directory.resolve("sub"));
+    Files.writeString(directory.resolve("sub/b.txt"), "bravo");
+    byte[] content = new byte[(int) (6 * MIB)];
+    new Random(42).nextBytes(content);
+    Files.write(directory.resolve("large.bin"), content);
+
+    Assertions.assertEquals(
+        new SyncResult(3, 0, 10 + 6 * MIB),
+        multipartBucket.syncDirectory(BUCKET_NAME, directory, "backup/"));
+    Assertions.assertTrue(multipartBucket.checkObjectExists(BUCKET_NAME, "backup/sub/b.txt"));
+    Assertions.assertEquals(
+        new SyncResult(0, 3, 0), multipartBucket.syncDirectory(BUCKET_NAME, directory, "backup/"));
+
+    Files.writeString(directory.resolve("a.txt"), "ALPHA");
+    Assertions.assertEquals(
+        new SyncResult(1, 2, 5), multipartBucket.syncDirectory(BUCKET_NAME, directory, "backup/"));
+    awss3Bucket.deleteObjectsWithPrefix(BUCKET_NAME, "backup/");
+  }
+
+  @Test
+  void findingMissingObjects_reportsOnlyMissingKeys() {
+    awss3Bucket.createBucket(BUCKET_NAME);
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      String key = "logs/" + i;
+      keys.add(key);
+      if (i % 10 != 3) {
+        s3Client.putObject(b -> b.bucket(BUCKET_NAME).key(key), RequestBody.fromString("x"));
+      }
+    }
+    keys.add("other/missing");
+
+    Set<String> missing = awss3Bucket.findMissingObjects(BUCKET_NAME, keys);
+
+    Assertions.assertEquals(11, missing.size());
+    Assertions.assertTrue(missing.contains("logs/53"));
+    Assertions.assertTrue(missing.contains("other/missing"));
+    awss3Bucket.deleteObjectsWithPrefix(BUCKET_NAME, "logs/");
+  }
+
+  @Test
+  void uploadingALargeFile_usesMultipartUpload() throws IOException {
+    Path file = Files.createTempFile("multipart", ".bin");
+    byte[] content = new byte[(int) (12 * MIB)];
+    new Random(42).nextBytes(content);
+    Files.write(file, content);
+    String key = file.toString();
+    try {
+      multipartBucket.uploadObject(BUCKET_NAME, key);
+
+      HeadObjectResponse head = s3Client.headObject(b -> b.bucket(BUCKET_NAME).key(key));
+      Assertions.assertEquals(content.length, head.contentLength());
+      // the ETag of a multipart upload ends with the number of parts
+      Assertions.assertTrue(head.eTag().endsWith("-3\""), head.eTag());
+      Assertions.assertArrayEquals(
+          content, s3Client.getObjectAsBytes(b -> b.bucket(BUCKET_NAME).key(key)).asByteArray());
+      Assertions.assertTrue(
+          s3Client.listMultipartUploads(b -> b.bucket(BUCKET_NAME)).uploads().isEmpty());
+    } finally {
+      multipartBucket.deleteObject(BUCKET_NAME, key);
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void downloadingALargeObject_fetchesAllRanges() throws IOException {
+    Path file = Files.createTempFile("download", ".bin");
+    Path target = Files.createTempFile("download", ".copy");
+    byte[] content = new byte[(int) (3 * MIB + 17)];
+    new Random(42).nextBytes(content);
+    Files.write(file, content);
+    String key = file.toString();
+    DownloadConfig downloadConfig = new DownloadConfig(MIB, 2, 3);
+    try {
+      awss3Bucket.uploadObject(BUCKET_NAME, key);
+
+      Assertions.assertEquals(
+          content.length, awss3Bucket.downloadObject(BUCKET_NAME, key, target, downloadConfig));
+      Assertions.assertArrayEquals(content, Files.readAllBytes(target));
+      try (InputStream in = awss3Bucket.openObject(BUCKET_NAME, key, downloadConfig)) {
+        Assertions.assertArrayEquals(content, in.readAllBytes());
+      }
+    } finally {
+      awss3Bucket.deleteObject(BUCKET_NAME, key);
+      Files.delete(file);
+      Files.delete(target);
+    }
+  }
+
+  @Test
+  void uploadingASmallFile_usesSingleRequest() {
+    multipartBucket.uploadObject(BUCKET_NAME, objectName);
+
+    HeadObjectResponse head = s3Client.headObject(b -> b.bucket(BUCKET_NAME).key(objectName));
+    Assertions.assertFalse(head.eTag().contains("-"), head.eTag());
+  }
 }
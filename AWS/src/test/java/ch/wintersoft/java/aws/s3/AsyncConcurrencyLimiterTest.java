@@ -0,0 +1,84 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+
+class AsyncConcurrencyLimiterTest {
+
+  @Test
+  void operationsAboveLimit_areQueuedUntilOthersComplete() {
+    AsyncConcurrencyLimiter limiter = new AsyncConcurrencyLimiter(2);
+    List<CompletableFuture<Integer>> operations = new ArrayList<>();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      CompletableFuture<Integer> operation = new CompletableFuture<>();
+      operations.add(operation);
+      results.add(limiter.submit(() -> operation));
+    }
+    assertEquals(2, limiter.inFlight());
+    assertEquals(3, limiter.queued());
+
+    for (int i = 0; i < 5; i++) {
+      operations.get(i).complete(i);
+      assertEquals(i, results.get(i).join());
+    }
+    assertEquals(0, limiter.inFlight());
+    assertEquals(0, limiter.queued());
+  }
+
+  @Test
+  void failingOperation_releasesItsSlot() {
+    AsyncConcurrencyLimiter limiter = new AsyncConcurrencyLimiter(1);
+    CompletableFuture<String> failed =
+        limiter.submit(
+            () -> {
+              throw new IllegalStateException("boom");
+            });
+    CompletableFuture<String> next = limiter.submit(() -> CompletableFuture.completedFuture("ok"));
+
+    ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+    assertTrue(e.getCause() instanceof IllegalStateException);
+    assertEquals("ok", next.join());
+  }
+
+  @Test
+  void operationReturningNull_failsAndReleasesItsSlot() {
+    AsyncConcurrencyLimiter limiter = new AsyncConcurrencyLimiter(1);
+    CompletableFuture<String> failed = limiter.submit(() -> null);
+    CompletableFuture<String> next = limiter.submit(() -> CompletableFuture.completedFuture("ok"));
+
+    ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+    assertTrue(e.getCause() instanceof NullPointerException);
+    assertEquals("ok", next.join());
+    assertEquals(0, limiter.inFlight());
+  }
+
+  @Test
+  void synchronouslyCompletingOperations_doNotRecurse() {
+    AsyncConcurrencyLimiter limiter = new AsyncConcurrencyLimiter(1);
+    CompletableFuture<Void> blocker = new CompletableFuture<>();
+    limiter.submit(() -> blocker);
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 100_000; i++) {
+      int value = i;
+      results.add(limiter.submit(() -> CompletableFuture.completedFuture(value)));
+    }
+
+    blocker.complete(null);
+
+    assertEquals(99_999, results.getLast().join());
+    assertEquals(0, limiter.queued());
+  }
+
+  @Test
+  void zeroConcurrency_isRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new AsyncConcurrencyLimiter(0));
+  }
+}
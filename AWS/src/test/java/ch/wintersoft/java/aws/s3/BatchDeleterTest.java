@@ -0,0 +1,127 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+
+class BatchDeleterTest {
+
+  private static final String BUCKET_NAME = "my-bucket";
+
+  @TempDir Path directory;
+  private final InMemoryS3Client s3Client = new InMemoryS3Client();
+  private final BatchDeleter batchDeleter = new BatchDeleter(s3Client, 3);
+
+  @BeforeEach
+  void createObjects() {
+    s3Client.createBucket(b -> b.bucket(BUCKET_NAME));
+    for (int i = 0; i < 2500; i++) {
+      s3Client.put(BUCKET_NAME, "logs/" + i, new byte[0]);
+    }
+    s3Client.put(BUCKET_NAME, "data/keep", new byte[0]);
+  }
+
+  @Test
+  void deletePrefix_deletesMatchingObjectsInBatches() {
+    BatchDeleteResult result = batchDeleter.deletePrefix(BUCKET_NAME, "logs/");
+
+    assertEquals(new BatchDeleteResult(2500, List.of()), result);
+    assertEquals(3, s3Client.deleteObjectsCalls.get());
+    assertEquals(List.of("data/keep"), List.copyOf(s3Client.buckets.get(BUCKET_NAME).keySet()));
+  }
+
+  @Test
+  void delete_deletesGivenKeys() {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 1001; i++) {
+      keys.add("logs/" + i);
+    }
+
+    BatchDeleteResult result = batchDeleter.delete(BUCKET_NAME, keys.iterator());
+
+    assertTrue(result.isComplete());
+    assertEquals(1001, result.deleted());
+    assertEquals(2, s3Client.deleteObjectsCalls.get());
+    assertEquals(1500, s3Client.buckets.get(BUCKET_NAME).size());
+  }
+
+  @Test
+  void refusedKeys_areReported() {
+    s3Client.failDelete = key -> key.endsWith("7");
+
+    BatchDeleteResult result = batchDeleter.deletePrefix(BUCKET_NAME, "logs/");
+
+    assertFalse(result.isComplete());
+    assertEquals(250, result.failures().size());
+    assertEquals(2250, result.deleted());
+    BatchDeleteResult.Failure failure = result.failures().getFirst();
+    assertTrue(failure.key().endsWith("7"));
+    assertEquals("AccessDenied", failure.code());
+    assertEquals(251, s3Client.buckets.get(BUCKET_NAME).size());
+  }
+
+  @Test
+  void transientBatchFailure_isRetried() {
+    s3Client.failDeleteObjects = call -> call == 2;
+
+    BatchDeleteResult result = batchDeleter.deletePrefix(BUCKET_NAME, "logs/");
+
+    assertEquals(new BatchDeleteResult(2500, List.of()), result);
+    assertEquals(4, s3Client.deleteObjectsCalls.get());
+  }
+
+  @Test
+  void persistentBatchFailure_reportsKeysOfBatch() {
+    BatchDeleter sequential = new BatchDeleter(s3Client, 1);
+    s3Client.failDeleteObjects = call -> call >= 2 && call <= 1 + BatchDeleter.MAX_ATTEMPTS;
+
+    BatchDeleteResult result = sequential.deletePrefix(BUCKET_NAME, "logs/");
+
+    assertEquals(1500, result.deleted());
+    assertEquals(1000, result.failures().size());
+    assertEquals("Connection reset", result.failures().getFirst().message());
+    assertEquals(1001, s3Client.buckets.get(BUCKET_NAME).size());
+  }
+
+  @Test
+  void missingBucket_isThrown() {
+    s3Client.deleteBucket(b -> b.bucket(BUCKET_NAME));
+
+    assertThrows(
+        NoSuchBucketException.class,
+        () -> batchDeleter.delete(BUCKET_NAME, List.of("logs/1", "logs/2").iterator()));
+  }
+
+  @Test
+  void deletingObjectsFromMissingBucket_deletesNothingAndInvalidatesCache() throws IOException {
+    AWSS3Bucket awss3Bucket = new AWSS3Bucket(s3Client);
+    awss3Bucket.createBucket(BUCKET_NAME);
+    // deleted behind the back of awss3Bucket, its cache still knows the bucket
+    s3Client.deleteBucket(b -> b.bucket(BUCKET_NAME));
+
+    assertEquals(
+        new BatchDeleteResult(0, List.of()),
+        awss3Bucket.deleteObjects(BUCKET_NAME, List.of("logs/1", "logs/2")));
+
+    int headBucketCalls = s3Client.headBucketCalls.get();
+    awss3Bucket.uploadObject(
+        BUCKET_NAME, Files.writeString(directory.resolve("f"), "x").toString());
+    assertTrue(s3Client.headBucketCalls.get() > headBucketCalls);
+  }
+
+  @Test
+  void zeroParallelism_isRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new BatchDeleter(s3Client, 0));
+  }
+}
@@ -0,0 +1,89 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BucketExistenceCacheTest {
+
+  private static final String BUCKET_NAME = "my-bucket";
+
+  @TempDir Path directory;
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final BucketExistenceCache cache =
+      new BucketExistenceCache(Duration.ofSeconds(10), nanoTime::get);
+
+  @Test
+  void addedBucket_isKnownUntilTtlExpires() {
+    assertFalse(cache.isKnown(BUCKET_NAME));
+    cache.add(BUCKET_NAME);
+    nanoTime.addAndGet(Duration.ofSeconds(9).toNanos());
+    assertTrue(cache.isKnown(BUCKET_NAME));
+    nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertFalse(cache.isKnown(BUCKET_NAME));
+  }
+
+  @Test
+  void invalidatedBucket_isNotKnown() {
+    cache.add(BUCKET_NAME);
+    cache.invalidate(BUCKET_NAME);
+    assertFalse(cache.isKnown(BUCKET_NAME));
+  }
+
+  @Test
+  void zeroTtl_disablesCache() {
+    BucketExistenceCache disabled = new BucketExistenceCache(Duration.ZERO, nanoTime::get);
+    disabled.add(BUCKET_NAME);
+    assertFalse(disabled.isKnown(BUCKET_NAME));
+  }
+
+  @Test
+  void negativeTtl_isRejected() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new BucketExistenceCache(Duration.ofSeconds(-1)));
+  }
+
+  @Test
+  void steadyStateUploads_makeOneRequestEach() throws IOException {
+    InMemoryS3Client s3Client = new InMemoryS3Client();
+    AWSS3Bucket awss3Bucket = new AWSS3Bucket(s3Client);
+    awss3Bucket.createBucket(BUCKET_NAME);
+    int headBucketCalls = s3Client.headBucketCalls.get();
+
+    for (int i = 0; i < 10; i++) {
+      awss3Bucket.uploadObject(BUCKET_NAME, file("file" + i).toString());
+    }
+
+    assertEquals(headBucketCalls, s3Client.headBucketCalls.get());
+    assertEquals(10, s3Client.putObjectCalls.get());
+  }
+
+  @Test
+  void deletedBucket_isRecreatedOnUpload() throws IOException {
+    InMemoryS3Client s3Client = new InMemoryS3Client();
+    AWSS3Bucket awss3Bucket = new AWSS3Bucket(s3Client);
+    awss3Bucket.uploadObject(BUCKET_NAME, file("first").toString());
+    // deleted behind the back of awss3Bucket, its cache still knows the bucket
+    s3Client.deleteBucket(b -> b.bucket(BUCKET_NAME));
+
+    String second = file("second").toString();
+    awss3Bucket.uploadObject(BUCKET_NAME, second);
+
+    assertArrayEquals("second".getBytes(StandardCharsets.UTF_8), s3Client.get(BUCKET_NAME, second));
+  }
+
+  private Path file(String content) throws IOException {
+    return Files.writeString(directory.resolve(content), content);
+  }
+}
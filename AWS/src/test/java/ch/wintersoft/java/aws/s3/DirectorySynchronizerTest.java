@@ -0,0 +1,125 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DirectorySynchronizerTest {
+
+  private static final String BUCKET_NAME = "my-bucket";
+  private static final long MIB = 1024 * 1024;
+
+  @TempDir Path directory;
+  private final InMemoryS3Client s3Client = new InMemoryS3Client();
+  private final MultipartUploadConfig config = new MultipartUploadConfig(5 * MIB, 5 * MIB, 2, 1);
+  private final AWSS3Bucket awss3Bucket = new AWSS3Bucket(s3Client, config);
+
+  @BeforeEach
+  void createFiles() throws IOException {
+    Files.writeString(directory.resolve("a.txt"), "alpha");
+    Files.createDirectories(directory.resolve("sub/dir"));
+    Files.writeString(directory.resolve("sub/dir/b.txt"), "bravo");
+    Files.write(directory.resolve("large.bin"), content(11 * MIB));
+  }
+
+  @Test
+  void firstSync_uploadsAllFiles() {
+    SyncResult result = awss3Bucket.syncDirectory(BUCKET_NAME, directory, "backup/");
+
+    assertEquals(new SyncResult(3, 0, 10 + 11 * MIB), result);
+    assertArrayEquals(
+        "bravo".getBytes(StandardCharsets.UTF_8),
+        s3Client.get(BUCKET_NAME, "backup/sub/dir/b.txt"));
+    assertEquals(2, s3Client.putObjectCalls.get());
+    assertEquals(3, s3Client.uploadPartCalls.get());
+  }
+
+  @Test
+  void secondSync_skipsUnchangedFiles() {
+    awss3Bucket.syncDirectory(BUCKET_NAME, directory, "");
+    int putObjectCalls = s3Client.putObjectCalls.get();
+    int uploadPartCalls = s3Client.uploadPartCalls.get();
+
+    SyncResult result = awss3Bucket.syncDirectory(BUCKET_NAME, directory, "");
+
+    assertEquals(new SyncResult(0, 3, 0), result);
+    assertEquals(putObjectCalls, s3Client.putObjectCalls.get());
+    assertEquals(uploadPartCalls, s3Client.uploadPartCalls.get());
+  }
+
+  @Test
+  void changedContentOfSameSize_isUploaded() throws IOException {
+    awss3Bucket.syncDirectory(BUCKET_NAME, directory, "");
+    Files.writeString(directory.resolve("a.txt"), "ALPHA");
+    byte[] large = content(11 * MIB);
+    large[7 * (int) MIB] ^= 1;
+    Files.write(directory.resolve("large.bin"), large);
+
+    SyncResult result = awss3Bucket.syncDirectory(BUCKET_NAME, directory, "");
+
+    assertEquals(new SyncResult(2, 1, 5 + 11 * MIB), result);
+    assertArrayEquals("ALPHA".getBytes(StandardCharsets.UTF_8), s3Client.get(BUCKET_NAME, "a.txt"));
+    assertArrayEquals(large, s3Client.get(BUCKET_NAME, "large.bin"));
+  }
+
+  @Test
+  void objectUploadedWithOtherPartSize_isUploadedAgain() {
+    new AWSS3Bucket(s3Client, new MultipartUploadConfig(5 * MIB, 6 * MIB, 2, 1))
+        .syncDirectory(BUCKET_NAME, directory, "");
+
+    SyncResult result = awss3Bucket.syncDirectory(BUCKET_NAME, directory, "");
+
+    assertEquals(new SyncResult(1, 2, 11 * MIB), result);
+  }
+
+  @Test
+  void bucketDeletedBehindCache_isRecreated() {
+    awss3Bucket.syncDirectory(BUCKET_NAME, directory, "");
+    // deleted behind the back of awss3Bucket, its cache still knows the bucket
+    s3Client.buckets.remove(BUCKET_NAME);
+
+    SyncResult result = awss3Bucket.syncDirectory(BUCKET_NAME, directory, "");
+
+    assertEquals(new SyncResult(3, 0, 10 + 11 * MIB), result);
+    assertArrayEquals("alpha".getBytes(StandardCharsets.UTF_8), s3Client.get(BUCKET_NAME, "a.txt"));
+  }
+
+  @Test
+  void failedUpload_stopsWalkAndIsThrown() throws IOException {
+    for (int i = 0; i < 100; i++) {
+      Files.writeString(directory.resolve("file" + i), "content" + i);
+    }
+    s3Client.createBucket(b -> b.bucket(BUCKET_NAME));
+    AtomicInteger uploads = new AtomicInteger();
+    DirectorySynchronizer synchronizer =
+        new DirectorySynchronizer(
+            s3Client,
+            config,
+            (bucketName, key, file) -> {
+              uploads.incrementAndGet();
+              throw new IllegalStateException("upload of " + key + " failed");
+            },
+            1);
+
+    assertThrows(IllegalStateException.class, () -> synchronizer.sync(BUCKET_NAME, directory, ""));
+    // at most the files queued before the failure was noticed
+    assertTrue(uploads.get() <= 3, "uploads " + uploads);
+  }
+
+  private static byte[] content(long size) {
+    byte[] content = new byte[(int) size];
+    new Random(42).nextBytes(content);
+    return content;
+  }
+}
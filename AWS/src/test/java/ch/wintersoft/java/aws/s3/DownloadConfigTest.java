@@ -0,0 +1,27 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class DownloadConfigTest {
+
+  @Test
+  void rangeCount_coversWholeObject() {
+    DownloadConfig config = new DownloadConfig(100, 2, 1);
+    assertEquals(0, config.rangeCount(0));
+    assertEquals(1, config.rangeCount(100));
+    assertEquals(2, config.rangeCount(101));
+  }
+
+  @Test
+  void invalidSettings_areRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new DownloadConfig(0, 1, 1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new DownloadConfig(DownloadConfig.MAX_RANGE_SIZE + 1, 1, 1));
+    assertThrows(IllegalArgumentException.class, () -> new DownloadConfig(100, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new DownloadConfig(100, 1, 0));
+  }
+}
@@ -0,0 +1,127 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+
+class ExistenceCheckerTest {
+
+  private static final String BUCKET_NAME = "my-bucket";
+
+  private final InMemoryS3Client s3Client = new InMemoryS3Client();
+  private final ExistenceChecker checker = new ExistenceChecker(s3Client, 4, 10);
+
+  @BeforeEach
+  void createObjects() {
+    s3Client.createBucket(b -> b.bucket(BUCKET_NAME));
+    for (int i = 0; i < 5000; i++) {
+      if (i % 100 != 42) {
+        s3Client.put(BUCKET_NAME, String.format("dense/%05d", i), new byte[0]);
+      }
+    }
+    s3Client.put(BUCKET_NAME, "sparse/a", new byte[0]);
+    s3Client.put(BUCKET_NAME, "b", new byte[0]);
+  }
+
+  @Test
+  void sparseKeys_areCheckedWithHead() {
+    Set<String> missing =
+        checker.findMissing(BUCKET_NAME, List.of("sparse/a", "sparse/x", "b", "c", "other/d"));
+
+    assertEquals(Set.of("sparse/x", "c", "other/d"), missing);
+    assertEquals(5, s3Client.headObjectCalls.get());
+    assertEquals(0, s3Client.listObjectsCalls.get());
+  }
+
+  @Test
+  void denseKeys_areCheckedWithList() {
+    List<String> keys = new ArrayList<>();
+    for (int i = 1000; i < 3000; i++) {
+      keys.add(String.format("dense/%05d", i));
+    }
+    keys.add("dense/99999");
+
+    NavigableSet<String> missing = checker.findMissing(BUCKET_NAME, keys);
+
+    assertEquals(21, missing.size());
+    assertEquals("dense/01042", missing.first());
+    assertEquals("dense/99999", missing.last());
+    assertEquals(0, s3Client.headObjectCalls.get());
+    assertEquals(4, s3Client.listObjectsCalls.get());
+  }
+
+  @Test
+  void supplementaryCharacters_areListedInUtf8Order() {
+    // U+1F600 sorts after U+E000 and U+FF01 in UTF-8, but before them in UTF-16
+    List<String> keys = new ArrayList<>();
+    keys.add("uni/0\uD83D\uDE00");
+    for (int i = 1; i < 5; i++) {
+      for (String suffix : List.of("\uE000", "\uFF01", "\uD83D\uDE00")) {
+        keys.add("uni/" + i + suffix);
+      }
+    }
+    keys.forEach(key -> s3Client.put(BUCKET_NAME, key, new byte[0]));
+    keys.add("uni/3\uD83D\uDE01");
+    keys.add("uni/5\uD83D\uDE00");
+
+    NavigableSet<String> missing = checker.findMissing(BUCKET_NAME, keys);
+
+    assertEquals(List.of("uni/3\uD83D\uDE01", "uni/5\uD83D\uDE00"), List.copyOf(missing));
+    assertEquals(0, s3Client.headObjectCalls.get());
+    assertEquals(1, s3Client.listObjectsCalls.get());
+  }
+
+  @Test
+  void keyOrder_comparesCodePoints() {
+    assertTrue(ExistenceChecker.KEY_ORDER.compare("\uFF01", "\uD83D\uDE00") < 0);
+    assertTrue(ExistenceChecker.KEY_ORDER.compare("a\uD83D\uDE00", "a\uD83D\uDE00b") < 0);
+    assertEquals(0, ExistenceChecker.KEY_ORDER.compare("a\uD83D\uDE00", "a\uD83D\uDE00"));
+  }
+
+  @Test
+  void listingStopsAfterLastKey() {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      keys.add(String.format("dense/%05d", i));
+    }
+
+    assertEquals(Set.of(), checker.findMissing(BUCKET_NAME, keys));
+    assertEquals(1, s3Client.listObjectsCalls.get());
+  }
+
+  @Test
+  void scatteredKeys_fallBackToHead() {
+    List<String> keys = new ArrayList<>(List.of("dense/00000", "dense/04942"));
+    for (int i = 4990; i < 4999; i++) {
+      keys.add(String.format("dense/%05d", i));
+    }
+
+    Set<String> missing = checker.findMissing(BUCKET_NAME, keys);
+
+    assertEquals(Set.of("dense/04942"), missing);
+    // the second page resolves no key, so the remaining ten are cheaper with HEAD
+    assertEquals(2, s3Client.listObjectsCalls.get());
+    assertEquals(10, s3Client.headObjectCalls.get());
+  }
+
+  @Test
+  void missingBucket_isReported() {
+    assertThrows(
+        NoSuchBucketException.class, () -> checker.findMissing("other-bucket", List.of("a")));
+  }
+
+  @Test
+  void missingBucket_reportsAllKeysMissing() {
+    AWSS3Bucket awss3Bucket = new AWSS3Bucket(s3Client);
+    assertEquals(
+        Set.of("a", "b/c"), awss3Bucket.findMissingObjects("other-bucket", List.of("b/c", "a")));
+  }
+}
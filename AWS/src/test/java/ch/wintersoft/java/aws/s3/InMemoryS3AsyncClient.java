@@ -0,0 +1,125 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.CreateBucketResponse;
+import software.amazon.awssdk.services.s3.model.DeleteBucketRequest;
+import software.amazon.awssdk.services.s3.model.DeleteBucketResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadBucketResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.waiters.S3AsyncWaiter;
+
+/**
+ * Asynchronous view of an {@link InMemoryS3Client}. Every request completes on another thread after
+ * a short latency, and the highest number of requests in flight at once is recorded.
+ */
+class InMemoryS3AsyncClient implements S3AsyncClient {
+  final InMemoryS3Client s3Client;
+  final AtomicInteger maxInFlight = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Executor executor;
+
+  InMemoryS3AsyncClient(InMemoryS3Client s3Client, long latencyMillis) {
+    this.s3Client = s3Client;
+    this.executor = CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public CompletableFuture<HeadBucketResponse> headBucket(HeadBucketRequest request) {
+    return call(() -> s3Client.headBucket(request));
+  }
+
+  @Override
+  public CompletableFuture<HeadObjectResponse> headObject(HeadObjectRequest request) {
+    return call(() -> s3Client.headObject(request));
+  }
+
+  @Override
+  public CompletableFuture<CreateBucketResponse> createBucket(CreateBucketRequest request) {
+    return call(() -> s3Client.createBucket(request));
+  }
+
+  @Override
+  public CompletableFuture<DeleteBucketResponse> deleteBucket(DeleteBucketRequest request) {
+    return call(() -> s3Client.deleteBucket(request));
+  }
+
+  @Override
+  public CompletableFuture<DeleteObjectResponse> deleteObject(DeleteObjectRequest request) {
+    return call(() -> s3Client.deleteObject(request));
+  }
+
+  @Override
+  public CompletableFuture<PutObjectResponse> putObject(
+      PutObjectRequest request, AsyncRequestBody requestBody) {
+    return read(requestBody)
+        .thenCompose(data -> call(() -> s3Client.putObject(request, RequestBody.fromBytes(data))));
+  }
+
+  @Override
+  public S3AsyncWaiter waiter() {
+    return S3AsyncWaiter.builder().client(this).build();
+  }
+
+  private <T> CompletableFuture<T> call(Supplier<T> request) {
+    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    return CompletableFuture.supplyAsync(request, executor)
+        .whenComplete((response, failure) -> inFlight.decrementAndGet());
+  }
+
+  private static CompletableFuture<byte[]> read(AsyncRequestBody requestBody) {
+    CompletableFuture<byte[]> data = new CompletableFuture<>();
+    requestBody.subscribe(
+        new Subscriber<ByteBuffer>() {
+          private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+          @Override
+          public void onSubscribe(Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+          }
+
+          @Override
+          public void onNext(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.writeBytes(bytes);
+          }
+
+          @Override
+          public void onError(Throwable failure) {
+            data.completeExceptionally(failure);
+          }
+
+          @Override
+          public void onComplete() {
+            data.complete(out.toByteArray());
+          }
+        });
+    return data;
+  }
+
+  @Override
+  public String serviceName() {
+    return "s3";
+  }
+
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,372 @@
+package ch.wintersoft.java.aws.s3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.CreateBucketResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteBucketRequest;
+import software.amazon.awssdk.services.s3.model.DeleteBucketResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.DeletedObject;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadBucketResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.waiters.S3Waiter;
+
+/**
+ * A minimal in-memory stand-in for S3, implementing only the operations used by the classes under
+ * test. Unlike the LocalStack tests it needs no Docker and allows injecting failures.
+ */
+class InMemoryS3Client implements S3Client {
+  /** Objects per bucket and key. */
+  /** S3 lists keys in the binary order of their UTF-8 bytes. */
+  private static final Comparator<String> S3_KEY_ORDER =
+      (a, b) ->
+          Arrays.compareUnsigned(
+              a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+
+  final Map<String, SortedMap<String, byte[]>> buckets = new ConcurrentHashMap<>();
+
+  /** ETags of objects completed by a multipart upload, per bucket and key. */
+  final Map<String, String> multipartETags = new ConcurrentHashMap<>();
+
+  /** Parts per open multipart upload id. */
+  final Map<String, SortedMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+  final AtomicInteger headBucketCalls = new AtomicInteger();
+  final AtomicInteger putObjectCalls = new AtomicInteger();
+  final AtomicInteger uploadPartCalls = new AtomicInteger();
+  final AtomicInteger deleteObjectsCalls = new AtomicInteger();
+  final AtomicInteger getObjectCalls = new AtomicInteger();
+  final AtomicInteger headObjectCalls = new AtomicInteger();
+  final AtomicInteger listObjectsCalls = new AtomicInteger();
+  final AtomicInteger abortedUploads = new AtomicInteger();
+
+  /** Returns {@code true} for a call number of {@code uploadPart} that should fail with a 503. */
+  volatile IntPredicate failUploadPart = call -> false;
+
+  /** Returns {@code true} for a call number of {@code getObject} that should fail with a 503. */
+  volatile IntPredicate failGetObject = call -> false;
+
+  /**
+   * Returns {@code true} for a call number of {@code deleteObjects} that should fail to connect.
+   */
+  volatile IntPredicate failDeleteObjects = call -> false;
+
+  /** Returns {@code true} for a key that {@code deleteObjects} refuses to delete. */
+  volatile Predicate<String> failDelete = key -> false;
+
+  @Override
+  public HeadBucketResponse headBucket(HeadBucketRequest request) {
+    headBucketCalls.incrementAndGet();
+    bucket(request.bucket());
+    return (HeadBucketResponse)
+        HeadBucketResponse.builder()
+            .sdkHttpResponse(SdkHttpResponse.builder().statusCode(200).build())
+            .build();
+  }
+
+  @Override
+  public CreateBucketResponse createBucket(CreateBucketRequest request) {
+    buckets.putIfAbsent(request.bucket(), new ConcurrentSkipListMap<>(S3_KEY_ORDER));
+    return CreateBucketResponse.builder().build();
+  }
+
+  @Override
+  public DeleteBucketResponse deleteBucket(DeleteBucketRequest request) {
+    if (buckets.remove(request.bucket()) == null) {
+      throw NoSuchBucketException.builder().statusCode(404).message(request.bucket()).build();
+    }
+    return DeleteBucketResponse.builder().build();
+  }
+
+  @Override
+  public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+    putObjectCalls.incrementAndGet();
+    byte[] data = read(requestBody);
+    bucket(request.bucket());
+    put(request.bucket(), request.key(), data);
+    return PutObjectResponse.builder().eTag(eTag(data)).build();
+  }
+
+  @Override
+  public HeadObjectResponse headObject(HeadObjectRequest request) {
+    headObjectCalls.incrementAndGet();
+    byte[] data = bucket(request.bucket()).get(request.key());
+    if (data == null) {
+      throw NoSuchKeyException.builder().statusCode(404).message(request.key()).build();
+    }
+    return (HeadObjectResponse)
+        HeadObjectResponse.builder()
+            .contentLength((long) data.length)
+            .eTag(eTag(request.bucket(), request.key(), data))
+            .sdkHttpResponse(SdkHttpResponse.builder().statusCode(200).build())
+            .build();
+  }
+
+  @Override
+  public <ReturnT> ReturnT getObject(
+      GetObjectRequest request, ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+    if (failGetObject.test(getObjectCalls.incrementAndGet())) {
+      throw (S3Exception) S3Exception.builder().statusCode(503).message("Slow Down").build();
+    }
+    byte[] data = bucket(request.bucket()).get(request.key());
+    if (data == null) {
+      throw NoSuchKeyException.builder().statusCode(404).message(request.key()).build();
+    }
+    String eTag = eTag(request.bucket(), request.key(), data);
+    if (request.ifMatch() != null && !request.ifMatch().equals(eTag)) {
+      throw (S3Exception)
+          S3Exception.builder().statusCode(412).message("PreconditionFailed").build();
+    }
+    byte[] content = data;
+    if (request.range() != null) {
+      String[] bounds = request.range().substring("bytes=".length()).split("-");
+      int start = Integer.parseInt(bounds[0]);
+      int end = Math.min(Integer.parseInt(bounds[1]) + 1, data.length);
+      content = Arrays.copyOfRange(data, start, end);
+    }
+    GetObjectResponse response =
+        GetObjectResponse.builder().contentLength((long) content.length).eTag(eTag).build();
+    try {
+      return transformer.transform(
+          response, AbortableInputStream.create(new ByteArrayInputStream(content)));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+    bucket(request.bucket()).remove(request.key());
+    return DeleteObjectResponse.builder().build();
+  }
+
+  @Override
+  public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+    listObjectsCalls.incrementAndGet();
+    SortedMap<String, byte[]> objects = bucket(request.bucket());
+    String prefix = request.prefix() == null ? "" : request.prefix();
+    String start =
+        request.continuationToken() == null ? prefix : request.continuationToken() + "\0";
+    if (request.continuationToken() == null
+        && request.startAfter() != null
+        && S3_KEY_ORDER.compare(request.startAfter(), prefix) >= 0) {
+      start = request.startAfter() + "\0";
+    }
+    int maxKeys = request.maxKeys() == null ? 1000 : request.maxKeys();
+    List<S3Object> contents = new ArrayList<>();
+    String next = null;
+    for (Map.Entry<String, byte[]> object : objects.tailMap(start).entrySet()) {
+      if (!object.getKey().startsWith(prefix)) {
+        break;
+      }
+      if (contents.size() == maxKeys) {
+        next = contents.getLast().key();
+        break;
+      }
+      contents.add(
+          S3Object.builder()
+              .key(object.getKey())
+              .size((long) object.getValue().length)
+              .eTag(eTag(request.bucket(), object.getKey(), object.getValue()))
+              .build());
+    }
+    return ListObjectsV2Response.builder()
+        .contents(contents)
+        .keyCount(contents.size())
+        .isTruncated(next != null)
+        .nextContinuationToken(next)
+        .build();
+  }
+
+  @Override
+  public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+    if (failDeleteObjects.test(deleteObjectsCalls.incrementAndGet())) {
+      throw SdkClientException.create("Connection reset");
+    }
+    if (request.delete().objects().size() > 1000) {
+      throw (S3Exception) S3Exception.builder().statusCode(400).message("MalformedXML").build();
+    }
+    SortedMap<String, byte[]> objects = bucket(request.bucket());
+    List<DeletedObject> deleted = new ArrayList<>();
+    List<S3Error> errors = new ArrayList<>();
+    for (ObjectIdentifier object : request.delete().objects()) {
+      if (failDelete.test(object.key())) {
+        errors.add(
+            S3Error.builder().key(object.key()).code("AccessDenied").message("Denied").build());
+      } else {
+        objects.remove(object.key());
+        deleted.add(DeletedObject.builder().key(object.key()).build());
+      }
+    }
+    return DeleteObjectsResponse.builder()
+        .deleted(Boolean.TRUE.equals(request.delete().quiet()) ? List.of() : deleted)
+        .errors(errors)
+        .build();
+  }
+
+  @Override
+  public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+    bucket(request.bucket());
+    String uploadId = UUID.randomUUID().toString();
+    uploads.put(uploadId, new ConcurrentSkipListMap<>());
+    return CreateMultipartUploadResponse.builder()
+        .bucket(request.bucket())
+        .key(request.key())
+        .uploadId(uploadId)
+        .build();
+  }
+
+  @Override
+  public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody requestBody) {
+    byte[] data = read(requestBody);
+    if (failUploadPart.test(uploadPartCalls.incrementAndGet())) {
+      throw (S3Exception) S3Exception.builder().statusCode(503).message("Slow Down").build();
+    }
+    SortedMap<Integer, byte[]> parts = uploads.get(request.uploadId());
+    if (parts == null) {
+      throw NoSuchUploadException.builder().statusCode(404).message(request.uploadId()).build();
+    }
+    parts.put(request.partNumber(), data);
+    return UploadPartResponse.builder().eTag(eTag(data)).build();
+  }
+
+  @Override
+  public CompleteMultipartUploadResponse completeMultipartUpload(
+      CompleteMultipartUploadRequest request) {
+    SortedMap<Integer, byte[]> parts = uploads.remove(request.uploadId());
+    if (parts == null) {
+      throw NoSuchUploadException.builder().statusCode(404).message(request.uploadId()).build();
+    }
+    ByteArrayOutputStream object = new ByteArrayOutputStream();
+    ByteArrayOutputStream partDigests = new ByteArrayOutputStream();
+    int expected = 1;
+    for (CompletedPart part : request.multipartUpload().parts()) {
+      if (part.partNumber() != expected++
+          || !eTag(parts.get(part.partNumber())).equals(part.eTag())) {
+        throw (S3Exception) S3Exception.builder().statusCode(400).message("InvalidPart").build();
+      }
+      object.writeBytes(parts.get(part.partNumber()));
+      partDigests.writeBytes(md5(parts.get(part.partNumber())));
+    }
+    put(request.bucket(), request.key(), object.toByteArray());
+    String eTag =
+        "\"" + HexFormat.of().formatHex(md5(partDigests.toByteArray())) + "-" + parts.size() + "\"";
+    multipartETags.put(request.bucket() + "/" + request.key(), eTag);
+    return CompleteMultipartUploadResponse.builder().eTag(eTag).build();
+  }
+
+  @Override
+  public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+    uploads.remove(request.uploadId());
+    abortedUploads.incrementAndGet();
+    return AbortMultipartUploadResponse.builder().build();
+  }
+
+  void put(String bucket, String key, byte[] data) {
+    multipartETags.remove(bucket + "/" + key);
+    buckets.computeIfAbsent(bucket, b -> new ConcurrentSkipListMap<>()).put(key, data);
+  }
+
+  byte[] get(String bucket, String key) {
+    return buckets.getOrDefault(bucket, new TreeMap<>()).get(key);
+  }
+
+  private SortedMap<String, byte[]> bucket(String bucket) {
+    SortedMap<String, byte[]> objects = buckets.get(bucket);
+    if (objects == null) {
+      throw NoSuchBucketException.builder().statusCode(404).message(bucket).build();
+    }
+    return objects;
+  }
+
+  private String eTag(String bucket, String key, byte[] data) {
+    return multipartETags.getOrDefault(bucket + "/" + key, eTag(data));
+  }
+
+  static String eTag(byte[] data) {
+    return "\"" + HexFormat.of().formatHex(md5(data)) + "\"";
+  }
+
+  private static byte[] md5(byte[] data) {
+    try {
+      return MessageDigest.getInstance("MD5").digest(data);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static byte[] read(RequestBody requestBody) {
+    try (InputStream in = requestBody.contentStreamProvider().newStream()) {
+      return in.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public S3Waiter waiter() {
+    return S3Waiter.builder().client(this).build();
+  }
+
+  @Override
+  public String serviceName() {
+    return "s3";
+  }
+
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,41 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MultipartUploadConfigTest {
+
+  private static final long MIB = 1024 * 1024;
+
+  @Test
+  void isMultipart_comparesWithThreshold() {
+    MultipartUploadConfig config = new MultipartUploadConfig(10 * MIB, 5 * MIB, 2, 3);
+    assertFalse(config.isMultipart(10 * MIB - 1));
+    assertTrue(config.isMultipart(10 * MIB));
+  }
+
+  @Test
+  void partSize_growsForHugeObjects() {
+    MultipartUploadConfig config = MultipartUploadConfig.defaults();
+    assertEquals(16 * MIB, config.partSize(100 * MIB));
+    assertEquals(16 * MIB, config.partSize(16 * MIB * MultipartUploadConfig.MAX_PARTS));
+    long huge = 16 * MIB * MultipartUploadConfig.MAX_PARTS + 1;
+    assertEquals(16 * MIB + 1, config.partSize(huge));
+    assertThrows(IllegalArgumentException.class, () -> config.partSize(Long.MAX_VALUE / 2));
+  }
+
+  @Test
+  void constructor_invalidValues_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> new MultipartUploadConfig(0, 5 * MIB, 1, 1));
+    assertThrows(
+        IllegalArgumentException.class, () -> new MultipartUploadConfig(MIB, 4 * MIB, 1, 1));
+    assertThrows(
+        IllegalArgumentException.class, () -> new MultipartUploadConfig(MIB, 5 * MIB, 0, 1));
+    assertThrows(
+        IllegalArgumentException.class, () -> new MultipartUploadConfig(MIB, 5 * MIB, 1, 0));
+  }
+}
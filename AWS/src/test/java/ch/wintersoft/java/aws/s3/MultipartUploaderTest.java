@@ -0,0 +1,91 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+class MultipartUploaderTest {
+
+  private static final String BUCKET_NAME = "my-bucket";
+  private static final long MIB = 1024 * 1024;
+
+  @TempDir Path directory;
+  private final InMemoryS3Client s3Client = new InMemoryS3Client();
+
+  @BeforeEach
+  void createBucket() {
+    s3Client.createBucket(b -> b.bucket(BUCKET_NAME));
+  }
+
+  @Test
+  void upload_splitsFileIntoParts() throws IOException {
+    byte[] content = content(12 * MIB + 17);
+    Path file = Files.write(directory.resolve("file"), content);
+    MultipartUploader uploader =
+        new MultipartUploader(s3Client, new MultipartUploadConfig(1, 5 * MIB, 2, 1));
+
+    String eTag = uploader.upload(BUCKET_NAME, "key", file);
+
+    assertArrayEquals(content, s3Client.get(BUCKET_NAME, "key"));
+    assertTrue(eTag.endsWith("-3\""), eTag);
+    assertEquals(3, s3Client.uploadPartCalls.get());
+    assertTrue(s3Client.uploads.isEmpty());
+  }
+
+  @Test
+  void upload_retriesFailedParts() throws IOException {
+    byte[] content = content(11 * MIB);
+    Path file = Files.write(directory.resolve("file"), content);
+    s3Client.failUploadPart = call -> call <= 2;
+    MultipartUploader uploader =
+        new MultipartUploader(s3Client, new MultipartUploadConfig(1, 5 * MIB, 3, 3));
+
+    uploader.upload(BUCKET_NAME, "key", file);
+
+    assertArrayEquals(content, s3Client.get(BUCKET_NAME, "key"));
+    assertEquals(5, s3Client.uploadPartCalls.get());
+  }
+
+  @Test
+  void upload_abortsAfterLastAttempt() throws IOException {
+    Path file = Files.write(directory.resolve("file"), content(11 * MIB));
+    s3Client.failUploadPart = call -> true;
+    MultipartUploader uploader =
+        new MultipartUploader(s3Client, new MultipartUploadConfig(1, 5 * MIB, 2, 2));
+
+    S3Exception e =
+        assertThrows(S3Exception.class, () -> uploader.upload(BUCKET_NAME, "key", file));
+
+    assertEquals(503, e.statusCode());
+    assertEquals(1, s3Client.abortedUploads.get());
+    assertTrue(s3Client.uploads.isEmpty());
+    assertEquals(null, s3Client.get(BUCKET_NAME, "key"));
+  }
+
+  @Test
+  void upload_emptyFile_usesOnePart() throws IOException {
+    Path file = Files.write(directory.resolve("file"), new byte[0]);
+    MultipartUploader uploader =
+        new MultipartUploader(s3Client, new MultipartUploadConfig(1, 5 * MIB, 2, 1));
+
+    uploader.upload(BUCKET_NAME, "key", file);
+
+    assertArrayEquals(new byte[0], s3Client.get(BUCKET_NAME, "key"));
+  }
+
+  private static byte[] content(long size) {
+    byte[] content = new byte[(int) size];
+    new Random(42).nextBytes(content);
+    return content;
+  }
+}
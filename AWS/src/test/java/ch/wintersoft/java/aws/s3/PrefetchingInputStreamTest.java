@@ -0,0 +1,105 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class PrefetchingInputStreamTest {
+
+  private final byte[] content = new byte[10_000];
+
+  PrefetchingInputStreamTest() {
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+  }
+
+  @Test
+  void read_returnsContentOfAllRanges() throws IOException {
+    try (InputStream in =
+        new PrefetchingInputStream(
+            content.length,
+            new DownloadConfig(1024, 3, 1),
+            (offset, length) -> Arrays.copyOfRange(content, (int) offset, (int) offset + length))) {
+      assertArrayEquals(content, in.readAllBytes());
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  void prefetch_staysWithinConfiguredRanges() throws Exception {
+    AtomicInteger fetched = new AtomicInteger();
+    CountDownLatch firstRanges = new CountDownLatch(3);
+    try (InputStream in =
+        new PrefetchingInputStream(
+            content.length,
+            new DownloadConfig(1000, 3, 1),
+            (offset, length) -> {
+              fetched.incrementAndGet();
+              firstRanges.countDown();
+              return new byte[length];
+            })) {
+      assertTrue(firstRanges.await(10, TimeUnit.SECONDS));
+      Thread.sleep(50);
+      assertEquals(3, fetched.get());
+
+      // taking the first range out of the queue fetches one more
+      in.readNBytes(1000);
+      Thread.sleep(50);
+      assertEquals(4, fetched.get());
+      in.readNBytes(1);
+      Thread.sleep(50);
+      assertEquals(5, fetched.get());
+    }
+  }
+
+  @Test
+  void fetchFailure_isThrownAsIOException() throws IOException {
+    IOException failure = new IOException("boom");
+    try (InputStream in =
+        new PrefetchingInputStream(
+            content.length,
+            new DownloadConfig(1024, 2, 1),
+            (offset, length) -> {
+              if (offset > 0) {
+                throw failure;
+              }
+              return new byte[length];
+            })) {
+      assertEquals(1024, in.readNBytes(1024).length);
+      assertSame(failure, assertThrows(IOException.class, in::read));
+    }
+  }
+
+  @Test
+  void closedStream_cannotBeRead() throws IOException {
+    InputStream in =
+        new PrefetchingInputStream(
+            content.length, new DownloadConfig(1024, 2, 1), (offset, length) -> new byte[length]);
+    in.close();
+    assertThrows(IOException.class, in::read);
+  }
+
+  @Test
+  void emptyObject_isAtEnd() throws IOException {
+    try (InputStream in =
+        new PrefetchingInputStream(
+            0,
+            new DownloadConfig(1024, 2, 1),
+            (offset, length) -> {
+              throw new AssertionError("nothing to fetch");
+            })) {
+      assertEquals(-1, in.read());
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package ch.wintersoft.java.aws.s3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+class RangedDownloaderTest {
+
+  private static final String BUCKET_NAME = "my-bucket";
+  private static final String KEY = "object";
+
+  @TempDir Path directory;
+  private final InMemoryS3Client s3Client = new InMemoryS3Client();
+  private final RangedDownloader downloader = new RangedDownloader(s3Client);
+  private final DownloadConfig config = new DownloadConfig(100_000, 3, 2);
+  private final byte[] content = new byte[1_000_001];
+
+  @BeforeEach
+  void createObject() {
+    new Random(42).nextBytes(content);
+    s3Client.createBucket(b -> b.bucket(BUCKET_NAME));
+    s3Client.put(BUCKET_NAME, KEY, content);
+  }
+
+  @Test
+  void download_writesAllRangesToFile() throws IOException {
+    Path target = directory.resolve("target");
+
+    assertEquals(content.length, downloader.download(BUCKET_NAME, KEY, target, config));
+
+    assertArrayEquals(content, Files.readAllBytes(target));
+    assertEquals(11, s3Client.getObjectCalls.get());
+  }
+
+  @Test
+  void download_replacesLongerFile() throws IOException {
+    Path target = Files.write(directory.resolve("target"), new byte[2_000_000]);
+
+    downloader.download(BUCKET_NAME, KEY, target, config);
+
+    assertArrayEquals(content, Files.readAllBytes(target));
+  }
+
+  @Test
+  void download_retriesFailedRanges() throws IOException {
+    s3Client.failGetObject = call -> call == 2 || call == 5;
+    Path target = directory.resolve("target");
+
+    downloader.download(BUCKET_NAME, KEY, target, config);
+
+    assertArrayEquals(content, Files.readAllBytes(target));
+    assertEquals(13, s3Client.getObjectCalls.get());
+  }
+
+  @Test
+  void failedDownload_deletesFile() {
+    s3Client.failGetObject = call -> call > 3;
+    Path target = directory.resolve("target");
+
+    S3Exception e =
+        assertThrows(
+            S3Exception.class, () -> downloader.download(BUCKET_NAME, KEY, target, config));
+
+    assertEquals(503, e.statusCode());
+    assertFalse(Files.exists(target));
+    assertFalse(Files.exists(directory.resolve("target.part")));
+  }
+
+  @Test
+  void failedDownload_keepsExistingFile() throws IOException {
+    s3Client.failGetObject = call -> call > 3;
+    Path target = Files.writeString(directory.resolve("target"), "previous");
+
+    assertThrows(S3Exception.class, () -> downloader.download(BUCKET_NAME, KEY, target, config));
+
+    assertEquals("previous", Files.readString(target));
+    assertFalse(Files.exists(directory.resolve("target.part")));
+  }
+
+  @Test
+  void unreplaceableTarget_isNotDeleted() throws IOException {
+    Path target = Files.createDirectory(directory.resolve("target"));
+    Files.writeString(target.resolve("file"), "x");
+
+    assertThrows(
+        UncheckedIOException.class, () -> downloader.download(BUCKET_NAME, KEY, target, config));
+
+    assertTrue(Files.isRegularFile(target.resolve("file")));
+    assertFalse(Files.exists(directory.resolve("target.part")));
+  }
+
+  @Test
+  void emptyObject_resultsInEmptyFile() throws IOException {
+    s3Client.put(BUCKET_NAME, KEY, new byte[0]);
+    Path target = directory.resolve("target");
+
+    assertEquals(0, downloader.download(BUCKET_NAME, KEY, target, config));
+
+    assertEquals(0, Files.size(target));
+    assertEquals(0, s3Client.getObjectCalls.get());
+  }
+
+  @Test
+  void open_streamsAllRanges() throws IOException {
+    try (InputStream in = downloader.open(BUCKET_NAME, KEY, config)) {
+      assertEquals(content[0] & 0xFF, in.read());
+      byte[] rest = in.readAllBytes();
+      assertEquals(content.length - 1, rest.length);
+      assertEquals(content[content.length - 1], rest[rest.length - 1]);
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  void replacedObject_failsStream() throws IOException {
+    try (InputStream in = downloader.open(BUCKET_NAME, KEY, new DownloadConfig(100_000, 1, 1))) {
+      in.readNBytes(150_000);
+      s3Client.put(BUCKET_NAME, KEY, new byte[content.length]);
+
+      IOException e = assertThrows(IOException.class, in::readAllBytes);
+      assertEquals(412, ((S3Exception) e.getCause()).statusCode());
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package ch.wintersoft.java.snippets.docker;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An unmodifiable, point-in-time view of the networks of a {@link MergeableDockerNetworkUsage}.
+ *
+ * <p>A snapshot does not copy the registry. It shares the revision chains of the live registry and
+ * only resolves, per lookup, the revision that was current at {@link #version()}. Creating a
+ * snapshot is therefore O(1), and later changes to the registry are not visible through an existing
+ * snapshot. A lookup walks the revisions of the network made after the snapshot was taken, so it is
+ * O(1) for a current snapshot and gets slower the longer an old snapshot is kept. While a snapshot
+ * is reachable, the registry keeps the revisions it can see.
+ */
+public final class MergeableDockerNetworkSnapshot
+    extends AbstractMap<String, MergeableDockerNetwork> {
+
+  private final Map<String, VersionedNetwork> networks;
+  private final long version;
+  private final int size;
+
+  MergeableDockerNetworkSnapshot(Map<String, VersionedNetwork> networks, long version, int size) {
+    this.networks = networks;
+    this.version = version;
+    this.size = size;
+  }
+
+  /**
+   * Returns the registry version this snapshot represents.
+   *
+   * @return The version of the last change included in this snapshot, {@code 0} if none.
+   */
+  public long version() {
+    return version;
+  }
+
+  @Override
+  public MergeableDockerNetwork get(Object name) {
+    VersionedNetwork head = networks.get(name);
+    if (head == null) {
+      return null;
+    }
+    VersionedNetwork revision = head.at(version);
+    return revision == null ? null : revision.network();
+  }
+
+  @Override
+  public boolean containsKey(Object name) {
+    return get(name) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Entry<String, MergeableDockerNetwork>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, MergeableDockerNetwork>> iterator() {
+        return new SnapshotIterator(networks.entrySet().iterator());
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /** Iterates the shared registry and skips names that did not exist at the snapshot version. */
+  private final class SnapshotIterator implements Iterator<Entry<String, MergeableDockerNetwork>> {
+    private final Iterator<Entry<String, VersionedNetwork>> delegate;
+    private Entry<String, MergeableDockerNetwork> next;
+
+    private SnapshotIterator(Iterator<Entry<String, VersionedNetwork>> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && delegate.hasNext()) {
+        Entry<String, VersionedNetwork> candidate = delegate.next();
+        VersionedNetwork revision = candidate.getValue().at(version);
+        if (revision != null) {
+          next = Map.entry(candidate.getKey(), revision.network());
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public Entry<String, MergeableDockerNetwork> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Entry<String, MergeableDockerNetwork> result = next;
+      next = null;
+      return result;
+    }
+  }
+}
@@ -0,0 +1,299 @@
+package ch.wintersoft.java.snippets.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Persists a {@link MergeableDockerNetworkUsage} in a directory so that it can be restored quickly
+ * after a restart.
+ *
+ * <p>The store keeps two files:
+ *
+ * <ul>
+ *   <li><strong>networks.snapshot</strong>: a compacted image of all networks, replaced atomically
+ *   <li><strong>networks.log</strong>: an append-only log of every network added or merged since
+ *       the last snapshot
+ * </ul>
+ *
+ * <p>Both files share the same compact binary record format: {@code [int length][int crc32][short
+ * nameLength][name][byte addressLength][address]}. On startup both files are read through
+ * memory-mapped I/O and replayed. A torn or corrupt record at the end of the log, as left behind by
+ * a crash during an append, is detected by its checksum and truncated. Once the log holds more than
+ * {@code compactionThreshold} records, a new snapshot is written and the log is reset. Records
+ * replayed from the log on startup count towards this threshold.
+ *
+ * <p>All operations synchronize on the managed {@link MergeableDockerNetworkUsage}, so log appends
+ * and compactions are always consistent with the in-memory registry. Change versions start at
+ * {@code 1} again after a restart.
+ *
+ * <p>A change is persisted after the registry has applied it. If the append fails, {@link
+ * MergeableDockerNetworkUsage#addNetwork(MergeableDockerNetwork)} throws an {@link
+ * UncheckedIOException}, but the registry keeps the network and is ahead of the files. The next
+ * change, or an explicit {@link #compact()}, then writes a full snapshot instead of appending, so
+ * the files catch up again and no record is appended behind a partially written one.
+ */
+public class MergeableDockerNetworkStore implements Closeable {
+  static final String SNAPSHOT_FILE = "networks.snapshot";
+  static final String LOG_FILE = "networks.log";
+
+  private static final int SNAPSHOT_MAGIC = 0x4D444E53; // "MDNS"
+  private static final int LOG_MAGIC = 0x4D444E4C; // "MDNL"
+  private static final int FORMAT_VERSION = 1;
+  private static final int FILE_HEADER_SIZE = 8;
+  private static final int RECORD_HEADER_SIZE = 8;
+  private static final int MAX_RECORD_SIZE = 2 + 0xFFFF + 1 + 16;
+
+  private final Path directory;
+  private final int compactionThreshold;
+  private final MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage();
+  private final Consumer<NetworkChangeEvent> listener = this::onChange;
+  private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + MAX_RECORD_SIZE);
+  private final CRC32 crc = new CRC32();
+  private FileChannel log;
+  private int logRecords;
+  private boolean appendFailed;
+
+  /**
+   * Opens or creates a store in the given directory and restores its networks.
+   *
+   * @param directory The directory holding the snapshot and log files, created if missing.
+   * @param compactionThreshold The number of log records after which a new snapshot is written.
+   * @throws IOException If the files cannot be read or written, or the snapshot is corrupt.
+   */
+  public MergeableDockerNetworkStore(Path directory, int compactionThreshold) throws IOException {
+    if (compactionThreshold < 1) {
+      throw new IllegalArgumentException("Compaction threshold must be at least 1!");
+    }
+    this.directory = directory;
+    this.compactionThreshold = compactionThreshold;
+    Files.createDirectories(directory);
+
+    Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+    if (Files.exists(snapshotFile)) {
+      long end = replay(snapshotFile, SNAPSHOT_MAGIC).end();
+      if (end != Files.size(snapshotFile)) {
+        throw new IOException("Snapshot " + snapshotFile + " is corrupt at offset " + end);
+      }
+    }
+    openLog();
+    usage.addChangeListener(listener);
+  }
+
+  /**
+   * Returns the restored registry. Every network added to it is persisted by this store.
+   *
+   * @return The managed {@link MergeableDockerNetworkUsage}.
+   */
+  public MergeableDockerNetworkUsage getUsage() {
+    return usage;
+  }
+
+  /**
+   * Writes a new snapshot of all networks and resets the log.
+   *
+   * <p>The snapshot is written to a temporary file and atomically renamed, so a crash leaves either
+   * the old or the new snapshot in place. Replaying the old log on top of the new snapshot is
+   * harmless, because every logged network merges into itself.
+   *
+   * @throws IOException If the snapshot cannot be written.
+   */
+  public void compact() throws IOException {
+    synchronized (usage) {
+      writeSnapshot();
+    }
+  }
+
+  /**
+   * Detaches the store from the registry and closes the log file.
+   *
+   * @throws IOException If the log cannot be flushed or closed.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (usage) {
+      usage.removeChangeListener(listener);
+      log.force(true);
+      log.close();
+    }
+  }
+
+  /**
+   * Replays the log into the registry, truncates a torn tail and opens the log for appending. A log
+   * that already reached the compaction threshold is compacted right away. The log is closed again
+   * if any of this fails.
+   */
+  private void openLog() throws IOException {
+    Path logFile = directory.resolve(LOG_FILE);
+    Replay replay = Files.exists(logFile) ? replay(logFile, LOG_MAGIC) : new Replay(0, 0);
+    long end = replay.end();
+    log =
+        FileChannel.open(
+            logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (end < FILE_HEADER_SIZE) {
+        log.truncate(0);
+        writeFileHeader(log, LOG_MAGIC);
+        end = FILE_HEADER_SIZE;
+      } else if (end < log.size()) {
+        log.truncate(end);
+      }
+      log.position(end);
+      logRecords = replay.records();
+      if (logRecords >= compactionThreshold) {
+        writeSnapshot();
+      }
+    } catch (IOException | RuntimeException e) {
+      try {
+        log.close();
+      } catch (IOException closeFailure) {
+        e.addSuppressed(closeFailure);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Writes all networks to a temporary snapshot file, atomically renames it over the snapshot and
+   * resets the log. The caller holds the lock on the registry or is the constructor.
+   */
+  private void writeSnapshot() throws IOException {
+    Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+    Path tempFile = directory.resolve(SNAPSHOT_FILE + ".tmp");
+    try (FileChannel out =
+        FileChannel.open(
+            tempFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      writeFileHeader(out, SNAPSHOT_MAGIC);
+      for (Map.Entry<String, MergeableDockerNetwork> entry : usage.snapshot().entrySet()) {
+        writeRecord(out, entry.getValue());
+      }
+      out.force(true);
+    }
+    Files.move(
+        tempFile,
+        snapshotFile,
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+
+    log.truncate(FILE_HEADER_SIZE);
+    log.position(FILE_HEADER_SIZE);
+    log.force(true);
+    logRecords = 0;
+    appendFailed = false;
+  }
+
+  /**
+   * Memory-maps a file and adds every valid record to the registry.
+   *
+   * @return The offset after the last valid record, or {@code 0} if the file header is invalid, and
+   *     the number of valid records.
+   */
+  private Replay replay(Path file, int magic) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < FILE_HEADER_SIZE
+          || buffer.getInt() != magic
+          || buffer.getInt() != FORMAT_VERSION) {
+        return new Replay(0, 0);
+      }
+      int records = 0;
+      while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+        int start = buffer.position();
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length < 3 || length > MAX_RECORD_SIZE || length > buffer.remaining()) {
+          return new Replay(start, records);
+        }
+        crc.reset();
+        crc.update(buffer.slice(buffer.position(), length));
+        if ((int) crc.getValue() != checksum) {
+          return new Replay(start, records);
+        }
+        usage.addNetwork(readNetwork(buffer));
+        records++;
+      }
+      return new Replay(buffer.position(), records);
+    }
+  }
+
+  /**
+   * Appends every stored network to the log and compacts once the threshold is reached. After a
+   * failed append the whole registry is compacted instead, as the log may end in a torn record.
+   */
+  private void onChange(NetworkChangeEvent event) {
+    if (event.type() == NetworkChangeType.CONFLICT) {
+      return;
+    }
+    try {
+      if (appendFailed) {
+        writeSnapshot();
+        return;
+      }
+      writeRecord(log, event.network());
+      if (++logRecords >= compactionThreshold) {
+        writeSnapshot();
+      }
+    } catch (IOException e) {
+      appendFailed = true;
+      throw new UncheckedIOException("Failed to persist network " + event.network().name(), e);
+    }
+  }
+
+  private void writeFileHeader(FileChannel channel, int magic) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+    header.putInt(magic).putInt(FORMAT_VERSION).flip();
+    writeFully(channel, header);
+  }
+
+  private void writeRecord(FileChannel channel, MergeableDockerNetwork network) throws IOException {
+    byte[] name = network.name().getBytes(StandardCharsets.UTF_8);
+    if (name.length > 0xFFFF) {
+      throw new IllegalArgumentException("Network name is too long to be persisted!");
+    }
+    byte[] address =
+        network.inetAddress() == null ? new byte[0] : network.inetAddress().getAddress();
+
+    recordBuffer.clear();
+    recordBuffer.position(RECORD_HEADER_SIZE);
+    recordBuffer.putShort((short) name.length).put(name).put((byte) address.length).put(address);
+    int length = recordBuffer.position() - RECORD_HEADER_SIZE;
+    crc.reset();
+    crc.update(recordBuffer.array(), RECORD_HEADER_SIZE, length);
+    recordBuffer.putInt(0, length).putInt(4, (int) crc.getValue()).flip();
+    writeFully(channel, recordBuffer);
+  }
+
+  private static MergeableDockerNetwork readNetwork(ByteBuffer buffer) throws IOException {
+    byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+    buffer.get(name);
+    byte[] address = new byte[buffer.get()];
+    buffer.get(address);
+    return new MergeableDockerNetwork(
+        new String(name, StandardCharsets.UTF_8),
+        address.length == 0 ? null : InetAddress.getByAddress(address));
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /** The offset after the last valid record of a replayed file and the number of records. */
+  private record Replay(long end, int records) {}
+}
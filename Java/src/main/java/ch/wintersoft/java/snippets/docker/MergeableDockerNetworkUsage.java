@@ -1,43 +1,268 @@
 package ch.wintersoft.java.snippets.docker;
 
-import java.util.HashMap;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Aggregates and manages a collection of {@link MergeableDockerNetwork} objects.
  *
  * <p>This class ensures that network data remains consolidated by automatically merging new network
  * information with existing entries sharing the same name.
+ *
+ * <p>Every change is published as a {@link NetworkChangeEvent} with a monotonic version number.
+ * Consumers can either register a listener, poll {@link #changesSince(long)} or take an O(1) {@link
+ * #snapshot()} instead of copying and diffing the whole network map.
+ *
+ * <p>History is retained only as far as it is still needed:
+ *
+ * <ul>
+ *   <li><strong>revisions</strong>: older revisions of a network are kept only while a snapshot
+ *       that can see them is still reachable. Snapshots are tracked with weak references, so a
+ *       dropped snapshot releases its revisions after the next garbage collection.
+ *   <li><strong>changes</strong>: at least the last {@code historyLimit} changes and all changes
+ *       after the version of the oldest live snapshot are kept, and at most about twice as many.
+ *       Older changes are discarded and {@link #changesSince(long)} rejects versions before them.
+ * </ul>
  */
 public class MergeableDockerNetworkUsage {
-  private final HashMap<String, MergeableDockerNetwork> networks = new HashMap<>();
+  /** The number of changes retained by the default constructor. */
+  public static final int DEFAULT_HISTORY_LIMIT = 1024;
+
+  private final Map<String, VersionedNetwork> networks = new ConcurrentHashMap<>();
+  private final List<NetworkChangeEvent> changes = new ArrayList<>();
+  private final List<Consumer<NetworkChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+  private final int historyLimit;
+  private final NavigableMap<Long, Integer> pinnedVersions = new TreeMap<>();
+  private final Set<SnapshotPin> pins = new HashSet<>();
+  private final ReferenceQueue<MergeableDockerNetworkSnapshot> releasedSnapshots =
+      new ReferenceQueue<>();
+  private long version;
+  private long discardedChanges;
+  private int mergesSincePrune;
+
+  /** Creates an empty registry retaining the last {@value #DEFAULT_HISTORY_LIMIT} changes. */
+  public MergeableDockerNetworkUsage() {
+    this(DEFAULT_HISTORY_LIMIT);
+  }
+
+  /**
+   * Creates an empty registry.
+   *
+   * @param historyLimit the number of most recent changes always kept for {@link
+   *     #changesSince(long)}.
+   * @throws IllegalArgumentException if {@code historyLimit} is negative.
+   */
+  public MergeableDockerNetworkUsage(int historyLimit) {
+    if (historyLimit < 0) {
+      throw new IllegalArgumentException("History limit must not be negative!");
+    }
+    this.historyLimit = historyLimit;
+  }
 
   /**
    * Adds a network to the network collection.
    *
    * <p>If a network with the same name already exists, the new network data is merged into the
-   * existing entry. Otherwise, a new entry is created.
+   * existing entry. Otherwise, a new entry is created. A {@link NetworkChangeType#MERGED} event is
+   * only published if the merge actually changed the stored network.
    *
    * @param mergeableDockerNetwork the network data to add or merge.
+   * @throws IllegalArgumentException if the network cannot be merged into the existing entry. A
+   *     {@link NetworkChangeType#CONFLICT} event is published before the exception is thrown.
    */
-  public void addNetwork(MergeableDockerNetwork mergeableDockerNetwork) {
-    if (networks.containsKey(mergeableDockerNetwork.name())) {
-      networks.computeIfPresent(
-          mergeableDockerNetwork.name(),
-          (k, existingMergeableDockerNetwork) ->
-              existingMergeableDockerNetwork.merge(mergeableDockerNetwork));
-    } else {
-      networks.put(mergeableDockerNetwork.name(), mergeableDockerNetwork);
+  public synchronized void addNetwork(MergeableDockerNetwork mergeableDockerNetwork) {
+    releaseSnapshots();
+    String name = mergeableDockerNetwork.name();
+    VersionedNetwork existing = networks.get(name);
+    if (existing == null) {
+      networks.put(name, new VersionedNetwork(version + 1, mergeableDockerNetwork, null));
+      publish(NetworkChangeType.ADDED, mergeableDockerNetwork, null);
+      return;
+    }
+
+    MergeableDockerNetwork merged;
+    try {
+      merged = existing.network().merge(mergeableDockerNetwork);
+    } catch (IllegalArgumentException e) {
+      publish(NetworkChangeType.CONFLICT, mergeableDockerNetwork, existing.network());
+      throw e;
+    }
+    if (!merged.equals(existing.network())) {
+      VersionedNetwork revision = new VersionedNetwork(version + 1, merged, existing);
+      networks.put(name, revision);
+      publish(NetworkChangeType.MERGED, merged, existing.network());
+      revision.prune(oldestPinnedVersion());
+      mergesSincePrune++;
     }
   }
 
   /**
    * Retrieves the current map of consolidated docker networks.
    *
-   * @return a {@link Map} where keys are network names and values are their corresponding {@link
-   *     MergeableDockerNetwork} objects.
+   * @return an unmodifiable {@link Map} where keys are network names and values are their
+   *     corresponding {@link MergeableDockerNetwork} objects, as of the time of the call.
+   * @see #snapshot()
    */
   public Map<String, MergeableDockerNetwork> getNetworks() {
-    return networks;
+    return snapshot();
+  }
+
+  /**
+   * Creates a point-in-time view of the current networks.
+   *
+   * <p>The snapshot shares its data with this registry, so creating it does not copy the map.
+   *
+   * @return a snapshot at the {@link #currentVersion() current version}.
+   */
+  public synchronized MergeableDockerNetworkSnapshot snapshot() {
+    releaseSnapshots();
+    MergeableDockerNetworkSnapshot snapshot =
+        new MergeableDockerNetworkSnapshot(networks, version, networks.size());
+    pins.add(new SnapshotPin(snapshot, releasedSnapshots));
+    pinnedVersions.merge(version, 1, Integer::sum);
+    return snapshot;
+  }
+
+  /**
+   * Returns the version of the most recent change.
+   *
+   * @return the current version, {@code 0} if nothing was added yet.
+   */
+  public synchronized long currentVersion() {
+    return version;
+  }
+
+  /**
+   * Returns all changes published after the given version, oldest first.
+   *
+   * @param sinceVersion the version of the last change the caller has already seen, {@code 0} to
+   *     get the full history.
+   * @return an immutable list of the newer changes, empty if the caller is up to date.
+   * @throws IllegalArgumentException if {@code sinceVersion} is negative.
+   * @throws IllegalStateException if changes after {@code sinceVersion} have already been
+   *     discarded; take a new {@link #snapshot()} instead.
+   */
+  public synchronized List<NetworkChangeEvent> changesSince(long sinceVersion) {
+    if (sinceVersion < 0) {
+      throw new IllegalArgumentException("Version must not be negative!");
+    }
+    if (sinceVersion >= version) {
+      return List.of();
+    }
+    if (sinceVersion < discardedChanges) {
+      throw new IllegalStateException(
+          "Changes after version " + sinceVersion + " are no longer retained!");
+    }
+    // versions are assigned without gaps, so version n is stored at index n - 1 - discardedChanges
+    return List.copyOf(changes.subList((int) (sinceVersion - discardedChanges), changes.size()));
+  }
+
+  /**
+   * Returns the number of retained revisions of a network.
+   *
+   * @param name the network name.
+   * @return the length of its revision chain, {@code 0} if the network does not exist.
+   */
+  synchronized int revisions(String name) {
+    VersionedNetwork head = networks.get(name);
+    return head == null ? 0 : head.revisions();
+  }
+
+  /**
+   * Registers a listener that is notified about every future change.
+   *
+   * <p>Listeners are invoked synchronously on the thread calling {@link
+   * #addNetwork(MergeableDockerNetwork)} and should therefore return quickly.
+   *
+   * @param listener the listener to register.
+   */
+  public void addChangeListener(Consumer<NetworkChangeEvent> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a previously registered listener.
+   *
+   * @param listener the listener to remove.
+   */
+  public void removeChangeListener(Consumer<NetworkChangeEvent> listener) {
+    listeners.remove(listener);
+  }
+
+  /** Assigns the next version to a change, records it and notifies all listeners. */
+  private void publish(
+      NetworkChangeType type, MergeableDockerNetwork network, MergeableDockerNetwork previous) {
+    NetworkChangeEvent event = new NetworkChangeEvent(++version, type, network, previous);
+    changes.add(event);
+    discardChanges();
+    for (Consumer<NetworkChangeEvent> listener : listeners) {
+      listener.accept(event);
+    }
+  }
+
+  /** Returns the oldest version a live snapshot can resolve, or the current version. */
+  private long oldestPinnedVersion() {
+    return pinnedVersions.isEmpty() ? version : Math.min(version, pinnedVersions.firstKey());
+  }
+
+  /**
+   * Forgets snapshots that were garbage collected. Once the oldest pinned version moved and about
+   * as many merges as there are networks happened since the last sweep, all revision chains are
+   * pruned, which keeps the sweep amortized O(1) per merge.
+   */
+  private void releaseSnapshots() {
+    boolean released = false;
+    for (Reference<?> reference; (reference = releasedSnapshots.poll()) != null; ) {
+      SnapshotPin pin = (SnapshotPin) reference;
+      pins.remove(pin);
+      pinnedVersions.computeIfPresent(pin.version, (v, count) -> count == 1 ? null : count - 1);
+      released = true;
+    }
+    if (released && mergesSincePrune >= networks.size()) {
+      long oldest = oldestPinnedVersion();
+      for (VersionedNetwork head : networks.values()) {
+        head.prune(oldest);
+      }
+      mergesSincePrune = 0;
+    }
+    if (released) {
+      discardChanges();
+    }
+  }
+
+  /**
+   * Discards changes nobody can ask for anymore. Changes are removed in bulk once at least half of
+   * the list is obsolete, so discarding is amortized O(1) per change.
+   */
+  private void discardChanges() {
+    long keepAfter = Math.min(oldestPinnedVersion(), version - historyLimit);
+    long obsolete = keepAfter - discardedChanges;
+    if (obsolete > 0 && obsolete * 2 >= changes.size()) {
+      changes.subList(0, (int) obsolete).clear();
+      discardedChanges = keepAfter;
+    }
+  }
+
+  /** Keeps the version of a snapshot pinned until the snapshot is garbage collected. */
+  private static final class SnapshotPin extends WeakReference<MergeableDockerNetworkSnapshot> {
+    private final long version;
+
+    private SnapshotPin(
+        MergeableDockerNetworkSnapshot snapshot,
+        ReferenceQueue<MergeableDockerNetworkSnapshot> queue) {
+      super(snapshot, queue);
+      this.version = snapshot.version();
+    }
   }
 }
@@ -0,0 +1,22 @@
+package ch.wintersoft.java.snippets.docker;
+
+/**
+ * An immutable change notification published by {@link MergeableDockerNetworkUsage}.
+ *
+ * <p>Every event carries a strictly increasing version number, starting at {@code 1} for the first
+ * change of a registry. Consumers can remember the version of the last event they processed and
+ * later ask for {@link MergeableDockerNetworkUsage#changesSince(long) all changes since} that
+ * version instead of diffing the whole network map.
+ *
+ * @param version The monotonic version assigned to this change.
+ * @param type The kind of change, see {@link NetworkChangeType}.
+ * @param network The network as stored after the change, or the rejected network for a {@link
+ *     NetworkChangeType#CONFLICT}.
+ * @param previous The network stored before the change, or {@code null} for {@link
+ *     NetworkChangeType#ADDED}.
+ */
+public record NetworkChangeEvent(
+    long version,
+    NetworkChangeType type,
+    MergeableDockerNetwork network,
+    MergeableDockerNetwork previous) {}
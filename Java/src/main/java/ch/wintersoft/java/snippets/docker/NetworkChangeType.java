@@ -0,0 +1,14 @@
+package ch.wintersoft.java.snippets.docker;
+
+/**
+ * Describes what happened to the network registry of a {@link MergeableDockerNetworkUsage} when a
+ * {@link NetworkChangeEvent} was published.
+ */
+public enum NetworkChangeType {
+  /** A network with a previously unknown name was added. */
+  ADDED,
+  /** An existing network was replaced by the result of merging it with new network data. */
+  MERGED,
+  /** New network data could not be merged into an existing network and was rejected. */
+  CONFLICT
+}
@@ -0,0 +1,78 @@
+package ch.wintersoft.java.snippets.docker;
+
+/**
+ * A single revision of a network inside a {@link MergeableDockerNetworkUsage}.
+ *
+ * <p>Revisions of the same network name form a chain, newest first. Snapshots share these chains
+ * with the live registry and resolve the revision that was current at their version, so taking a
+ * snapshot never copies the map. The registry {@link #prune(long) cuts} a chain below the oldest
+ * version a live snapshot can still ask for; everything else about a revision is immutable.
+ */
+final class VersionedNetwork {
+  private final long version;
+  private final MergeableDockerNetwork network;
+  private volatile VersionedNetwork previous;
+
+  /**
+   * Creates a revision.
+   *
+   * @param version The registry version at which this revision became current.
+   * @param network The network data of this revision.
+   * @param previous The revision this one replaced, or {@code null} if it is the first one.
+   */
+  VersionedNetwork(long version, MergeableDockerNetwork network, VersionedNetwork previous) {
+    this.version = version;
+    this.network = network;
+    this.previous = previous;
+  }
+
+  long version() {
+    return version;
+  }
+
+  MergeableDockerNetwork network() {
+    return network;
+  }
+
+  /**
+   * Finds the revision that was current at the given registry version.
+   *
+   * <p>This walks the chain, so it costs one step per revision newer than {@code atVersion}.
+   *
+   * @param atVersion The registry version to resolve.
+   * @return The matching revision, or {@code null} if the network did not exist yet.
+   */
+  VersionedNetwork at(long atVersion) {
+    VersionedNetwork revision = this;
+    while (revision != null && revision.version > atVersion) {
+      revision = revision.previous;
+    }
+    return revision;
+  }
+
+  /**
+   * Drops all revisions older than the one current at {@code oldestVersion}. Lookups at {@code
+   * oldestVersion} or later never walk past that revision, so they are not affected.
+   *
+   * @param oldestVersion The oldest registry version that must stay resolvable.
+   */
+  void prune(long oldestVersion) {
+    VersionedNetwork oldest = at(oldestVersion);
+    if (oldest != null) {
+      oldest.previous = null;
+    }
+  }
+
+  /**
+   * Counts the revisions of this chain.
+   *
+   * @return The number of retained revisions, at least {@code 1}.
+   */
+  int revisions() {
+    int revisions = 0;
+    for (VersionedNetwork revision = this; revision != null; revision = revision.previous) {
+      revisions++;
+    }
+    return revisions;
+  }
+}
@@ -0,0 +1,52 @@
+package ch.wintersoft.java.snippets.jbbp.codec;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
+import com.igormaznitsa.jbbp.io.JBBPByteOrder;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+import java.io.IOException;
+
+/**
+ * Reads one custom JBBP field type, e.g. a MAC address or a UUID.
+ *
+ * <p>Codecs are stateless and registered under a type name in a {@link FieldCodecRegistry}, so the
+ * same codec instance can be shared by the parsers of many device protocols.
+ *
+ * @see FieldCodecs
+ * @see FieldCodecProcessor
+ */
+@FunctionalInterface
+public interface FieldCodec {
+
+  /**
+   * Reads the field from the stream.
+   *
+   * @param in The input stream from which bytes are read.
+   * @param byteOrder The byte order declared for the field, {@code <} for little-endian.
+   * @param fieldName The name information of the field, {@code null} for anonymous fields.
+   * @param extraData The numeric value after {@code :} in the field type, {@code 0} if missing.
+   * @param arrayLength The declared array length, or {@code -1} if the field is not an array.
+   * @return The parsed field.
+   * @throws IOException If reading from the stream fails.
+   */
+  JBBPAbstractField read(
+      JBBPBitInputStream in,
+      JBBPByteOrder byteOrder,
+      JBBPNamedFieldInfo fieldName,
+      int extraData,
+      int arrayLength)
+      throws IOException;
+
+  /**
+   * Checks whether a field declaration is valid for this codec. It is called once when a parser is
+   * compiled, and a {@code false} result fails the compilation.
+   *
+   * @param extraData The numeric value after {@code :} in the field type, {@code 0} if missing and
+   *     {@code -1} if it is an expression.
+   * @param isArray Whether the field is declared as array.
+   * @return {@code true} if the declaration is valid, which is the default.
+   */
+  default boolean isAllowed(int extraData, boolean isArray) {
+    return true;
+  }
+}
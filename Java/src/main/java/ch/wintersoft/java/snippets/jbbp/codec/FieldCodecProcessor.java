@@ -0,0 +1,70 @@
+package ch.wintersoft.java.snippets.jbbp.codec;
+
+import com.igormaznitsa.jbbp.JBBPCustomFieldTypeProcessor;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.compiler.tokenizer.JBBPFieldTypeParameterContainer;
+import com.igormaznitsa.jbbp.io.JBBPArraySizeLimiter;
+import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
+import com.igormaznitsa.jbbp.io.JBBPBitOrder;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+import java.io.IOException;
+
+/**
+ * A {@link JBBPCustomFieldTypeProcessor} reading custom types with the codecs of a {@link
+ * FieldCodecRegistry}.
+ *
+ * <p>Every custom field is validated against its codec once while the parser is compiled, as the
+ * JBBP compiler passes each field declaration to {@link #isAllowed}. JBBP offers no way to attach
+ * the codec to the compiled field, so reading a field still looks the codec up by its type name.
+ * That is a single hash lookup in the immutable map of the registry, which keeps no per-parser
+ * state, instead of a String {@code switch} over all type names.
+ *
+ * <p>Instances are thread-safe and may be shared by several parsers.
+ */
+public class FieldCodecProcessor implements JBBPCustomFieldTypeProcessor {
+  private final FieldCodecRegistry registry;
+  private final String[] types;
+
+  /**
+   * Creates a processor for the codecs of a registry.
+   *
+   * @param registry The registry providing the codecs.
+   */
+  public FieldCodecProcessor(FieldCodecRegistry registry) {
+    this.registry = registry;
+    this.types = registry.types();
+  }
+
+  @Override
+  public String[] getCustomFieldTypes() {
+    return types;
+  }
+
+  @Override
+  public boolean isAllowed(
+      JBBPFieldTypeParameterContainer fieldType, String fieldName, int extraData, boolean isArray) {
+    FieldCodec codec = registry.codec(fieldType.getTypeName());
+    return codec != null && codec.isAllowed(extraData, isArray);
+  }
+
+  @Override
+  public JBBPAbstractField readCustomFieldType(
+      JBBPBitInputStream in,
+      JBBPBitOrder bitOrder,
+      int parserFlags,
+      JBBPFieldTypeParameterContainer customTypeFieldInfo,
+      JBBPNamedFieldInfo fieldName,
+      int extraData,
+      boolean readWholeStream,
+      int arrayLength,
+      JBBPArraySizeLimiter arraySizeLimiter)
+      throws IOException {
+    FieldCodec codec = registry.codec(customTypeFieldInfo.getTypeName());
+    if (codec == null) {
+      // the field was compiled by another processor, e.g. a deserialized compiled block
+      throw new UnsupportedOperationException(
+          "No field type with name " + customTypeFieldInfo.getTypeName() + " is defined!");
+    }
+    return codec.read(in, customTypeFieldInfo.getByteOrder(), fieldName, extraData, arrayLength);
+  }
+}
@@ -0,0 +1,102 @@
+package ch.wintersoft.java.snippets.jbbp.codec;
+
+import com.igormaznitsa.jbbp.JBBPParser;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable set of {@link FieldCodec}s, each registered under a custom JBBP type name.
+ *
+ * <p>Registries are cheap to derive from each other, so parsers of different device families can
+ * start from {@link #standard()} and add their own types:
+ *
+ * <pre>{@code
+ * FieldCodecRegistry registry = FieldCodecRegistry.standard().with("fw", firmwareCodec);
+ * JBBPParser parser = registry.prepare("mac macAddress; uuid id; fw firmware;");
+ * }</pre>
+ *
+ * @see FieldCodecProcessor
+ */
+public final class FieldCodecRegistry {
+  private static final FieldCodecRegistry EMPTY = new FieldCodecRegistry(Map.of());
+  private static final FieldCodecRegistry STANDARD =
+      EMPTY
+          .with("mac", FieldCodecs.MAC)
+          .with("ipv4", FieldCodecs.IPV4)
+          .with("ipv6", FieldCodecs.IPV6)
+          .with("hex", FieldCodecs.HEX)
+          .with("bcd", FieldCodecs.BCD)
+          .with("uuid", FieldCodecs.UUID)
+          .with("timestamp", FieldCodecs.TIMESTAMP);
+
+  private final Map<String, FieldCodec> codecs;
+
+  private FieldCodecRegistry(Map<String, FieldCodec> codecs) {
+    this.codecs = codecs;
+  }
+
+  /**
+   * Returns a registry without any codec.
+   *
+   * @return The empty registry.
+   */
+  public static FieldCodecRegistry empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns a registry with the codecs of {@link FieldCodecs} under the type names {@code mac},
+   * {@code ipv4}, {@code ipv6}, {@code hex}, {@code bcd}, {@code uuid} and {@code timestamp}.
+   *
+   * @return The standard registry.
+   */
+  public static FieldCodecRegistry standard() {
+    return STANDARD;
+  }
+
+  /**
+   * Returns a registry containing all codecs of this one plus the given codec.
+   *
+   * @param type The custom type name used in JBBP scripts, in lower case.
+   * @param codec The codec reading the type, replacing a codec with the same name.
+   * @return The new registry.
+   * @throws IllegalArgumentException If the type name is empty or not in lower case.
+   */
+  public FieldCodecRegistry with(String type, FieldCodec codec) {
+    if (type.isEmpty() || !type.equals(type.toLowerCase())) {
+      throw new IllegalArgumentException("Custom type names must be non-empty and lower case!");
+    }
+    Map<String, FieldCodec> copy = new LinkedHashMap<>(codecs);
+    copy.put(type, codec);
+    return new FieldCodecRegistry(copy);
+  }
+
+  /**
+   * Returns the codec registered for a type name.
+   *
+   * @param type The custom type name.
+   * @return The codec, or {@code null} if none is registered.
+   */
+  public FieldCodec codec(String type) {
+    return codecs.get(type);
+  }
+
+  /**
+   * Returns the registered type names.
+   *
+   * @return The type names in registration order.
+   */
+  public String[] types() {
+    return codecs.keySet().toArray(new String[0]);
+  }
+
+  /**
+   * Compiles a JBBP script whose custom types are read by this registry.
+   *
+   * @param script The JBBP script.
+   * @return The prepared parser.
+   */
+  public JBBPParser prepare(String script) {
+    return JBBPParser.prepare(script, new FieldCodecProcessor(this));
+  }
+}
@@ -0,0 +1,144 @@
+package ch.wintersoft.java.snippets.jbbp.codec;
+
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
+import com.igormaznitsa.jbbp.io.JBBPByteOrder;
+import com.igormaznitsa.jbbp.model.JBBPAbstractField;
+import com.igormaznitsa.jbbp.model.JBBPFieldInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldString;
+import java.io.IOException;
+
+/**
+ * Reusable {@link FieldCodec}s for field types common to many device protocols.
+ *
+ * <p>All codecs honor the declared byte order: a little-endian field ({@code <mac}) is read with
+ * its bytes reversed. Codecs for fixed-size types reject array declarations when the parser is
+ * compiled.
+ *
+ * <ul>
+ *   <li>{@link #MAC} / {@link #MAC_LONG}: 6 bytes, {@code AA-BB-CC-DD-EE-FF} or a {@code long}
+ *   <li>{@link #IPV4} / {@link #IPV4_INT}: 4 bytes, dotted-decimal notation or an {@code int}
+ *   <li>{@link #IPV6}: 16 bytes, eight colon-separated hexadecimal groups
+ *   <li>{@link #HEX}: {@code hex[n]}, n bytes as uppercase hexadecimal string
+ *   <li>{@link #BCD}: {@code bcd[n]}, n bytes of packed BCD as decimal digits
+ *   <li>{@link #UUID}: 16 bytes in the canonical UUID form
+ *   <li>{@link #TIMESTAMP}: unsigned 32-bit seconds ({@code timestamp} or {@code timestamp:4}) or
+ *       signed 64-bit milliseconds ({@code timestamp:8}) since the epoch, read as epoch
+ *       milliseconds into a {@code long}
+ * </ul>
+ *
+ * @see FieldFormat
+ */
+public final class FieldCodecs {
+  /** A MAC address as String. */
+  public static final FieldCodec MAC =
+      scalar(
+          (in, byteOrder, fieldName, extraData, arrayLength) ->
+              new JBBPFieldString(
+                  fieldName,
+                  FieldFormat.macAddress(
+                      FieldFormat.macAddressToLong(in.readByteArray(6, byteOrder)))));
+
+  /** A MAC address in its primitive {@code long} representation. */
+  public static final FieldCodec MAC_LONG =
+      scalar(
+          (in, byteOrder, fieldName, extraData, arrayLength) ->
+              new JBBPFieldLong(
+                  fieldName, FieldFormat.macAddressToLong(in.readByteArray(6, byteOrder))));
+
+  /** An IPv4 address as String. */
+  public static final FieldCodec IPV4 =
+      scalar(
+          (in, byteOrder, fieldName, extraData, arrayLength) ->
+              new JBBPFieldString(fieldName, FieldFormat.ipv4(in.readInt(byteOrder))));
+
+  /** An IPv4 address in its primitive {@code int} representation. */
+  public static final FieldCodec IPV4_INT =
+      scalar(
+          (in, byteOrder, fieldName, extraData, arrayLength) ->
+              new JBBPFieldInt(fieldName, in.readInt(byteOrder)));
+
+  /** An IPv6 address as String. */
+  public static final FieldCodec IPV6 =
+      scalar(
+          (in, byteOrder, fieldName, extraData, arrayLength) ->
+              new JBBPFieldString(fieldName, FieldFormat.ipv6(in.readByteArray(16, byteOrder))));
+
+  /** A fixed number of bytes as hexadecimal String. */
+  public static final FieldCodec HEX =
+      (in, byteOrder, fieldName, extraData, arrayLength) ->
+          new JBBPFieldString(
+              fieldName,
+              FieldFormat.hex(in.readByteArray(requireLength("hex", arrayLength), byteOrder)));
+
+  /** A fixed number of packed BCD bytes as String of decimal digits. */
+  public static final FieldCodec BCD =
+      (in, byteOrder, fieldName, extraData, arrayLength) ->
+          new JBBPFieldString(
+              fieldName,
+              FieldFormat.bcd(in.readByteArray(requireLength("bcd", arrayLength), byteOrder)));
+
+  /** A UUID as String. */
+  public static final FieldCodec UUID =
+      scalar(
+          (in, byteOrder, fieldName, extraData, arrayLength) ->
+              new JBBPFieldString(
+                  fieldName, FieldFormat.uuid(in.readByteArray(16, byteOrder)).toString()));
+
+  /** A point in time as epoch milliseconds. */
+  public static final FieldCodec TIMESTAMP =
+      new FieldCodec() {
+        @Override
+        public JBBPFieldLong read(
+            JBBPBitInputStream in,
+            JBBPByteOrder byteOrder,
+            JBBPNamedFieldInfo fieldName,
+            int extraData,
+            int arrayLength)
+            throws IOException {
+          long millis =
+              extraData == 8
+                  ? in.readLong(byteOrder)
+                  : Integer.toUnsignedLong(in.readInt(byteOrder)) * 1000;
+          return new JBBPFieldLong(fieldName, millis);
+        }
+
+        @Override
+        public boolean isAllowed(int extraData, boolean isArray) {
+          return !isArray && (extraData == 0 || extraData == 4 || extraData == 8);
+        }
+      };
+
+  private FieldCodecs() {}
+
+  /** Wraps a codec so that array declarations of its type fail the compilation. */
+  private static FieldCodec scalar(FieldCodec codec) {
+    return new FieldCodec() {
+      @Override
+      public JBBPAbstractField read(
+          JBBPBitInputStream in,
+          JBBPByteOrder byteOrder,
+          JBBPNamedFieldInfo fieldName,
+          int extraData,
+          int arrayLength)
+          throws IOException {
+        return codec.read(in, byteOrder, fieldName, extraData, arrayLength);
+      }
+
+      @Override
+      public boolean isAllowed(int extraData, boolean isArray) {
+        return !isArray;
+      }
+    };
+  }
+
+  /** Returns the declared array length of a variable-size type, which must be at least one byte. */
+  private static int requireLength(String type, int arrayLength) {
+    if (arrayLength < 1) {
+      throw new IllegalArgumentException(
+          "A " + type + " field must have a certain length (e.g. " + type + "[5])!");
+    }
+    return arrayLength;
+  }
+}
@@ -0,0 +1,144 @@
+package ch.wintersoft.java.snippets.jbbp.codec;
+
+import java.util.UUID;
+
+/**
+ * Allocation-light conversions between raw protocol field values and their textual form.
+ *
+ * <p>The primitive representations are:
+ *
+ * <ul>
+ *   <li><strong>MAC address</strong>: a {@code long} holding the six bytes in its lower 48 bits,
+ *       first byte most significant
+ *   <li><strong>IPv4 address</strong>: an {@code int} holding the four bytes, first byte most
+ *       significant
+ * </ul>
+ */
+public final class FieldFormat {
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private FieldFormat() {}
+
+  /**
+   * Renders bytes as an uppercase hexadecimal string without separators.
+   *
+   * @param bytes The bytes to render.
+   * @return The hexadecimal string, e.g. {@code 800071A1}.
+   */
+  public static String hex(byte[] bytes) {
+    char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int b = bytes[i] & 0xFF;
+      chars[i * 2] = HEX_DIGITS[b >>> 4];
+      chars[i * 2 + 1] = HEX_DIGITS[b & 0x0F];
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Renders packed binary-coded decimal bytes, two digits per byte with the high nibble first.
+   *
+   * @param bytes The BCD bytes.
+   * @return The decimal digits including leading zeros, e.g. {@code 0042} for {@code 0x00, 0x42}.
+   * @throws IllegalArgumentException If a nibble is not a decimal digit.
+   */
+  public static String bcd(byte[] bytes) {
+    char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int high = (bytes[i] >>> 4) & 0x0F;
+      int low = bytes[i] & 0x0F;
+      if (high > 9 || low > 9) {
+        throw new IllegalArgumentException(
+            "Invalid BCD byte 0x" + HEX_DIGITS[high] + HEX_DIGITS[low] + "!");
+      }
+      chars[i * 2] = (char) ('0' + high);
+      chars[i * 2 + 1] = (char) ('0' + low);
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Renders a MAC address in the form {@code AA-BB-CC-DD-EE-FF}.
+   *
+   * @param macAddress The MAC address in its primitive representation.
+   * @return The formatted MAC address.
+   */
+  public static String macAddress(long macAddress) {
+    char[] chars = new char[17];
+    for (int i = 0; i < 6; i++) {
+      int b = (int) (macAddress >>> (40 - i * 8)) & 0xFF;
+      if (i > 0) {
+        chars[i * 3 - 1] = '-';
+      }
+      chars[i * 3] = HEX_DIGITS[b >>> 4];
+      chars[i * 3 + 1] = HEX_DIGITS[b & 0x0F];
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Packs six bytes into the primitive MAC address representation.
+   *
+   * @param bytes At least six bytes, first byte most significant.
+   * @return The MAC address as {@code long}.
+   */
+  public static long macAddressToLong(byte[] bytes) {
+    long macAddress = 0;
+    for (int i = 0; i < 6; i++) {
+      macAddress = (macAddress << 8) | (bytes[i] & 0xFF);
+    }
+    return macAddress;
+  }
+
+  /**
+   * Renders an IPv4 address in dotted-decimal notation.
+   *
+   * @param ipAddress The IPv4 address in its primitive representation.
+   * @return The formatted address, e.g. {@code 192.168.1.1}.
+   */
+  public static String ipv4(int ipAddress) {
+    StringBuilder sb = new StringBuilder(15);
+    sb.append(ipAddress >>> 24)
+        .append('.')
+        .append((ipAddress >>> 16) & 0xFF)
+        .append('.')
+        .append((ipAddress >>> 8) & 0xFF)
+        .append('.')
+        .append(ipAddress & 0xFF);
+    return sb.toString();
+  }
+
+  /**
+   * Renders an IPv6 address as eight groups of lowercase hexadecimal digits without leading zeros,
+   * as {@link java.net.Inet6Address#getHostAddress()} does.
+   *
+   * @param bytes The sixteen address bytes, first byte most significant.
+   * @return The formatted address, e.g. {@code fd00:0:0:0:0:0:0:1}.
+   */
+  public static String ipv6(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(39);
+    for (int i = 0; i < 8; i++) {
+      if (i > 0) {
+        sb.append(':');
+      }
+      sb.append(Integer.toHexString(((bytes[i * 2] & 0xFF) << 8) | (bytes[i * 2 + 1] & 0xFF)));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Converts sixteen bytes into a UUID.
+   *
+   * @param bytes The sixteen UUID bytes, first byte most significant.
+   * @return The UUID.
+   */
+  public static UUID uuid(byte[] bytes) {
+    long mostSignificant = 0;
+    long leastSignificant = 0;
+    for (int i = 0; i < 8; i++) {
+      mostSignificant = (mostSignificant << 8) | (bytes[i] & 0xFF);
+      leastSignificant = (leastSignificant << 8) | (bytes[i + 8] & 0xFF);
+    }
+    return new UUID(mostSignificant, leastSignificant);
+  }
+}
@@ -0,0 +1,117 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk decoder for archived captures of MOXA IP report frames.
+ *
+ * <p>A capture file is a plain sequence of length-delimited frames, each prefixed with its length
+ * as unsigned 16-bit big-endian integer: {@code [ushort length][frame] [ushort length][frame] ...}.
+ *
+ * <p>The file is memory-mapped and decoded in two passes. The first pass only walks the length
+ * prefixes to find the frame boundaries. The second pass splits the frames into chunks that are
+ * decoded in parallel, each chunk with its own {@link MoxaIPReportView}, directly into the
+ * primitive arrays of a {@link MoxaReportColumns}. No {@link MoxaIPReport} or String is created per
+ * frame.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * MoxaReportColumns columns = MoxaCaptureDecoder.decode(Path.of("moxa.capture"));
+ * int devices = columns.countInSubnet(0xC0A81E00, 0xFFFFFF00); // 192.168.30.0/24
+ * }</pre>
+ *
+ * <p>A single mapping is limited to 2 GB, so larger captures must be split into several files.
+ */
+public final class MoxaCaptureDecoder {
+  /** Size of the length prefix in front of every frame. */
+  public static final int LENGTH_PREFIX_SIZE = 2;
+
+  private static final int CHUNK_SIZE = 4096;
+
+  private MoxaCaptureDecoder() {}
+
+  /**
+   * Decodes all frames of a capture file.
+   *
+   * @param capture The capture file.
+   * @return The decoded reports in file order.
+   * @throws IOException If the file cannot be read, is larger than 2 GB or ends with a truncated
+   *     frame.
+   */
+  public static MoxaReportColumns decode(Path capture) throws IOException {
+    try (FileChannel channel = FileChannel.open(capture, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Capture " + capture + " is larger than 2 GB!");
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return decode(buffer);
+    }
+  }
+
+  /**
+   * Decodes all frames between the position and the limit of a buffer.
+   *
+   * @param capture The buffer holding the length-delimited frames; its position is not changed.
+   * @return The decoded reports in buffer order.
+   * @throws IOException If the buffer ends with a truncated frame.
+   */
+  public static MoxaReportColumns decode(ByteBuffer capture) throws IOException {
+    MoxaReportColumns columns = scan(capture);
+    int chunks = (columns.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    IntStream.range(0, chunks).parallel().forEach(chunk -> decodeChunk(capture, columns, chunk));
+    return columns;
+  }
+
+  /** Walks the length prefixes and records the offset and length of every frame. */
+  private static MoxaReportColumns scan(ByteBuffer capture) throws IOException {
+    int limit = capture.limit();
+    int[] offsets = new int[64];
+    int[] lengths = new int[64];
+    int count = 0;
+    int offset = capture.position();
+    while (offset < limit) {
+      if (offset + LENGTH_PREFIX_SIZE > limit) {
+        throw new IOException("Truncated length prefix at offset " + offset);
+      }
+      int length = ((capture.get(offset) & 0xFF) << 8) | (capture.get(offset + 1) & 0xFF);
+      offset += LENGTH_PREFIX_SIZE;
+      if (offset + length > limit) {
+        throw new IOException("Truncated frame of " + length + " bytes at offset " + offset);
+      }
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+        lengths = Arrays.copyOf(lengths, count * 2);
+      }
+      offsets[count] = offset;
+      lengths[count] = length;
+      count++;
+      offset += length;
+    }
+    return new MoxaReportColumns(Arrays.copyOf(offsets, count), Arrays.copyOf(lengths, count));
+  }
+
+  private static void decodeChunk(ByteBuffer capture, MoxaReportColumns columns, int chunk) {
+    // every chunk needs its own position and limit
+    ByteBuffer frame = capture.duplicate();
+    MoxaIPReportView view = new MoxaIPReportView();
+    int[] offsets = columns.frameOffsets();
+    int[] lengths = columns.frameLengths();
+    int end = Math.min(columns.size(), (chunk + 1) * CHUNK_SIZE);
+    for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+      frame.limit(offsets[i] + lengths[i]).position(offsets[i]);
+      try {
+        columns.set(i, view.wrap(frame));
+      } catch (IllegalArgumentException e) {
+        columns.setMalformed(i);
+      }
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import java.time.Duration;
+
+/**
+ * A point-in-time copy of the counters of a {@link MoxaDiscoveryService}.
+ *
+ * @param packetsReceived The number of datagrams read from the socket.
+ * @param bytesReceived The total payload size of all received datagrams.
+ * @param reportsDecoded The number of datagrams successfully decoded into a device report.
+ * @param malformedPackets The number of datagrams that were not valid MOXA IP reports.
+ * @param droppedPackets The number of datagrams dropped because no buffer or worker was available.
+ * @param batches The number of receive batches handed to the worker pool.
+ * @param uptime The time since the service was started.
+ */
+public record MoxaDiscoveryMetrics(
+    long packetsReceived,
+    long bytesReceived,
+    long reportsDecoded,
+    long malformedPackets,
+    long droppedPackets,
+    long batches,
+    Duration uptime) {
+
+  /**
+   * Returns the average receive throughput since the service was started.
+   *
+   * @return The received datagrams per second.
+   */
+  public double packetsPerSecond() {
+    long nanos = uptime.toNanos();
+    return nanos == 0 ? 0 : packetsReceived * 1_000_000_000d / nanos;
+  }
+}
@@ -0,0 +1,322 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listens for MOXA IP report datagrams and keeps a table of the announced devices.
+ *
+ * <p>A single receiver thread waits on a non-blocking {@link DatagramChannel} and, once it becomes
+ * readable, drains up to {@code batchSize} datagrams into pooled direct buffers. Each batch is
+ * handed to a bounded worker pool which decodes the frames through pooled {@link MoxaIPReportView}s
+ * and stores the resulting {@link MoxaIPReport} under the device MAC address. If no buffer is free
+ * or the worker queue is full, datagrams are dropped and counted instead of blocking the receiver.
+ *
+ * <p>Every datagram is numbered in the order it is received. As batches are decoded in parallel, a
+ * report only replaces the stored report of its device if it was received later, so a batch that
+ * finishes late never overwrites a newer report.
+ *
+ * <p>If receiving fails, the receiver thread stops and the failure is available from {@link
+ * #getFailure()}. The service then has to be closed.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * try (MoxaDiscoveryService service =
+ *     new MoxaDiscoveryService(new InetSocketAddress(4800), 2, 64, 16)) {
+ *   service.start();
+ *   ...
+ *   service.getDevices().forEach((mac, report) -> System.out.println(report));
+ * }
+ * }</pre>
+ *
+ * @see MoxaDiscoveryMetrics
+ */
+public class MoxaDiscoveryService implements Closeable {
+  /** Maximum size of a received datagram; larger ones are rejected as malformed. */
+  static final int MAX_FRAME_SIZE = 1500;
+
+  /** One byte more than a frame may have, so a datagram filling it is known to be truncated. */
+  private static final int BUFFER_SIZE = MAX_FRAME_SIZE + 1;
+
+  private final InetSocketAddress bindAddress;
+  private final int batchSize;
+  private final ArrayBlockingQueue<ByteBuffer> freeBuffers;
+  private final MoxaIPReportViewPool viewPool;
+  private final ThreadPoolExecutor workers;
+  private final Map<Long, MoxaIPReport> devices = new ConcurrentHashMap<>();
+
+  /** The receive sequence number of the stored report per MAC address, guarding its updates. */
+  private final Map<Long, Long> deviceSequences = new ConcurrentHashMap<>();
+
+  private final ByteBuffer overflowBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  private final LongAdder packetsReceived = new LongAdder();
+  private final LongAdder bytesReceived = new LongAdder();
+  private final LongAdder reportsDecoded = new LongAdder();
+  private final LongAdder malformedPackets = new LongAdder();
+  private final LongAdder droppedPackets = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+
+  private DatagramChannel channel;
+  private Selector selector;
+  private Thread receiver;
+  private long startNanos;
+  private long receiveSequence;
+  private volatile boolean running;
+  private volatile IOException failure;
+
+  /**
+   * Creates a discovery service. Call {@link #start()} to begin listening.
+   *
+   * @param bindAddress The local address and UDP port to listen on, port {@code 0} picks any.
+   * @param workerThreads The number of threads decoding received frames.
+   * @param batchSize The maximum number of datagrams received and decoded as one batch.
+   * @param maxPendingBatches The number of batches that may wait for a worker before datagrams are
+   *     dropped.
+   */
+  public MoxaDiscoveryService(
+      InetSocketAddress bindAddress, int workerThreads, int batchSize, int maxPendingBatches) {
+    if (workerThreads < 1 || batchSize < 1 || maxPendingBatches < 1) {
+      throw new IllegalArgumentException(
+          "Worker threads, batch size and pending batches must be positive!");
+    }
+    this.bindAddress = bindAddress;
+    this.batchSize = batchSize;
+
+    int bufferCount = batchSize * (workerThreads + maxPendingBatches + 1);
+    this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+    for (int i = 0; i < bufferCount; i++) {
+      freeBuffers.offer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+    }
+    this.viewPool = new MoxaIPReportViewPool(workerThreads);
+    this.workers =
+        new ThreadPoolExecutor(
+            workerThreads,
+            workerThreads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxPendingBatches),
+            Thread.ofPlatform().name("moxa-discovery-worker-", 0).daemon().factory());
+  }
+
+  /**
+   * Binds the socket and starts the receiver thread.
+   *
+   * @throws IOException If the socket cannot be opened or bound.
+   */
+  public synchronized void start() throws IOException {
+    if (receiver != null) {
+      throw new IllegalStateException("The discovery service is already running!");
+    }
+    channel = DatagramChannel.open();
+    channel.bind(bindAddress);
+    channel.configureBlocking(false);
+    selector = Selector.open();
+    channel.register(selector, SelectionKey.OP_READ);
+    startNanos = System.nanoTime();
+    running = true;
+    receiver =
+        Thread.ofPlatform().name("moxa-discovery-receiver").daemon().start(this::receiveLoop);
+  }
+
+  /**
+   * Returns the address the service is listening on.
+   *
+   * @return The bound local address, useful if port {@code 0} was requested.
+   * @throws IOException If the address cannot be determined.
+   */
+  public InetSocketAddress getLocalAddress() throws IOException {
+    return (InetSocketAddress) channel.getLocalAddress();
+  }
+
+  /**
+   * Returns the devices seen so far.
+   *
+   * @return An unmodifiable live view of the latest report per MAC address, see {@link
+   *     MoxaFieldFormat} for the MAC address representation.
+   */
+  public Map<Long, MoxaIPReport> getDevices() {
+    return Collections.unmodifiableMap(devices);
+  }
+
+  /**
+   * Returns the failure that stopped the receiver thread.
+   *
+   * @return The {@link IOException} thrown while receiving, or empty if the receiver did not fail.
+   */
+  public Optional<IOException> getFailure() {
+    return Optional.ofNullable(failure);
+  }
+
+  /**
+   * Returns a snapshot of the receive and decode counters.
+   *
+   * @return The current metrics.
+   */
+  public MoxaDiscoveryMetrics getMetrics() {
+    return new MoxaDiscoveryMetrics(
+        packetsReceived.sum(),
+        bytesReceived.sum(),
+        reportsDecoded.sum(),
+        malformedPackets.sum(),
+        droppedPackets.sum(),
+        batches.sum(),
+        running ? Duration.ofNanos(System.nanoTime() - startNanos) : Duration.ZERO);
+  }
+
+  /**
+   * Stops receiving, waits for pending batches to be decoded and closes the socket.
+   *
+   * @throws IOException If the socket cannot be closed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (receiver == null) {
+      workers.shutdownNow();
+      return;
+    }
+    running = false;
+    selector.wakeup();
+    try {
+      receiver.join();
+      workers.shutdown();
+      workers.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      selector.close();
+      channel.close();
+    }
+  }
+
+  private void receiveLoop() {
+    try {
+      while (running) {
+        selector.select();
+        selector.selectedKeys().clear();
+        receiveBatches();
+      }
+    } catch (ClosedSelectorException e) {
+      // closed while shutting down
+    } catch (IOException e) {
+      if (running) {
+        failure = e;
+        running = false;
+      }
+    }
+  }
+
+  /** Drains the socket in batches until no more datagrams are pending. */
+  private void receiveBatches() throws IOException {
+    boolean drained = false;
+    while (!drained && running) {
+      ByteBuffer[] batch = new ByteBuffer[batchSize];
+      int count = 0;
+      while (count < batchSize) {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+          // no buffer left: receive into scratch space and drop the datagram
+          overflowBuffer.clear();
+          if (channel.receive(overflowBuffer) == null) {
+            drained = true;
+            break;
+          }
+          count(overflowBuffer);
+          droppedPackets.increment();
+          continue;
+        }
+        buffer.clear();
+        SocketAddress sender = channel.receive(buffer);
+        if (sender == null) {
+          freeBuffers.offer(buffer);
+          drained = true;
+          break;
+        }
+        count(buffer);
+        if (buffer.position() > MAX_FRAME_SIZE) {
+          // the datagram did not fit and was truncated
+          malformedPackets.increment();
+          freeBuffers.offer(buffer);
+          continue;
+        }
+        batch[count++] = buffer.flip();
+      }
+      if (count > 0) {
+        dispatch(batch, count, receiveSequence);
+        receiveSequence += count;
+      }
+    }
+  }
+
+  private void count(ByteBuffer buffer) {
+    packetsReceived.increment();
+    bytesReceived.add(buffer.position());
+  }
+
+  /** Hands a batch to the workers; its datagrams have consecutive numbers from firstSequence. */
+  private void dispatch(ByteBuffer[] batch, int count, long firstSequence) {
+    try {
+      workers.execute(() -> decode(batch, count, firstSequence));
+      batches.increment();
+    } catch (RejectedExecutionException e) {
+      droppedPackets.add(count);
+      release(batch, count);
+    }
+  }
+
+  private void decode(ByteBuffer[] batch, int count, long firstSequence) {
+    MoxaIPReportView view = viewPool.acquire();
+    try {
+      for (int i = 0; i < count; i++) {
+        try {
+          view.wrap(batch[i]);
+          store(view.macAddress(), view.toReport(), firstSequence + i);
+          reportsDecoded.increment();
+        } catch (IllegalArgumentException e) {
+          // also covers NumberFormatException for invalid firmware versions
+          malformedPackets.increment();
+        }
+      }
+    } finally {
+      viewPool.release(view);
+      release(batch, count);
+    }
+  }
+
+  /** Stores a report unless a report received later is already stored for the device. */
+  void store(long macAddress, MoxaIPReport report, long sequence) {
+    deviceSequences.compute(
+        macAddress,
+        (mac, stored) -> {
+          if (stored != null && stored > sequence) {
+            return stored;
+          }
+          devices.put(mac, report);
+          return sequence;
+        });
+  }
+
+  private void release(ByteBuffer[] batch, int count) {
+    for (int i = 0; i < count; i++) {
+      freeBuffers.offer(batch[i]);
+    }
+  }
+}
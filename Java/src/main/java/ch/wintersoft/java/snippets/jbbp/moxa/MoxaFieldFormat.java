@@ -0,0 +1,108 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import ch.wintersoft.java.snippets.jbbp.codec.FieldFormat;
+
+/**
+ * Allocation-light conversions between the raw MOXA field values and their textual form.
+ *
+ * <p>Hexadecimal and MAC address rendering use a lookup table instead of {@code String.format}, and
+ * the firmware version is decoded arithmetically instead of building and parsing a String. All
+ * methods return exactly the same results as the original String based implementations. The
+ * conversions that are not specific to MOXA devices delegate to {@link FieldFormat}.
+ *
+ * <p>The primitive representations used by {@link MoxaFieldRepresentation#PRIMITIVE} are:
+ *
+ * <ul>
+ *   <li><strong>MAC address</strong>: a {@code long} holding the six bytes in its lower 48 bits,
+ *       first byte most significant
+ *   <li><strong>IPv4 address</strong>: an {@code int} holding the four bytes, first byte most
+ *       significant
+ *   <li><strong>firmware</strong>: an {@code int} holding the major byte followed by three minor
+ *       bytes, major byte most significant
+ * </ul>
+ */
+public final class MoxaFieldFormat {
+  private static final long[] POWERS_OF_TEN = {
+    1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+  };
+
+  private MoxaFieldFormat() {}
+
+  /**
+   * Renders bytes as an uppercase hexadecimal string without separators.
+   *
+   * @param bytes The bytes to render.
+   * @return The hexadecimal string, e.g. {@code 800071A1}.
+   */
+  public static String hex(byte[] bytes) {
+    return FieldFormat.hex(bytes);
+  }
+
+  /**
+   * Renders a MAC address in the form {@code AA-BB-CC-DD-EE-FF}.
+   *
+   * @param macAddress The MAC address in its primitive representation.
+   * @return The formatted MAC address.
+   */
+  public static String macAddress(long macAddress) {
+    return FieldFormat.macAddress(macAddress);
+  }
+
+  /**
+   * Renders an IPv4 address in dotted-decimal notation.
+   *
+   * @param ipAddress The IPv4 address in its primitive representation.
+   * @return The formatted address, e.g. {@code 192.168.1.1}.
+   */
+  public static String ipv4(int ipAddress) {
+    return FieldFormat.ipv4(ipAddress);
+  }
+
+  /**
+   * Decodes a firmware version.
+   *
+   * <p>The result equals {@code Double.parseDouble(b0 + "." + b1 + b2 + b3)} where {@code b0} to
+   * {@code b3} are the signed decimal values of the four bytes. The digits are combined into an
+   * exact integer mantissa and divided once by an exact power of ten, which yields the same
+   * correctly rounded double as parsing the String.
+   *
+   * @param firmware The firmware version in its primitive representation.
+   * @return The firmware version, e.g. {@code 1.4} for the bytes {@code 1, 4, 0, 0}.
+   * @throws NumberFormatException If one of the minor bytes is negative, as parsing would fail.
+   */
+  public static double firmware(int firmware) {
+    int major = (byte) (firmware >>> 24);
+    int minor1 = (byte) (firmware >>> 16);
+    int minor2 = (byte) (firmware >>> 8);
+    int minor3 = (byte) firmware;
+    if (minor1 < 0 || minor2 < 0 || minor3 < 0) {
+      throw new NumberFormatException(
+          "Invalid firmware version " + major + "." + minor1 + minor2 + minor3);
+    }
+    int digits2 = decimalDigits(minor2);
+    int digits3 = decimalDigits(minor3);
+    int fractionDigits = decimalDigits(minor1) + digits2 + digits3;
+    long fraction = (minor1 * POWERS_OF_TEN[digits2] + minor2) * POWERS_OF_TEN[digits3] + minor3;
+    long mantissa = Math.abs(major) * POWERS_OF_TEN[fractionDigits] + fraction;
+    double value = (double) mantissa / POWERS_OF_TEN[fractionDigits];
+    return major < 0 ? -value : value;
+  }
+
+  /**
+   * Packs six bytes into the primitive MAC address representation.
+   *
+   * @param bytes At least six bytes, first byte most significant.
+   * @return The MAC address as {@code long}.
+   */
+  public static long macAddressToLong(byte[] bytes) {
+    return FieldFormat.macAddressToLong(bytes);
+  }
+
+  /** Returns the number of decimal digits of a non-negative byte value. */
+  private static int decimalDigits(int value) {
+    if (value < 10) {
+      return 1;
+    }
+    return value < 100 ? 2 : 3;
+  }
+}
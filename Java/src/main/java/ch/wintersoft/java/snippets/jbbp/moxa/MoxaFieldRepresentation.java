@@ -0,0 +1,16 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+/**
+ * Selects how {@link MoxaFieldTypeProcessor} represents MAC and IPv4 address fields.
+ *
+ * @see MoxaFieldFormat
+ */
+public enum MoxaFieldRepresentation {
+  /** Addresses are decoded into human-readable Strings. */
+  TEXT,
+  /**
+   * Addresses are decoded into compact primitives: a {@code long} MAC address and an {@code int}
+   * IPv4 address, which can be rendered later with {@link MoxaFieldFormat} if needed.
+   */
+  PRIMITIVE
+}
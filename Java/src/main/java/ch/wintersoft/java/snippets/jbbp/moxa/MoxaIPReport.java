@@ -31,6 +31,31 @@ public class MoxaIPReport {
   /** Internal constant script fragment to skip two bytes in the JBBP parser. */
   private static final String SKIP_2 = "skip:2;";
 
+  /** JBBP script describing the layout of a MOXA binary report. */
+  private static final String MOXA_SCRIPT =
+      "byte[4] header;"
+          + "skip;"
+          + "byte nameLength;"
+          + "byte[nameLength] serverName;"
+          + "skip:1;"
+          + "byte hwLength;"
+          + "<hex[hwLength] hwId;"
+          + SKIP_2
+          + "mac macAddress;"
+          + SKIP_2
+          + "<int serialNumber;"
+          + SKIP_2
+          + "ipv4 ipAddress;"
+          + SKIP_2
+          + "ipv4 netmask;"
+          + SKIP_2
+          + "ipv4 gateway;"
+          + SKIP_2
+          + "<fw firmware;"
+          + "skip:1;"
+          + "byte apLength;"
+          + "<hex[apLength] apId;";
+
   /**
    * Predefined parser for decoding MOXA binary reports.
    *
@@ -39,30 +64,21 @@ public class MoxaIPReport {
    * specialized field types such as {@code mac}, {@code ipv4}, and {@code fw}.
    */
   public static final JBBPParser MOXA_PARSER =
+      JBBPParser.prepare(MOXA_SCRIPT, new MoxaFieldTypeProcessor());
+
+  /**
+   * Parser for the same layout as {@link #MOXA_PARSER} which decodes {@code macAddress} into a
+   * {@link com.igormaznitsa.jbbp.model.JBBPFieldLong} and {@code ipAddress}, {@code netmask} and
+   * {@code gateway} into {@link com.igormaznitsa.jbbp.model.JBBPFieldInt} values.
+   *
+   * <p>Its result cannot be mapped to this class; read the fields from the parsed structure
+   * instead, e.g. {@code struct.findFieldForNameAndType("macAddress", JBBPFieldLong.class)}.
+   *
+   * @see MoxaFieldRepresentation#PRIMITIVE
+   */
+  public static final JBBPParser MOXA_PRIMITIVE_PARSER =
       JBBPParser.prepare(
-          "byte[4] header;"
-              + "skip;"
-              + "byte nameLength;"
-              + "byte[nameLength] serverName;"
-              + "skip:1;"
-              + "byte hwLength;"
-              + "<hex[hwLength] hwId;"
-              + SKIP_2
-              + "mac macAddress;"
-              + SKIP_2
-              + "<int serialNumber;"
-              + SKIP_2
-              + "ipv4 ipAddress;"
-              + SKIP_2
-              + "ipv4 netmask;"
-              + SKIP_2
-              + "ipv4 gateway;"
-              + SKIP_2
-              + "<fw firmware;"
-              + "skip:1;"
-              + "byte apLength;"
-              + "<hex[apLength] apId;",
-          new MoxaFieldTypeProcessor());
+          MOXA_SCRIPT, new MoxaFieldTypeProcessor(MoxaFieldRepresentation.PRIMITIVE));
 
   /** Packet header (4 bytes) identifying the protocol version. */
   @Bin(order = 1, type = BinType.BYTE_ARRAY, arraySizeExpr = "4")
@@ -0,0 +1,160 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hand-written, high-throughput decoder for MOXA IP report packets.
+ *
+ * <p>This decoder reads a raw frame directly into a {@link MoxaIPReport} without going through the
+ * reflective {@link com.igormaznitsa.jbbp.mapper.Bin} mapping or intermediate JBBP field objects.
+ * It follows exactly the layout declared by {@link MoxaIPReport#MOXA_PARSER}:
+ *
+ * <pre>
+ * byte[4] header; skip; byte nameLength; byte[nameLength] serverName;
+ * skip:1; byte hwLength; &lt;hex[hwLength] hwId;
+ * skip:2; mac macAddress; skip:2; &lt;int serialNumber;
+ * skip:2; ipv4 ipAddress; skip:2; ipv4 netmask; skip:2; ipv4 gateway;
+ * skip:2; &lt;fw firmware; skip:1; byte apLength; &lt;hex[apLength] apId;
+ * </pre>
+ *
+ * <p>All reads use absolute offsets, so the position of a passed {@link ByteBuffer} is never
+ * changed and the buffer can be a slice of a larger receive buffer.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * byte[] data = ...; // raw UDP data from a Moxa device
+ * MoxaIPReport report = MoxaIPReportDecoder.decode(data);
+ * }</pre>
+ *
+ * @see MoxaIPReport
+ */
+public final class MoxaIPReportDecoder {
+  private MoxaIPReportDecoder() {}
+
+  /**
+   * Decodes a MOXA IP report from a byte array.
+   *
+   * @param frame The raw report packet.
+   * @return A new {@link MoxaIPReport} holding the decoded fields.
+   * @throws IllegalArgumentException If the frame is truncated or contains invalid length fields.
+   */
+  public static MoxaIPReport decode(byte[] frame) {
+    return decode(ByteBuffer.wrap(frame), new MoxaIPReport());
+  }
+
+  /**
+   * Decodes a MOXA IP report starting at the current position of a buffer.
+   *
+   * @param frame The buffer holding the raw report packet.
+   * @return A new {@link MoxaIPReport} holding the decoded fields.
+   * @throws IllegalArgumentException If the frame is truncated or contains invalid length fields.
+   */
+  public static MoxaIPReport decode(ByteBuffer frame) {
+    return decode(frame, new MoxaIPReport());
+  }
+
+  /**
+   * Decodes a MOXA IP report starting at the current position of a buffer into an existing report.
+   *
+   * @param frame The buffer holding the raw report packet.
+   * @param report The report instance whose fields are overwritten.
+   * @return The passed report instance.
+   * @throws IllegalArgumentException If the frame is truncated or contains invalid length fields.
+   */
+  public static MoxaIPReport decode(ByteBuffer frame, MoxaIPReport report) {
+    int offset = frame.position();
+    int limit = frame.limit();
+
+    require(frame, offset, 6, limit);
+    report.header = ascii(frame, offset, 4);
+    int nameLength = length(frame, offset + 5, "nameLength");
+    offset += 6;
+    require(frame, offset, nameLength + 2, limit);
+    report.serverName = ascii(frame, offset, nameLength);
+    offset += nameLength + 1;
+
+    int hwLength = hexLength(frame, offset, "hwLength");
+    offset += 1;
+    require(frame, offset, hwLength + 40, limit);
+    report.hwId = hexLittleEndian(frame, offset, hwLength);
+    offset += hwLength + 2;
+
+    report.macAddress = MoxaFieldFormat.macAddress(macAddress(frame, offset));
+    offset += 6 + 2;
+    report.serialNumber = Integer.reverseBytes(intBigEndian(frame, offset));
+    offset += 4 + 2;
+    report.ipAddress = MoxaFieldFormat.ipv4(intBigEndian(frame, offset));
+    offset += 4 + 2;
+    report.netmask = MoxaFieldFormat.ipv4(intBigEndian(frame, offset));
+    offset += 4 + 2;
+    report.gateway = MoxaFieldFormat.ipv4(intBigEndian(frame, offset));
+    offset += 4 + 2;
+    report.firmware = MoxaFieldFormat.firmware(Integer.reverseBytes(intBigEndian(frame, offset)));
+    offset += 4 + 1;
+
+    int apLength = hexLength(frame, offset, "apLength");
+    offset += 1;
+    require(frame, offset, apLength, limit);
+    report.apId = hexLittleEndian(frame, offset, apLength);
+    return report;
+  }
+
+  /** Reads a signed length prefix, as the JBBP {@code byte} type does, and rejects negatives. */
+  private static int length(ByteBuffer frame, int index, String field) {
+    int length = frame.get(index);
+    if (length < 0) {
+      throw new IllegalArgumentException("Negative " + field + " " + length + " in MOXA report!");
+    }
+    return length;
+  }
+
+  /** Reads the length prefix of a {@code hex} field, which must cover at least one byte. */
+  private static int hexLength(ByteBuffer frame, int index, String field) {
+    int length = length(frame, index, field);
+    if (length < 1) {
+      throw new IllegalArgumentException("A hex String must have a certain length (e.g. hex[5]])!");
+    }
+    return length;
+  }
+
+  private static void require(ByteBuffer frame, int offset, int length, int limit) {
+    if (offset + length > limit) {
+      throw new IllegalArgumentException(
+          "Truncated MOXA report: need "
+              + (offset + length - frame.position())
+              + " bytes but only "
+              + (limit - frame.position())
+              + " are available!");
+    }
+  }
+
+  /** Maps every byte to one character, like the JBBP mapper does for byte arrays. */
+  private static String ascii(ByteBuffer frame, int offset, int length) {
+    byte[] bytes = new byte[length];
+    frame.get(offset, bytes);
+    return new String(bytes, StandardCharsets.ISO_8859_1);
+  }
+
+  private static String hexLittleEndian(ByteBuffer frame, int offset, int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = frame.get(offset + length - 1 - i);
+    }
+    return MoxaFieldFormat.hex(bytes);
+  }
+
+  private static long macAddress(ByteBuffer frame, int offset) {
+    return (Integer.toUnsignedLong(intBigEndian(frame, offset)) << 16)
+        | ((frame.get(offset + 4) & 0xFFL) << 8)
+        | (frame.get(offset + 5) & 0xFFL);
+  }
+
+  /** Reads four bytes in network byte order, regardless of the byte order set on the buffer. */
+  static int intBigEndian(ByteBuffer frame, int offset) {
+    int value = frame.getInt(offset);
+    return frame.order() == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+  }
+}
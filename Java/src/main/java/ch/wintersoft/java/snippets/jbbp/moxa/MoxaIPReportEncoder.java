@@ -0,0 +1,316 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable encoder writing MOXA IP report frames in exactly the layout read by {@link
+ * MoxaIPReport#MOXA_PARSER}, {@link MoxaIPReportDecoder} and {@link MoxaIPReportView}.
+ *
+ * <p>The variable-length fields ({@code header}, {@code serverName}, {@code hwId} and {@code apId})
+ * are converted to bytes once when they are set. The fixed-size fields are kept as primitives in
+ * the representations documented in {@link MoxaFieldFormat}. {@link #encode(ByteBuffer)} then only
+ * copies bytes and primitives into the target buffer and does not allocate, so a simulator can
+ * generate many frames by changing e.g. the MAC and IP address between calls.
+ *
+ * <p>The gaps skipped by the parser are filled with the tag and length bytes sent by real devices,
+ * e.g. {@code 5, 4} in front of the IP address.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * MoxaIPReportEncoder encoder = new MoxaIPReportEncoder().serverName("NPort 5110").hwId("1111");
+ * ByteBuffer buffer = ByteBuffer.allocateDirect(1500);
+ * for (int i = 0; i < devices; i++) {
+ *   buffer.clear();
+ *   encoder.macAddress(0x0090E8000000L + i).ipAddress(0x0A000000 + i).encode(buffer);
+ *   channel.send(buffer.flip(), target);
+ * }
+ * }</pre>
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class MoxaIPReportEncoder {
+  private byte[] header = {'M', 'O', 'X', 'A'};
+  private byte[] serverName = new byte[0];
+  private byte[] hwId = {0};
+  private byte[] apId = {0};
+  private long macAddress;
+  private int serialNumber;
+  private int ipAddress;
+  private int netmask;
+  private int gateway;
+  private int firmware;
+
+  /**
+   * Sets all fields from a report.
+   *
+   * @param report The report to encode.
+   * @return This encoder.
+   * @throws IllegalArgumentException If a field cannot be represented in the frame layout.
+   */
+  public MoxaIPReportEncoder report(MoxaIPReport report) {
+    return header(report.header)
+        .serverName(report.serverName)
+        .hwId(report.hwId)
+        .apId(report.apId)
+        .macAddress(parseMacAddress(report.macAddress))
+        .serialNumber(report.serialNumber)
+        .ipAddress(parseIpv4(report.ipAddress))
+        .netmask(parseIpv4(report.netmask))
+        .gateway(parseIpv4(report.gateway))
+        .firmware(report.firmware);
+  }
+
+  /**
+   * Sets the packet header.
+   *
+   * @param header Exactly four characters, {@code MOXA} by default.
+   * @return This encoder.
+   * @throws IllegalArgumentException If the header does not have four characters.
+   */
+  public MoxaIPReportEncoder header(String header) {
+    if (header.length() != 4) {
+      throw new IllegalArgumentException("The header must have exactly 4 characters!");
+    }
+    this.header = header.getBytes(StandardCharsets.ISO_8859_1);
+    return this;
+  }
+
+  /**
+   * Sets the server name.
+   *
+   * @param serverName The server name, encoded with one byte per character.
+   * @return This encoder.
+   * @throws IllegalArgumentException If the name is longer than 127 characters.
+   */
+  public MoxaIPReportEncoder serverName(String serverName) {
+    this.serverName = lengthChecked(serverName.getBytes(StandardCharsets.ISO_8859_1), 0, "name");
+    return this;
+  }
+
+  /**
+   * Sets the hardware identifier.
+   *
+   * @param hwId The identifier as hexadecimal string, as returned by {@link MoxaIPReport#hwId}.
+   * @return This encoder.
+   * @throws IllegalArgumentException If the string is not valid hexadecimal or out of range.
+   */
+  public MoxaIPReportEncoder hwId(String hwId) {
+    this.hwId = lengthChecked(hexLittleEndian(hwId), 1, "hwId");
+    return this;
+  }
+
+  /**
+   * Sets the access point identifier.
+   *
+   * @param apId The identifier as hexadecimal string, as returned by {@link MoxaIPReport#apId}.
+   * @return This encoder.
+   * @throws IllegalArgumentException If the string is not valid hexadecimal or out of range.
+   */
+  public MoxaIPReportEncoder apId(String apId) {
+    this.apId = lengthChecked(hexLittleEndian(apId), 1, "apId");
+    return this;
+  }
+
+  /**
+   * Sets the MAC address.
+   *
+   * @param macAddress The MAC address in the primitive representation of {@link MoxaFieldFormat}.
+   * @return This encoder.
+   */
+  public MoxaIPReportEncoder macAddress(long macAddress) {
+    this.macAddress = macAddress;
+    return this;
+  }
+
+  /**
+   * Sets the serial number.
+   *
+   * @param serialNumber The serial number.
+   * @return This encoder.
+   */
+  public MoxaIPReportEncoder serialNumber(int serialNumber) {
+    this.serialNumber = serialNumber;
+    return this;
+  }
+
+  /**
+   * Sets the IPv4 address.
+   *
+   * @param ipAddress The address in the primitive representation of {@link MoxaFieldFormat}.
+   * @return This encoder.
+   */
+  public MoxaIPReportEncoder ipAddress(int ipAddress) {
+    this.ipAddress = ipAddress;
+    return this;
+  }
+
+  /**
+   * Sets the IPv4 subnet mask.
+   *
+   * @param netmask The netmask in the primitive representation of {@link MoxaFieldFormat}.
+   * @return This encoder.
+   */
+  public MoxaIPReportEncoder netmask(int netmask) {
+    this.netmask = netmask;
+    return this;
+  }
+
+  /**
+   * Sets the default gateway.
+   *
+   * @param gateway The gateway in the primitive representation of {@link MoxaFieldFormat}.
+   * @return This encoder.
+   */
+  public MoxaIPReportEncoder gateway(int gateway) {
+    this.gateway = gateway;
+    return this;
+  }
+
+  /**
+   * Sets the firmware version.
+   *
+   * @param firmware The firmware version in the primitive representation of {@link
+   *     MoxaFieldFormat}.
+   * @return This encoder.
+   */
+  public MoxaIPReportEncoder firmware(int firmware) {
+    this.firmware = firmware;
+    return this;
+  }
+
+  /**
+   * Sets the firmware version from its decoded form.
+   *
+   * <p>The integer part becomes the major byte and the first three decimal places the three minor
+   * bytes, so {@code 1.4} is encoded as {@code 1, 4, 0, 0}. Decoding the result yields the value
+   * rounded to three decimal places.
+   *
+   * @param firmware The firmware version between {@code 0} (inclusive) and {@code 128} (exclusive).
+   * @return This encoder.
+   * @throws IllegalArgumentException If the version is out of range.
+   */
+  public MoxaIPReportEncoder firmware(double firmware) {
+    long thousandths = Math.round(firmware * 1000);
+    if (!(firmware >= 0) || thousandths >= 128_000) {
+      throw new IllegalArgumentException("Firmware version " + firmware + " is out of range!");
+    }
+    int major = (int) (thousandths / 1000);
+    int fraction = (int) (thousandths % 1000);
+    this.firmware =
+        major << 24 | (fraction / 100) << 16 | (fraction / 10 % 10) << 8 | fraction % 10;
+    return this;
+  }
+
+  /**
+   * Returns the size of the frame {@link #encode(ByteBuffer)} writes with the current fields.
+   *
+   * @return The frame length in bytes.
+   */
+  public int length() {
+    return 6 + serverName.length + 2 + hwId.length + 40 + apId.length;
+  }
+
+  /**
+   * Writes a frame at the current position of a buffer and advances the position past it.
+   *
+   * <p>The bytes are written in network byte order regardless of the order set on the buffer.
+   *
+   * @param target The buffer to write to.
+   * @return The number of bytes written.
+   * @throws BufferOverflowException If the buffer has less than {@link #length()} bytes remaining.
+   */
+  public int encode(ByteBuffer target) {
+    int length = length();
+    if (target.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    target.put(header).put((byte) 1).put((byte) serverName.length).put(serverName);
+    target.put((byte) 2).put((byte) hwId.length).put(hwId);
+    target.put((byte) 3).put((byte) 6);
+    putIntBigEndian(target, (int) (macAddress >>> 16));
+    target.put((byte) (macAddress >>> 8)).put((byte) macAddress);
+    target.put((byte) 4).put((byte) 4);
+    putIntBigEndian(target, Integer.reverseBytes(serialNumber));
+    target.put((byte) 5).put((byte) 4);
+    putIntBigEndian(target, ipAddress);
+    target.put((byte) 6).put((byte) 4);
+    putIntBigEndian(target, netmask);
+    target.put((byte) 7).put((byte) 4);
+    putIntBigEndian(target, gateway);
+    target.put((byte) 8).put((byte) 4);
+    putIntBigEndian(target, Integer.reverseBytes(firmware));
+    target.put((byte) 9).put((byte) apId.length).put(apId);
+    return length;
+  }
+
+  /**
+   * Encodes the current fields into a new array.
+   *
+   * @return The frame.
+   */
+  public byte[] toByteArray() {
+    byte[] frame = new byte[length()];
+    encode(ByteBuffer.wrap(frame));
+    return frame;
+  }
+
+  private static void putIntBigEndian(ByteBuffer target, int value) {
+    target
+        .put((byte) (value >>> 24))
+        .put((byte) (value >>> 16))
+        .put((byte) (value >>> 8))
+        .put((byte) value);
+  }
+
+  private static byte[] lengthChecked(byte[] bytes, int minimum, String field) {
+    if (bytes.length < minimum || bytes.length > Byte.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "The " + field + " must have between " + minimum + " and 127 bytes!");
+    }
+    return bytes;
+  }
+
+  /** Parses a hexadecimal string and reverses the bytes, as they are stored little-endian. */
+  private static byte[] hexLittleEndian(String hex) {
+    if (hex.length() % 2 != 0) {
+      throw new IllegalArgumentException("Hex String " + hex + " must have an even length!");
+    }
+    byte[] bytes = new byte[hex.length() / 2];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[bytes.length - 1 - i] = (byte) Integer.parseInt(hex, i * 2, i * 2 + 2, 16);
+    }
+    return bytes;
+  }
+
+  private static long parseMacAddress(String macAddress) {
+    if (macAddress.length() != 17) {
+      throw new IllegalArgumentException("Invalid MAC address " + macAddress);
+    }
+    long value = 0;
+    for (int i = 0; i < 6; i++) {
+      value = (value << 8) | Integer.parseInt(macAddress, i * 3, i * 3 + 2, 16);
+    }
+    return value;
+  }
+
+  private static int parseIpv4(String ipAddress) {
+    int value = 0;
+    int start = 0;
+    for (int i = 0; i < 4; i++) {
+      int end = i < 3 ? ipAddress.indexOf('.', start) : ipAddress.length();
+      if (end < 0) {
+        throw new IllegalArgumentException("Invalid IPv4 address " + ipAddress);
+      }
+      int octet = Integer.parseInt(ipAddress, start, end, 10);
+      if (octet < 0 || octet > 255) {
+        throw new IllegalArgumentException("Invalid IPv4 address " + ipAddress);
+      }
+      value = (value << 8) | octet;
+      start = end + 1;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,286 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable, lazily decoding flyweight over a raw MOXA IP report frame.
+ *
+ * <p>Unlike {@link MoxaIPReport}, this view does not convert every field into a String up front.
+ * {@link #wrap(ByteBuffer)} only reads the three length prefixes ({@code nameLength}, {@code
+ * hwLength} and {@code apLength}), validates the frame and remembers the resulting offsets. Every
+ * accessor then decodes its field directly from the frame when it is called. The primitive
+ * accessors ({@link #macAddress()}, {@link #ipAddress()}, ...) do not allocate, so a view that is
+ * reused for many packets, e.g. through a {@link MoxaIPReportViewPool}, allocates nothing in the
+ * steady state.
+ *
+ * <p>The view neither copies nor modifies the wrapped frame; the caller must not change the frame
+ * while the view is in use. Instances are not thread-safe.
+ *
+ * @see MoxaIPReportDecoder
+ * @see MoxaFieldFormat
+ */
+public final class MoxaIPReportView {
+  private static final int NAME_OFFSET = 6;
+
+  private ByteBuffer frame;
+  private byte[] wrappedArray;
+  private ByteBuffer wrappedArrayBuffer;
+  private int start;
+  private int nameLength;
+  private int hwOffset;
+  private int hwLength;
+  private int fixedOffset;
+  private int apLength;
+
+  /**
+   * Points this view to a frame stored in a byte array.
+   *
+   * <p>Wrapping the same array again, as a receive loop with a single buffer does, reuses the
+   * internal {@link ByteBuffer} and does not allocate.
+   *
+   * @param frame The array holding the raw report packet, starting at index 0.
+   * @return This view.
+   * @throws IllegalArgumentException If the frame is truncated or contains invalid length fields.
+   */
+  public MoxaIPReportView wrap(byte[] frame) {
+    if (wrappedArray != frame) {
+      wrappedArray = frame;
+      wrappedArrayBuffer = ByteBuffer.wrap(frame);
+    }
+    return wrap(wrappedArrayBuffer);
+  }
+
+  /**
+   * Points this view to the frame between the position and the limit of a buffer.
+   *
+   * @param frame The buffer holding the raw report packet.
+   * @return This view.
+   * @throws IllegalArgumentException If the frame is truncated or contains invalid length fields.
+   */
+  public MoxaIPReportView wrap(ByteBuffer frame) {
+    this.frame = null;
+    int offset = frame.position();
+    int limit = frame.limit();
+    if (offset + NAME_OFFSET > limit) {
+      throw truncated(frame);
+    }
+    int name = lengthPrefix(frame, offset + NAME_OFFSET - 1, "nameLength", 0);
+    int hw = offset + NAME_OFFSET + name + 1;
+    if (hw >= limit) {
+      throw truncated(frame);
+    }
+    int hwBytes = lengthPrefix(frame, hw, "hwLength", 1);
+    int fixed = hw + 1 + hwBytes;
+    if (fixed + 40 > limit) {
+      throw truncated(frame);
+    }
+    int apBytes = lengthPrefix(frame, fixed + 39, "apLength", 1);
+    if (fixed + 40 + apBytes > limit) {
+      throw truncated(frame);
+    }
+
+    this.start = offset;
+    this.nameLength = name;
+    this.hwOffset = hw + 1;
+    this.hwLength = hwBytes;
+    this.fixedOffset = fixed;
+    this.apLength = apBytes;
+    this.frame = frame;
+    return this;
+  }
+
+  /**
+   * Detaches this view from its frame, e.g. before returning it to a pool.
+   *
+   * <p>The wrapper of the last byte array is kept, so that a pooled view which wraps the same
+   * receive buffer again does not allocate.
+   */
+  public void clear() {
+    frame = null;
+  }
+
+  /**
+   * Returns the number of bytes of the wrapped frame covered by the report.
+   *
+   * @return The report length in bytes.
+   */
+  public int length() {
+    checkedFrame();
+    return fixedOffset + 40 + apLength - start;
+  }
+
+  /**
+   * Returns the packet header.
+   *
+   * @return The header, e.g. {@code MOXA}.
+   */
+  public String header() {
+    return ascii(start, 4);
+  }
+
+  /**
+   * Returns the server name.
+   *
+   * @return The server name decoded byte by byte, as the JBBP mapper does.
+   */
+  public String serverName() {
+    return ascii(start + NAME_OFFSET, nameLength);
+  }
+
+  /**
+   * Returns the hardware identifier.
+   *
+   * @return The hardware identifier as little-endian hexadecimal string.
+   */
+  public String hwId() {
+    return hexLittleEndian(hwOffset, hwLength);
+  }
+
+  /**
+   * Returns the MAC address.
+   *
+   * @return The MAC address in the primitive representation of {@link MoxaFieldFormat}.
+   */
+  public long macAddress() {
+    ByteBuffer f = checkedFrame();
+    int offset = fixedOffset + 2;
+    return (Integer.toUnsignedLong(MoxaIPReportDecoder.intBigEndian(f, offset)) << 16)
+        | ((f.get(offset + 4) & 0xFFL) << 8)
+        | (f.get(offset + 5) & 0xFFL);
+  }
+
+  /**
+   * Returns the serial number.
+   *
+   * @return The serial number, stored little-endian in the frame.
+   */
+  public int serialNumber() {
+    return Integer.reverseBytes(bigEndianInt(fixedOffset + 10));
+  }
+
+  /**
+   * Returns the IPv4 address.
+   *
+   * @return The IPv4 address in the primitive representation of {@link MoxaFieldFormat}.
+   */
+  public int ipAddress() {
+    return bigEndianInt(fixedOffset + 16);
+  }
+
+  /**
+   * Returns the IPv4 subnet mask.
+   *
+   * @return The netmask in the primitive representation of {@link MoxaFieldFormat}.
+   */
+  public int netmask() {
+    return bigEndianInt(fixedOffset + 22);
+  }
+
+  /**
+   * Returns the default gateway.
+   *
+   * @return The gateway in the primitive representation of {@link MoxaFieldFormat}.
+   */
+  public int gateway() {
+    return bigEndianInt(fixedOffset + 28);
+  }
+
+  /**
+   * Returns the firmware version.
+   *
+   * @return The firmware version, e.g. {@code 1.4}.
+   * @throws NumberFormatException If the frame contains an invalid firmware version.
+   */
+  public double firmware() {
+    return MoxaFieldFormat.firmware(firmwareVersion());
+  }
+
+  /**
+   * Returns the undecoded firmware version.
+   *
+   * @return The firmware version in the primitive representation of {@link MoxaFieldFormat}.
+   */
+  public int firmwareVersion() {
+    return Integer.reverseBytes(bigEndianInt(fixedOffset + 34));
+  }
+
+  /**
+   * Returns the access point identifier.
+   *
+   * @return The access point identifier as little-endian hexadecimal string.
+   */
+  public String apId() {
+    return hexLittleEndian(fixedOffset + 40, apLength);
+  }
+
+  /**
+   * Decodes all fields into a new {@link MoxaIPReport}.
+   *
+   * @return The fully decoded report.
+   */
+  public MoxaIPReport toReport() {
+    MoxaIPReport report = new MoxaIPReport();
+    report.header = header();
+    report.serverName = serverName();
+    report.hwId = hwId();
+    report.apId = apId();
+    report.macAddress = MoxaFieldFormat.macAddress(macAddress());
+    report.serialNumber = serialNumber();
+    report.ipAddress = MoxaFieldFormat.ipv4(ipAddress());
+    report.netmask = MoxaFieldFormat.ipv4(netmask());
+    report.gateway = MoxaFieldFormat.ipv4(gateway());
+    report.firmware = firmware();
+    return report;
+  }
+
+  /** Returns the wrapped buffer, which holds the frame starting at {@link #offset()}. */
+  ByteBuffer frame() {
+    return checkedFrame();
+  }
+
+  /** Returns the index of the first frame byte within {@link #frame()}. */
+  int offset() {
+    checkedFrame();
+    return start;
+  }
+
+  private ByteBuffer checkedFrame() {
+    if (frame == null) {
+      throw new IllegalStateException("The view does not wrap a frame!");
+    }
+    return frame;
+  }
+
+  private int bigEndianInt(int offset) {
+    return MoxaIPReportDecoder.intBigEndian(checkedFrame(), offset);
+  }
+
+  private String ascii(int offset, int length) {
+    byte[] bytes = new byte[length];
+    checkedFrame().get(offset, bytes);
+    return new String(bytes, StandardCharsets.ISO_8859_1);
+  }
+
+  private String hexLittleEndian(int offset, int length) {
+    ByteBuffer f = checkedFrame();
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = f.get(offset + length - 1 - i);
+    }
+    return MoxaFieldFormat.hex(bytes);
+  }
+
+  private static int lengthPrefix(ByteBuffer frame, int index, String field, int minimum) {
+    int length = frame.get(index);
+    if (length < minimum) {
+      throw new IllegalArgumentException("Invalid " + field + " " + length + " in MOXA report!");
+    }
+    return length;
+  }
+
+  private static IllegalArgumentException truncated(ByteBuffer frame) {
+    return new IllegalArgumentException(
+        "Truncated MOXA report of " + frame.remaining() + " bytes!");
+  }
+}
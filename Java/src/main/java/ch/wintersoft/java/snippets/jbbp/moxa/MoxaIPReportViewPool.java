@@ -0,0 +1,55 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded, thread-safe pool of {@link MoxaIPReportView} instances.
+ *
+ * <p>The pool is backed by an {@link ArrayBlockingQueue}, which does not allocate on {@link
+ * #acquire()} or {@link #release(MoxaIPReportView)}. Once the pool has been filled, decoding
+ * packets through pooled views therefore does not create any garbage for the primitive fields.
+ */
+public class MoxaIPReportViewPool {
+  private final ArrayBlockingQueue<MoxaIPReportView> free;
+
+  /**
+   * Creates a pool and fills it with {@code capacity} views.
+   *
+   * @param capacity The maximum number of idle views kept by the pool.
+   */
+  public MoxaIPReportViewPool(int capacity) {
+    free = new ArrayBlockingQueue<>(capacity);
+    for (int i = 0; i < capacity; i++) {
+      free.offer(new MoxaIPReportView());
+    }
+  }
+
+  /**
+   * Takes an idle view from the pool, or creates a new one if the pool is empty.
+   *
+   * @return A view that does not wrap any frame.
+   */
+  public MoxaIPReportView acquire() {
+    MoxaIPReportView view = free.poll();
+    return view != null ? view : new MoxaIPReportView();
+  }
+
+  /**
+   * Returns a view to the pool. Views exceeding the capacity are left to the garbage collector.
+   *
+   * @param view The view to return; it must not be used by the caller afterwards.
+   */
+  public void release(MoxaIPReportView view) {
+    view.clear();
+    free.offer(view);
+  }
+
+  /**
+   * Returns the number of idle views.
+   *
+   * @return The number of views that can be acquired without allocation.
+   */
+  public int available() {
+    return free.size();
+  }
+}
@@ -0,0 +1,234 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Detects which MOXA IP report frames carry new information.
+ *
+ * <p>Devices re-announce identical reports every few seconds. Instead of decoding every frame, the
+ * detector wraps it in a {@link MoxaIPReportView}, which only reads the length prefixes, extracts
+ * the MAC address and computes a 64-bit fingerprint of the raw frame bytes. Only if the fingerprint
+ * differs from the last one seen for that MAC address is the frame fully decoded and returned.
+ *
+ * <p>The state per device, fingerprint and last-seen timestamp, is kept in an open-addressing table
+ * of primitive arrays keyed by the MAC address, so tracking a device costs 24 bytes and no objects.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * MoxaReportChangeDetector detector = new MoxaReportChangeDetector();
+ * detector.accept(buffer, System.currentTimeMillis()).ifPresent(repository::store);
+ * }</pre>
+ *
+ * <p>Instances are not thread-safe; use one detector per receive thread or synchronize externally.
+ */
+public final class MoxaReportChangeDetector {
+  private static final int DEFAULT_EXPECTED_DEVICES = 1024;
+  private static final long C1 = 0x87C37B91114253D5L;
+  private static final long C2 = 0x4CF5AD432745937FL;
+
+  private final MoxaIPReportView view = new MoxaIPReportView();
+
+  /** MAC address plus one, so that {@code 0} marks a free slot. */
+  private long[] keys;
+
+  private long[] fingerprints;
+  private long[] lastSeen;
+  private int size;
+
+  /** Creates a detector with room for 1024 devices before the table grows. */
+  public MoxaReportChangeDetector() {
+    this(DEFAULT_EXPECTED_DEVICES);
+  }
+
+  /**
+   * Creates a detector.
+   *
+   * @param expectedDevices The number of devices to track without growing the table.
+   */
+  public MoxaReportChangeDetector(int expectedDevices) {
+    if (expectedDevices < 1) {
+      throw new IllegalArgumentException("The expected number of devices must be positive!");
+    }
+    allocate(Integer.highestOneBit(Math.max(2, expectedDevices * 4 / 3) - 1) << 1);
+  }
+
+  /**
+   * Records a frame stored in a byte array.
+   *
+   * @param frame The raw report packet.
+   * @param timestamp The receive time, e.g. in epoch milliseconds.
+   * @return The decoded report if the device is new or its report changed, otherwise empty.
+   * @throws IllegalArgumentException If the frame is not a valid MOXA IP report.
+   */
+  public Optional<MoxaIPReport> accept(byte[] frame, long timestamp) {
+    return accept(view.wrap(frame), timestamp);
+  }
+
+  /**
+   * Records the frame between the position and the limit of a buffer.
+   *
+   * @param frame The buffer holding the raw report packet; its position is not changed.
+   * @param timestamp The receive time, e.g. in epoch milliseconds.
+   * @return The decoded report if the device is new or its report changed, otherwise empty.
+   * @throws IllegalArgumentException If the frame is not a valid MOXA IP report.
+   */
+  public Optional<MoxaIPReport> accept(ByteBuffer frame, long timestamp) {
+    return accept(view.wrap(frame), timestamp);
+  }
+
+  private Optional<MoxaIPReport> accept(MoxaIPReportView wrapped, long timestamp) {
+    try {
+      long key = wrapped.macAddress() + 1;
+      long fingerprint = fingerprint(wrapped.frame(), wrapped.offset(), wrapped.length());
+      int slot = slot(key);
+      if (keys[slot] == key) {
+        lastSeen[slot] = timestamp;
+        if (fingerprints[slot] == fingerprint) {
+          return Optional.empty();
+        }
+        fingerprints[slot] = fingerprint;
+        return Optional.of(wrapped.toReport());
+      }
+      if (size + 1 > keys.length * 3 / 4) {
+        grow();
+        slot = slot(key);
+      }
+      keys[slot] = key;
+      fingerprints[slot] = fingerprint;
+      lastSeen[slot] = timestamp;
+      size++;
+      return Optional.of(wrapped.toReport());
+    } finally {
+      wrapped.clear();
+    }
+  }
+
+  /**
+   * Returns when a device was last seen.
+   *
+   * @param macAddress The MAC address in the primitive representation of {@link MoxaFieldFormat}.
+   * @return The timestamp of the last accepted frame of the device, or empty if it is unknown.
+   */
+  public OptionalLong lastSeen(long macAddress) {
+    int slot = slot(macAddress + 1);
+    return keys[slot] == 0 ? OptionalLong.empty() : OptionalLong.of(lastSeen[slot]);
+  }
+
+  /**
+   * Returns the number of tracked devices.
+   *
+   * @return The number of devices.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Forgets all devices not seen since a point in time, so that their next report is emitted again.
+   *
+   * @param timestamp Devices last seen before this timestamp are removed.
+   * @return The number of removed devices.
+   */
+  public int evictOlderThan(long timestamp) {
+    int removed = 0;
+    int slot = 0;
+    while (slot < keys.length) {
+      if (keys[slot] != 0 && lastSeen[slot] < timestamp) {
+        // the next entry may be shifted into this slot, so look at it again
+        delete(slot);
+        removed++;
+      } else {
+        slot++;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Computes a 64-bit fingerprint of a byte range, mixing eight bytes at a time as MurmurHash3
+   * does. The result does not depend on the byte order set on the buffer.
+   */
+  static long fingerprint(ByteBuffer frame, int offset, int length) {
+    boolean bigEndian = frame.order() == ByteOrder.BIG_ENDIAN;
+    long hash = length;
+    int end = offset + (length & ~7);
+    for (int i = offset; i < end; i += 8) {
+      long word = frame.getLong(i);
+      hash ^= mixWord(bigEndian ? word : Long.reverseBytes(word));
+      hash = Long.rotateLeft(hash, 27) * 5 + 0x52DCE729;
+    }
+    long tail = 0;
+    for (int i = end; i < offset + length; i++) {
+      tail = (tail << 8) | (frame.get(i) & 0xFF);
+    }
+    hash ^= mixWord(tail);
+    return finalizeHash(hash ^ length);
+  }
+
+  private static long mixWord(long word) {
+    return Long.rotateLeft(word * C1, 31) * C2;
+  }
+
+  private static long finalizeHash(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    return hash ^ (hash >>> 33);
+  }
+
+  /** Returns the slot holding the key, or the free slot where it belongs. */
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    int slot = (int) finalizeHash(key) & mask;
+    while (keys[slot] != 0 && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /** Removes an entry and shifts following entries of the same probe sequence backwards. */
+  private void delete(int slot) {
+    int mask = keys.length - 1;
+    int free = slot;
+    int next = (free + 1) & mask;
+    while (keys[next] != 0) {
+      int home = (int) finalizeHash(keys[next]) & mask;
+      // move the entry if its home slot is not between the free slot and its current slot
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        fingerprints[free] = fingerprints[next];
+        lastSeen[free] = lastSeen[next];
+        free = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[free] = 0;
+    size--;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    long[] oldFingerprints = fingerprints;
+    long[] oldLastSeen = lastSeen;
+    allocate(oldKeys.length * 2);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        fingerprints[slot] = oldFingerprints[i];
+        lastSeen[slot] = oldLastSeen[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    fingerprints = new long[capacity];
+    lastSeen = new long[capacity];
+  }
+}
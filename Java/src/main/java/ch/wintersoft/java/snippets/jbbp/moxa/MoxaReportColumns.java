@@ -0,0 +1,177 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+/**
+ * Column-oriented storage of many decoded MOXA IP reports.
+ *
+ * <p>Instead of one {@link MoxaIPReport} object per frame, every fixed-size field is kept in its
+ * own primitive array, indexed by the position of the frame in the capture. Scanning a single
+ * column, e.g. all IP addresses, therefore touches one contiguous array and allocates nothing. The
+ * values use the primitive representations documented in {@link MoxaFieldFormat}.
+ *
+ * <p>The accessors returning arrays expose the internal storage to avoid copying millions of
+ * values; callers must not modify them. Entries of malformed frames are {@code 0}.
+ *
+ * @see MoxaCaptureDecoder
+ */
+public final class MoxaReportColumns {
+  private final int[] frameOffsets;
+  private final int[] frameLengths;
+  private final boolean[] malformed;
+  private final long[] macAddresses;
+  private final int[] serialNumbers;
+  private final int[] ipAddresses;
+  private final int[] netmasks;
+  private final int[] gateways;
+  private final int[] firmwares;
+
+  MoxaReportColumns(int[] frameOffsets, int[] frameLengths) {
+    int size = frameOffsets.length;
+    this.frameOffsets = frameOffsets;
+    this.frameLengths = frameLengths;
+    this.malformed = new boolean[size];
+    this.macAddresses = new long[size];
+    this.serialNumbers = new int[size];
+    this.ipAddresses = new int[size];
+    this.netmasks = new int[size];
+    this.gateways = new int[size];
+    this.firmwares = new int[size];
+  }
+
+  /** Stores the fields of the frame at {@code index}, read from a view wrapping that frame. */
+  void set(int index, MoxaIPReportView view) {
+    macAddresses[index] = view.macAddress();
+    serialNumbers[index] = view.serialNumber();
+    ipAddresses[index] = view.ipAddress();
+    netmasks[index] = view.netmask();
+    gateways[index] = view.gateway();
+    firmwares[index] = view.firmwareVersion();
+  }
+
+  void setMalformed(int index) {
+    malformed[index] = true;
+  }
+
+  /**
+   * Returns the number of frames in the capture, including malformed ones.
+   *
+   * @return The number of rows.
+   */
+  public int size() {
+    return frameOffsets.length;
+  }
+
+  /**
+   * Returns whether the frame at an index could not be decoded.
+   *
+   * @param index The frame index.
+   * @return {@code true} if the frame is not a valid MOXA IP report.
+   */
+  public boolean isMalformed(int index) {
+    return malformed[index];
+  }
+
+  /**
+   * Returns the number of frames that could not be decoded.
+   *
+   * @return The number of malformed frames.
+   */
+  public int malformedCount() {
+    int count = 0;
+    for (boolean m : malformed) {
+      if (m) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the offset of each frame within the capture file, after its length prefix.
+   *
+   * @return The frame offsets.
+   */
+  public int[] frameOffsets() {
+    return frameOffsets;
+  }
+
+  /**
+   * Returns the length of each frame.
+   *
+   * @return The frame lengths in bytes.
+   */
+  public int[] frameLengths() {
+    return frameLengths;
+  }
+
+  /**
+   * Returns the MAC addresses.
+   *
+   * @return The MAC addresses, see {@link MoxaFieldFormat#macAddress(long)}.
+   */
+  public long[] macAddresses() {
+    return macAddresses;
+  }
+
+  /**
+   * Returns the serial numbers.
+   *
+   * @return The serial numbers.
+   */
+  public int[] serialNumbers() {
+    return serialNumbers;
+  }
+
+  /**
+   * Returns the IPv4 addresses.
+   *
+   * @return The IPv4 addresses, see {@link MoxaFieldFormat#ipv4(int)}.
+   */
+  public int[] ipAddresses() {
+    return ipAddresses;
+  }
+
+  /**
+   * Returns the netmasks.
+   *
+   * @return The netmasks, see {@link MoxaFieldFormat#ipv4(int)}.
+   */
+  public int[] netmasks() {
+    return netmasks;
+  }
+
+  /**
+   * Returns the gateways.
+   *
+   * @return The gateways, see {@link MoxaFieldFormat#ipv4(int)}.
+   */
+  public int[] gateways() {
+    return gateways;
+  }
+
+  /**
+   * Returns the raw firmware versions.
+   *
+   * @return The firmware versions, see {@link MoxaFieldFormat#firmware(int)}.
+   */
+  public int[] firmwares() {
+    return firmwares;
+  }
+
+  /**
+   * Counts the valid reports whose IP address lies in a subnet.
+   *
+   * @param network The network address in its primitive representation.
+   * @param netmask The netmask of the subnet, e.g. {@code 0xFFFFFF00} for a /24 network.
+   * @return The number of matching reports.
+   */
+  public int countInSubnet(int network, int netmask) {
+    int count = 0;
+    int prefix = network & netmask;
+    for (int i = 0; i < ipAddresses.length; i++) {
+      if (!malformed[i] && (ipAddresses[i] & netmask) == prefix) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,207 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The attributes of one filesystem entry as seen by the rules of a {@link FileAuditVisitor}.
+ *
+ * <p>The basic attributes are the ones passed in by the file tree walk and cost nothing extra. The
+ * owner, group and mode are read at most once per entry, and only if a rule {@link
+ * FileAuditRule#needsOwnerAttributes() needs them} or a finding has to name its owner. On file
+ * systems with a {@code unix} attribute view they are read as numeric ids and names are resolved
+ * through a shared cache; otherwise the {@code posix} view is used.
+ *
+ * <p>Accessors that have to read the file system throw an {@link UncheckedIOException}, which the
+ * visitor reports like an entry that could not be visited.
+ */
+public final class AuditedFile {
+  private static final String UNIX_ATTRIBUTES = "unix:uid,gid,mode";
+  private static final PosixFilePermission[] PERMISSION_BITS = {
+    PosixFilePermission.OTHERS_EXECUTE,
+    PosixFilePermission.OTHERS_WRITE,
+    PosixFilePermission.OTHERS_READ,
+    PosixFilePermission.GROUP_EXECUTE,
+    PosixFilePermission.GROUP_WRITE,
+    PosixFilePermission.GROUP_READ,
+    PosixFilePermission.OWNER_EXECUTE,
+    PosixFilePermission.OWNER_WRITE,
+    PosixFilePermission.OWNER_READ
+  };
+
+  private final Path path;
+  private final BasicFileAttributes attrs;
+  private final FileAuditVisitor visitor;
+  private Map<String, Object> unix;
+  private PosixFileAttributes posix;
+
+  AuditedFile(Path path, BasicFileAttributes attrs, FileAuditVisitor visitor) {
+    this.path = path;
+    this.attrs = attrs;
+    this.visitor = visitor;
+  }
+
+  /**
+   * Returns the path of the entry.
+   *
+   * @return The path as passed by the walk.
+   */
+  public Path path() {
+    return path;
+  }
+
+  /**
+   * Returns the basic attributes of the entry.
+   *
+   * @return The attributes read by the walk, without following symbolic links.
+   */
+  public BasicFileAttributes attributes() {
+    return attrs;
+  }
+
+  /**
+   * Returns the type of the entry.
+   *
+   * @return The {@link FileType} derived from the basic attributes.
+   */
+  public FileType type() {
+    return FileType.of(attrs);
+  }
+
+  /**
+   * Returns the size of the entry.
+   *
+   * @return The size in bytes.
+   */
+  public long size() {
+    return attrs.size();
+  }
+
+  /**
+   * Returns the last modification time of the entry.
+   *
+   * @return The modification time.
+   */
+  public FileTime lastModifiedTime() {
+    return attrs.lastModifiedTime();
+  }
+
+  /**
+   * Returns the name of the owner.
+   *
+   * @return The user name.
+   */
+  public String owner() {
+    try {
+      readOwnerAttributes();
+      if (unix != null) {
+        return visitor.ownerNames.name((Integer) unix.get("uid"), path, LinkOption.NOFOLLOW_LINKS);
+      }
+      if (posix != null) {
+        return posix.owner().getName();
+      }
+      return Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).getName();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the name of the group.
+   *
+   * @return The group name.
+   * @throws UnsupportedOperationException If the file system has no posix attributes.
+   */
+  public String group() {
+    try {
+      readOwnerAttributes();
+      if (unix != null) {
+        return visitor.ownerNames.group((Integer) unix.get("gid"), path, LinkOption.NOFOLLOW_LINKS);
+      }
+      return posix().group().getName();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the permission bits of the mode, e.g. {@code 0755}.
+   *
+   * @return The permission bits, without the file type, setuid, setgid and sticky bits.
+   * @throws UnsupportedOperationException If the file system has no posix attributes.
+   */
+  public int mode() {
+    readOwnerAttributes();
+    if (unix != null) {
+      return (Integer) unix.get("mode") & 0777;
+    }
+    int mode = 0;
+    Set<PosixFilePermission> permissions = posix().permissions();
+    for (int bit = 0; bit < PERMISSION_BITS.length; bit++) {
+      if (permissions.contains(PERMISSION_BITS[bit])) {
+        mode |= 1 << bit;
+      }
+    }
+    return mode;
+  }
+
+  /**
+   * Returns the permissions.
+   *
+   * @return The permissions derived from the mode.
+   * @throws UnsupportedOperationException If the file system has no posix attributes.
+   */
+  public Set<PosixFilePermission> permissions() {
+    int mode = mode();
+    Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+    for (int bit = 0; bit < PERMISSION_BITS.length; bit++) {
+      if ((mode & (1 << bit)) != 0) {
+        permissions.add(PERMISSION_BITS[bit]);
+      }
+    }
+    return permissions;
+  }
+
+  /** Reads owner, group and mode once, with a single call to the file system. */
+  void readOwnerAttributes() {
+    if (unix != null || posix != null) {
+      return;
+    }
+    try {
+      if (visitor.unixSupported) {
+        try {
+          unix = Files.readAttributes(path, UNIX_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+          return;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+          visitor.unixSupported = false;
+        }
+      }
+      if (visitor.posixSupported) {
+        try {
+          posix = Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (UnsupportedOperationException e) {
+          visitor.posixSupported = false;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private PosixFileAttributes posix() {
+    if (posix == null) {
+      throw new UnsupportedOperationException("No posix attributes available for " + path);
+    }
+    return posix;
+  }
+}
@@ -0,0 +1,165 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The persisted state of all directories seen by an {@link IncrementalFileOwnershipScanner}.
+ *
+ * <p>Directories are keyed by a 64-bit hash of their path. For every directory the index keeps its
+ * modification and change time, the names of its subdirectories and the findings of its other
+ * entries, with names relative to the directory. The file is a compact binary stream:
+ *
+ * <pre>
+ * int magic "FOIX"; int version; UTF fileOwner; int count;
+ * count * { long pathHash; long mtime; long ctime; int subdirs; UTF[subdirs] names;
+ *           int findings; findings * { UTF name; UTF owner; byte type; UTF problem or "" } }
+ * </pre>
+ */
+final class DirectoryIndex {
+  private static final int MAGIC = 0x464F4958; // "FOIX"
+  private static final int FORMAT_VERSION = 1;
+
+  /** Collections are grown beyond this size as needed, so a garbled count cannot exhaust memory. */
+  private static final int MAX_PREALLOCATED = 1024;
+
+  /**
+   * The state of one directory.
+   *
+   * @param mtime The modification time in nanoseconds.
+   * @param ctime The change time in nanoseconds, or the modification time if not available.
+   * @param subdirectories The names of the subdirectories.
+   * @param findings The findings of all other entries, with the entry name as path.
+   */
+  record Entry(long mtime, long ctime, List<String> subdirectories, List<FileEntry> findings) {}
+
+  private final String fileOwner;
+  private final Map<Long, Entry> entries;
+
+  DirectoryIndex(String fileOwner) {
+    this(fileOwner, new HashMap<>());
+  }
+
+  private DirectoryIndex(String fileOwner, Map<Long, Entry> entries) {
+    this.fileOwner = fileOwner;
+    this.entries = entries;
+  }
+
+  Entry get(Path dir) {
+    return entries.get(hash(dir));
+  }
+
+  void put(Path dir, Entry entry) {
+    entries.put(hash(dir), entry);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Loads an index.
+   *
+   * @return The index, or an empty index if the file is missing, corrupt or was written for another
+   *     owner.
+   */
+  static DirectoryIndex load(Path file, String fileOwner) throws IOException {
+    if (!Files.exists(file)) {
+      return new DirectoryIndex(fileOwner);
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC
+          || in.readInt() != FORMAT_VERSION
+          || !in.readUTF().equals(fileOwner)) {
+        return new DirectoryIndex(fileOwner);
+      }
+      int count = in.readInt();
+      Map<Long, Entry> entries = HashMap.newHashMap(Math.min(count, MAX_PREALLOCATED));
+      for (int i = 0; i < count; i++) {
+        long hash = in.readLong();
+        long mtime = in.readLong();
+        long ctime = in.readLong();
+        int subdirectoryCount = in.readInt();
+        List<String> subdirectories =
+            new ArrayList<>(Math.min(subdirectoryCount, MAX_PREALLOCATED));
+        for (int s = 0; s < subdirectoryCount; s++) {
+          subdirectories.add(in.readUTF());
+        }
+        int findingCount = in.readInt();
+        List<FileEntry> findings = new ArrayList<>(Math.min(findingCount, MAX_PREALLOCATED));
+        for (int f = 0; f < findingCount; f++) {
+          String name = in.readUTF();
+          String owner = in.readUTF();
+          FileType type = FileType.values()[in.readByte()];
+          String problem = in.readUTF();
+          findings.add(
+              new FileEntry(
+                  name, owner, type, problem.isEmpty() ? Optional.empty() : Optional.of(problem)));
+        }
+        entries.put(hash, new Entry(mtime, ctime, subdirectories, findings));
+      }
+      return new DirectoryIndex(fileOwner, entries);
+    } catch (EOFException
+        | UTFDataFormatException
+        | IllegalArgumentException
+        | ArrayIndexOutOfBoundsException e) {
+      // a torn or foreign file only costs one full scan
+      return new DirectoryIndex(fileOwner);
+    }
+  }
+
+  /** Writes the index to a temporary file and atomically replaces the old one. */
+  void save(Path file) throws IOException {
+    Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(fileOwner);
+      out.writeInt(entries.size());
+      for (Map.Entry<Long, Entry> e : entries.entrySet()) {
+        Entry entry = e.getValue();
+        out.writeLong(e.getKey());
+        out.writeLong(entry.mtime());
+        out.writeLong(entry.ctime());
+        out.writeInt(entry.subdirectories().size());
+        for (String name : entry.subdirectories()) {
+          out.writeUTF(name);
+        }
+        out.writeInt(entry.findings().size());
+        for (FileEntry finding : entry.findings()) {
+          out.writeUTF(finding.path());
+          out.writeUTF(finding.owner());
+          out.writeByte(finding.type().ordinal());
+          out.writeUTF(finding.problem().orElse(""));
+        }
+      }
+    }
+    Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /** Returns the 64-bit FNV-1a hash of the path string. */
+  static long hash(Path path) {
+    String s = path.toString();
+    long hash = 0xCBF29CE484222325L;
+    for (int i = 0; i < s.length(); i++) {
+      hash ^= s.charAt(i);
+      hash *= 0x100000001B3L;
+    }
+    return hash;
+  }
+}
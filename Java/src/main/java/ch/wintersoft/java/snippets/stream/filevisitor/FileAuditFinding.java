@@ -0,0 +1,10 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+/**
+ * A filesystem entry matched by a {@link FileAuditRule} of a {@link FileAuditVisitor}.
+ *
+ * @param rule The tag of the matching rule, or {@link FileAuditVisitor#UNREADABLE} for an entry
+ *     that could not be visited.
+ * @param entry The matched entry, with the problem set if it could not be visited.
+ */
+public record FileAuditFinding(String rule, FileEntry entry) {}
@@ -0,0 +1,152 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A named check evaluated by a {@link FileAuditVisitor} for every entry of a file tree.
+ *
+ * <p>Each rule declares whether it needs the owner, group or mode of an entry. If none of the rules
+ * of a visitor does, the visitor only uses the basic attributes passed in by the walk and makes no
+ * additional file system call for entries that do not match.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * List<FileAuditRule> rules =
+ *     List.of(
+ *         FileAuditRule.ownerIsNot("foreign-owner", "alice"),
+ *         FileAuditRule.worldWritable("world-writable"),
+ *         FileAuditRule.largerThan("large", 1L << 30));
+ * FileAuditVisitor visitor = new FileAuditVisitor(rules);
+ * Files.walkFileTree(Path.of("/srv"), visitor);
+ * }</pre>
+ */
+public final class FileAuditRule {
+  private final String tag;
+  private final boolean needsOwnerAttributes;
+  private final Predicate<AuditedFile> predicate;
+
+  private FileAuditRule(
+      String tag, boolean needsOwnerAttributes, Predicate<AuditedFile> predicate) {
+    this.tag = Objects.requireNonNull(tag);
+    this.needsOwnerAttributes = needsOwnerAttributes;
+    this.predicate = Objects.requireNonNull(predicate);
+  }
+
+  /**
+   * Creates a rule from a predicate.
+   *
+   * @param tag The tag of the findings of this rule.
+   * @param needsOwnerAttributes Whether the predicate uses the owner, group or mode.
+   * @param predicate The predicate returning {@code true} for entries to report.
+   * @return The rule.
+   */
+  public static FileAuditRule of(
+      String tag, boolean needsOwnerAttributes, Predicate<AuditedFile> predicate) {
+    return new FileAuditRule(tag, needsOwnerAttributes, predicate);
+  }
+
+  /**
+   * Creates a rule reporting entries not owned by a user, like {@link FileOwnershipVisitor}.
+   *
+   * @param tag The tag of the findings of this rule.
+   * @param owner The name of the expected owner.
+   * @return The rule.
+   */
+  public static FileAuditRule ownerIsNot(String tag, String owner) {
+    return new FileAuditRule(tag, true, file -> !file.owner().equals(owner));
+  }
+
+  /**
+   * Creates a rule reporting entries not belonging to a group.
+   *
+   * @param tag The tag of the findings of this rule.
+   * @param group The name of the expected group.
+   * @return The rule.
+   */
+  public static FileAuditRule groupIsNot(String tag, String group) {
+    return new FileAuditRule(tag, true, file -> !file.group().equals(group));
+  }
+
+  /**
+   * Creates a rule reporting entries with any of the given permissions.
+   *
+   * @param tag The tag of the findings of this rule.
+   * @param permissions The permissions that should not be granted.
+   * @return The rule.
+   */
+  public static FileAuditRule anyPermission(String tag, Set<PosixFilePermission> permissions) {
+    if (permissions.isEmpty()) {
+      throw new IllegalArgumentException("At least one permission must be given!");
+    }
+    Set<PosixFilePermission> forbidden = EnumSet.copyOf(permissions);
+    return new FileAuditRule(
+        tag,
+        true,
+        file ->
+            file.type() != FileType.SYMLINK
+                && file.permissions().stream().anyMatch(forbidden::contains));
+  }
+
+  /**
+   * Creates a rule reporting entries that everybody may write. Symbolic links are ignored, as their
+   * own permissions are not used.
+   *
+   * @param tag The tag of the findings of this rule.
+   * @return The rule.
+   */
+  public static FileAuditRule worldWritable(String tag) {
+    return new FileAuditRule(
+        tag, true, file -> file.type() != FileType.SYMLINK && (file.mode() & 0002) != 0);
+  }
+
+  /**
+   * Creates a rule reporting entries larger than a size.
+   *
+   * @param tag The tag of the findings of this rule.
+   * @param bytes The largest size not reported.
+   * @return The rule.
+   */
+  public static FileAuditRule largerThan(String tag, long bytes) {
+    return new FileAuditRule(tag, false, file -> file.size() > bytes);
+  }
+
+  /**
+   * Creates a rule reporting entries last modified before a point in time.
+   *
+   * @param tag The tag of the findings of this rule.
+   * @param cutoff The earliest modification time not reported.
+   * @return The rule.
+   */
+  public static FileAuditRule modifiedBefore(String tag, Instant cutoff) {
+    return new FileAuditRule(
+        tag, false, file -> file.lastModifiedTime().toInstant().isBefore(cutoff));
+  }
+
+  /**
+   * Returns the tag of the findings of this rule.
+   *
+   * @return The tag.
+   */
+  public String tag() {
+    return tag;
+  }
+
+  /**
+   * Returns whether the rule uses the owner, group or mode of an entry.
+   *
+   * @return {@code true} if these attributes have to be read for every entry.
+   */
+  public boolean needsOwnerAttributes() {
+    return needsOwnerAttributes;
+  }
+
+  boolean test(AuditedFile file) {
+    return predicate.test(file);
+  }
+}
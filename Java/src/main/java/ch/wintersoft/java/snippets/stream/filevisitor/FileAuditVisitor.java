@@ -0,0 +1,175 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * A {@link SimpleFileVisitor} evaluating many {@link FileAuditRule rules} in a single walk of a
+ * file tree.
+ *
+ * <p>Where {@link FileOwnershipVisitor} answers one question per walk, this visitor checks every
+ * entry against all of its rules and reports a {@link FileAuditFinding} per matching rule, tagged
+ * with the rule. Each entry is examined once:
+ *
+ * <ul>
+ *   <li>the basic attributes passed in by the walk serve the size, time and type checks
+ *   <li>owner, group and mode are read with one additional call, and only if a rule needs them or a
+ *       matching entry has to name its owner
+ *   <li>owner and group names are resolved once per numeric id
+ * </ul>
+ *
+ * <p>Entries that cannot be visited are reported once with the tag {@link #UNREADABLE}, and the
+ * walk continues. Findings are collected in a list unless a sink is passed to {@link
+ * #FileAuditVisitor(List, Consumer)}.
+ */
+public class FileAuditVisitor extends SimpleFileVisitor<Path> {
+  /** The tag of findings for entries that could not be visited. */
+  public static final String UNREADABLE = "unreadable";
+
+  final OwnerNameCache ownerNames = new OwnerNameCache();
+  boolean unixSupported = true;
+  boolean posixSupported = true;
+
+  private final FileAuditRule[] rules;
+  private final boolean needsOwnerAttributes;
+  private final List<FileAuditFinding> findings = new ArrayList<>();
+  private final Consumer<FileAuditFinding> sink;
+
+  /**
+   * Constructs a visitor collecting its findings.
+   *
+   * @param rules The rules evaluated for every entry.
+   */
+  public FileAuditVisitor(List<FileAuditRule> rules) {
+    this(rules, null);
+  }
+
+  /**
+   * Constructs a visitor passing every finding to a sink instead of collecting it.
+   *
+   * @param rules The rules evaluated for every entry.
+   * @param sink The consumer receiving each finding as soon as it is found, or {@code null} to
+   *     collect the findings.
+   */
+  public FileAuditVisitor(List<FileAuditRule> rules, Consumer<FileAuditFinding> sink) {
+    if (rules.isEmpty()) {
+      throw new IllegalArgumentException("At least one rule must be given!");
+    }
+    this.rules = rules.toArray(FileAuditRule[]::new);
+    this.needsOwnerAttributes = rules.stream().anyMatch(FileAuditRule::needsOwnerAttributes);
+    this.sink = sink == null ? findings::add : sink;
+  }
+
+  /**
+   * Retrieves the collected findings.
+   *
+   * @return A non-null list of {@link FileAuditFinding} objects, which stays empty if the visitor
+   *     was created with a sink.
+   */
+  public List<FileAuditFinding> getFindings() {
+    return findings;
+  }
+
+  /**
+   * Invoked for a directory before entries in the directory are visited.
+   *
+   * @param dir A reference to the directory.
+   * @param attrs The directory's basic attributes.
+   * @return {@link FileVisitResult#CONTINUE} to proceed with the walk.
+   */
+  @Override
+  @NonNull
+  public FileVisitResult preVisitDirectory(@NonNull Path dir, @NonNull BasicFileAttributes attrs) {
+    audit(dir, attrs);
+    return FileVisitResult.CONTINUE;
+  }
+
+  /**
+   * Invoked for a file in a directory.
+   *
+   * @param file A reference to the file.
+   * @param attrs The file's basic attributes.
+   * @return {@link FileVisitResult#CONTINUE} to proceed with the walk.
+   */
+  @Override
+  @NonNull
+  public FileVisitResult visitFile(@NonNull Path file, @NonNull BasicFileAttributes attrs) {
+    audit(file, attrs);
+    return FileVisitResult.CONTINUE;
+  }
+
+  /**
+   * Invoked for a file or directory that could not be visited. Reports it once as {@link
+   * #UNREADABLE}, independent of the rules.
+   *
+   * @param file A reference to the file.
+   * @param exc The I/O exception that prevented the visit.
+   * @return {@link FileVisitResult#CONTINUE} to attempt visiting other files.
+   */
+  @Override
+  @NonNull
+  public FileVisitResult visitFileFailed(@NonNull Path file, @NonNull IOException exc) {
+    reportFailure(
+        file,
+        Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS) ? FileType.DIRECTORY : FileType.FILE,
+        exc);
+    return FileVisitResult.CONTINUE;
+  }
+
+  /** Evaluates all rules and reports one finding per matching rule. */
+  private void audit(Path path, BasicFileAttributes attrs) {
+    AuditedFile file = new AuditedFile(path, attrs, this);
+    try {
+      if (needsOwnerAttributes) {
+        file.readOwnerAttributes();
+      }
+      String owner = null;
+      for (FileAuditRule rule : rules) {
+        if (rule.test(file)) {
+          if (owner == null) {
+            owner = file.owner();
+          }
+          sink.accept(
+              new FileAuditFinding(
+                  rule.tag(),
+                  new FileEntry(path.toString(), owner, FileType.of(attrs), Optional.empty())));
+        }
+      }
+    } catch (UncheckedIOException e) {
+      reportFailure(path, FileType.of(attrs), e.getCause());
+    }
+  }
+
+  private void reportFailure(Path path, FileType type, IOException exc) {
+    String owner;
+    try {
+      owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).getName();
+    } catch (IOException e) {
+      owner = "Unknown";
+    }
+    sink.accept(
+        new FileAuditFinding(
+            UNREADABLE,
+            new FileEntry(
+                path.toString(),
+                owner,
+                type,
+                Optional.of(
+                    exc instanceof AccessDeniedException
+                        ? "Access Denied"
+                        : Objects.requireNonNullElse(exc.getMessage(), exc.toString())))));
+  }
+}
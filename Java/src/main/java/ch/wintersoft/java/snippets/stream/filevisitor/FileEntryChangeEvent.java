@@ -0,0 +1,12 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+/**
+ * An immutable change notification published by {@link FileOwnershipMonitor}.
+ *
+ * @param type The kind of change, see {@link FileEntryChangeType}.
+ * @param entry The entry as found after the change, or the last reported entry for a {@link
+ *     FileEntryChangeType#RESOLVED}.
+ * @param previous The entry reported before the change, or {@code null} for {@link
+ *     FileEntryChangeType#FOUND}.
+ */
+public record FileEntryChangeEvent(FileEntryChangeType type, FileEntry entry, FileEntry previous) {}
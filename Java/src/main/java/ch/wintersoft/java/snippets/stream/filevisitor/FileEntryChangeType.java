@@ -0,0 +1,14 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+/**
+ * Describes how the findings of a {@link FileOwnershipMonitor} changed when a {@link
+ * FileEntryChangeEvent} was published.
+ */
+public enum FileEntryChangeType {
+  /** An entry not owned by the user appeared, or an entry could no longer be accessed. */
+  FOUND,
+  /** A reported entry is still not owned by the user, but its owner, type or problem changed. */
+  CHANGED,
+  /** A reported entry was deleted or is now owned by the user. */
+  RESOLVED
+}
@@ -0,0 +1,373 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a file written by {@link FileEntryWriter} through memory-mapped I/O.
+ *
+ * <p>Only the footer with the dictionaries and the block index is decoded when the file is opened.
+ * Entries are decoded on demand:
+ *
+ * <ul>
+ *   <li>{@link #get(long)} decodes at most one block of front-coded paths
+ *   <li>{@link #stream()} decodes entries lazily and splits by blocks for parallel streams
+ *   <li>{@link #filter(Predicate, Set)} evaluates the owner filter once per dictionary entry and
+ *       skips non-matching entries without creating a String or {@link FileEntry} for them
+ * </ul>
+ *
+ * <p>Files larger than 2 GiB are mapped in several regions, each holding whole blocks. The reader
+ * only uses absolute reads on the mapped buffers, so it can be used from several threads.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * try (FileEntryReader reader = FileEntryReader.open(Path.of("scan.febx"))) {
+ *   reader.filter(owner -> owner.equals("root"), Set.of(FileType.FILE)).forEach(System.out::println);
+ * }
+ * }</pre>
+ */
+public final class FileEntryReader implements Closeable {
+  private static final long MAX_REGION_SIZE = 1L << 30;
+  private static final FileType[] TYPES = FileType.values();
+
+  private final FileChannel channel;
+  private final List<String> owners;
+  private final List<String> problems;
+  private final long[] blockOffsets;
+  private final long entries;
+  private final ByteBuffer[] regions;
+  private final long[] regionOffsets;
+  private final int[] blockRegions;
+
+  private FileEntryReader(
+      FileChannel channel,
+      List<String> owners,
+      List<String> problems,
+      long[] blockOffsets,
+      long entries,
+      long recordsEnd)
+      throws IOException {
+    this.channel = channel;
+    this.owners = owners;
+    this.problems = problems;
+    this.blockOffsets = blockOffsets;
+    this.entries = entries;
+
+    // group whole blocks into regions small enough for a MappedByteBuffer
+    List<ByteBuffer> mapped = new ArrayList<>();
+    List<Long> starts = new ArrayList<>();
+    blockRegions = new int[blockOffsets.length];
+    int first = 0;
+    while (first < blockOffsets.length) {
+      long start = blockOffsets[first];
+      int last = first;
+      while (last + 1 < blockOffsets.length
+          && blockEnd(last + 1, recordsEnd) - start <= MAX_REGION_SIZE) {
+        last++;
+      }
+      mapped.add(
+          channel.map(FileChannel.MapMode.READ_ONLY, start, blockEnd(last, recordsEnd) - start));
+      starts.add(start);
+      Arrays.fill(blockRegions, first, last + 1, mapped.size() - 1);
+      first = last + 1;
+    }
+    regions = mapped.toArray(ByteBuffer[]::new);
+    regionOffsets = starts.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  /**
+   * Opens an export file and reads its footer.
+   *
+   * @param file The file written by {@link FileEntryWriter}.
+   * @return The reader.
+   * @throws IOException If the file cannot be read or is not a complete export.
+   */
+  public static FileEntryReader open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      if (size < FileEntryWriter.HEADER_SIZE + FileEntryWriter.TRAILER_SIZE) {
+        throw new IOException(file + " is not a FileEntry export");
+      }
+      ByteBuffer header =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, FileEntryWriter.HEADER_SIZE);
+      ByteBuffer trailer =
+          channel.map(
+              FileChannel.MapMode.READ_ONLY,
+              size - FileEntryWriter.TRAILER_SIZE,
+              FileEntryWriter.TRAILER_SIZE);
+      long footerOffset = trailer.getLong(0);
+      if (header.getInt(0) != FileEntryWriter.MAGIC
+          || header.getInt(4) != FileEntryWriter.FORMAT_VERSION
+          || trailer.getInt(8) != FileEntryWriter.MAGIC
+          || footerOffset < FileEntryWriter.HEADER_SIZE
+          || footerOffset > size - FileEntryWriter.TRAILER_SIZE) {
+        throw new IOException(file + " is not a complete FileEntry export");
+      }
+      ByteBuffer footer =
+          channel.map(
+              FileChannel.MapMode.READ_ONLY,
+              footerOffset,
+              size - FileEntryWriter.TRAILER_SIZE - footerOffset);
+      Cursor cursor = new Cursor(footer, 0);
+      List<String> owners = cursor.readStrings();
+      List<String> problems = cursor.readStrings();
+      long[] blockOffsets = new long[(int) cursor.readVarint()];
+      for (int i = 0; i < blockOffsets.length; i++) {
+        blockOffsets[i] = footer.getLong(cursor.position);
+        cursor.position += 8;
+      }
+      long entries = footer.getLong(cursor.position);
+      return new FileEntryReader(channel, owners, problems, blockOffsets, entries, footerOffset);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      if (e instanceof IOException io) {
+        throw io;
+      }
+      throw new IOException(file + " is a corrupt FileEntry export", e);
+    }
+  }
+
+  /**
+   * Returns the number of entries.
+   *
+   * @return The entry count.
+   */
+  public long size() {
+    return entries;
+  }
+
+  /**
+   * Returns the owner dictionary.
+   *
+   * @return The distinct owner names in order of first appearance.
+   */
+  public List<String> owners() {
+    return owners;
+  }
+
+  /**
+   * Decodes a single entry.
+   *
+   * @param index The index of the entry in write order.
+   * @return The entry.
+   * @throws IndexOutOfBoundsException If the index is negative or not less than {@link #size()}.
+   */
+  public FileEntry get(long index) {
+    if (index < 0 || index >= entries) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + entries);
+    }
+    int block = (int) (index / FileEntryWriter.BLOCK_SIZE);
+    Cursor cursor = cursor(block);
+    for (long i = (long) block * FileEntryWriter.BLOCK_SIZE; i < index; i++) {
+      cursor.next();
+    }
+    cursor.next();
+    return entry(cursor);
+  }
+
+  /**
+   * Streams all entries in write order.
+   *
+   * @return A lazily decoding stream, which can be parallelized.
+   */
+  public Stream<FileEntry> stream() {
+    return filter(owner -> true, Set.of(TYPES));
+  }
+
+  /**
+   * Streams the entries with matching owner and type in write order.
+   *
+   * @param ownerFilter The predicate selecting owner names, evaluated once per distinct owner.
+   * @param types The types to include.
+   * @return A lazily decoding stream, which can be parallelized.
+   */
+  public Stream<FileEntry> filter(Predicate<String> ownerFilter, Set<FileType> types) {
+    boolean[] ownerMatches = new boolean[owners.size()];
+    boolean all = types.size() == TYPES.length;
+    for (int i = 0; i < ownerMatches.length; i++) {
+      ownerMatches[i] = ownerFilter.test(owners.get(i));
+      all &= ownerMatches[i];
+    }
+    boolean[] typeMatches = new boolean[1 << FileEntryWriter.TYPE_BITS];
+    for (FileType type : types) {
+      typeMatches[type.ordinal()] = true;
+    }
+    return StreamSupport.stream(
+        new BlockSpliterator(0, blockOffsets.length, ownerMatches, typeMatches, all), false);
+  }
+
+  /**
+   * Closes the file. The mapped regions are released once they are no longer referenced.
+   *
+   * @throws IOException If the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private long blockEnd(int block, long recordsEnd) {
+    return block + 1 < blockOffsets.length ? blockOffsets[block + 1] : recordsEnd;
+  }
+
+  private int blockEntries(int block) {
+    return (int)
+        Math.min(FileEntryWriter.BLOCK_SIZE, entries - (long) block * FileEntryWriter.BLOCK_SIZE);
+  }
+
+  private Cursor cursor(int block) {
+    int region = blockRegions[block];
+    return new Cursor(regions[region], (int) (blockOffsets[block] - regionOffsets[region]));
+  }
+
+  private FileEntry entry(Cursor cursor) {
+    return new FileEntry(
+        new String(cursor.path, 0, cursor.pathLength, StandardCharsets.UTF_8),
+        owners.get(cursor.owner),
+        TYPES[cursor.type],
+        cursor.problem == 0 ? Optional.empty() : Optional.of(problems.get(cursor.problem - 1)));
+  }
+
+  /** Decodes consecutive records of one block, reusing the path buffer. */
+  private static final class Cursor {
+    private final ByteBuffer buffer;
+    private int position;
+    private byte[] path = new byte[256];
+    private int pathLength;
+    private int owner;
+    private int type;
+    private int problem;
+
+    Cursor(ByteBuffer buffer, int position) {
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    /** Decodes the next record without creating any objects, unless the path buffer grows. */
+    void next() {
+      int shared = (int) readVarint();
+      int suffix = (int) readVarint();
+      pathLength = shared + suffix;
+      if (pathLength > path.length) {
+        path = Arrays.copyOf(path, Math.max(pathLength, path.length * 2));
+      }
+      buffer.get(position, path, shared, suffix);
+      position += suffix;
+      long ownerAndType = readVarint();
+      owner = (int) (ownerAndType >>> FileEntryWriter.TYPE_BITS);
+      type = (int) ownerAndType & ((1 << FileEntryWriter.TYPE_BITS) - 1);
+      problem = (int) readVarint();
+    }
+
+    long readVarint() {
+      long value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = buffer.get(position++);
+        value |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+
+    List<String> readStrings() {
+      int count = (int) readVarint();
+      List<String> strings = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        byte[] bytes = new byte[(int) readVarint()];
+        buffer.get(position, bytes);
+        position += bytes.length;
+        strings.add(new String(bytes, StandardCharsets.UTF_8));
+      }
+      return List.copyOf(strings);
+    }
+  }
+
+  /** Iterates a range of blocks and splits at block boundaries. */
+  private final class BlockSpliterator implements Spliterator<FileEntry> {
+    private final boolean[] ownerMatches;
+    private final boolean[] typeMatches;
+    private final boolean unfiltered;
+    private int block;
+    private final int endBlock;
+    private Cursor cursor;
+    private int remaining;
+
+    BlockSpliterator(
+        int block,
+        int endBlock,
+        boolean[] ownerMatches,
+        boolean[] typeMatches,
+        boolean unfiltered) {
+      this.block = block;
+      this.endBlock = endBlock;
+      this.ownerMatches = ownerMatches;
+      this.typeMatches = typeMatches;
+      this.unfiltered = unfiltered;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super FileEntry> action) {
+      while (true) {
+        if (remaining == 0) {
+          if (block == endBlock) {
+            return false;
+          }
+          cursor = cursor(block);
+          remaining = blockEntries(block);
+          block++;
+        }
+        cursor.next();
+        remaining--;
+        if (ownerMatches[cursor.owner] && typeMatches[cursor.type]) {
+          action.accept(entry(cursor));
+          return true;
+        }
+      }
+    }
+
+    @Override
+    public Spliterator<FileEntry> trySplit() {
+      if (remaining > 0 || endBlock - block < 2) {
+        return null;
+      }
+      int middle = (block + endBlock) >>> 1;
+      BlockSpliterator prefix =
+          new BlockSpliterator(block, middle, ownerMatches, typeMatches, unfiltered);
+      block = middle;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      if (block == endBlock) {
+        return remaining;
+      }
+      long end = Math.min(entries, (long) endBlock * FileEntryWriter.BLOCK_SIZE);
+      return end - (long) block * FileEntryWriter.BLOCK_SIZE + remaining;
+    }
+
+    @Override
+    public int characteristics() {
+      int characteristics = ORDERED | NONNULL | IMMUTABLE;
+      return unfiltered ? characteristics | SIZED | SUBSIZED : characteristics;
+    }
+  }
+}
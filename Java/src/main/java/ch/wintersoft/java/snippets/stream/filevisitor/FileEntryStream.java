@@ -0,0 +1,145 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the findings of a {@link FileOwnershipVisitor} while the file tree is still being walked.
+ *
+ * <p>The walk runs on a background thread and hands every {@link FileEntry} over through a bounded
+ * {@link BlockingQueue}. If the consumer of the stream falls behind, the walker blocks on the full
+ * queue, so memory use is limited by the queue capacity no matter how many entries are found. The
+ * first entries are available as soon as they are found, not only after the walk has ended.
+ *
+ * <p>The returned stream must be closed, e.g. with try-with-resources, to stop the walk if the
+ * stream is not consumed completely:
+ *
+ * <pre>{@code
+ * try (Stream<FileEntry> entries = FileEntryStream.walk(Path.of("/srv"), "alice", 1024)) {
+ *   entries.limit(100).forEach(System.out::println);
+ * }
+ * }</pre>
+ */
+public final class FileEntryStream {
+  /** Marks the end of the walk in the queue; compared by identity. */
+  private static final FileEntry END = new FileEntry("", "", FileType.FILE, Optional.empty());
+
+  private FileEntryStream() {}
+
+  /**
+   * Walks a file tree in the background and streams the entries not owned by a user.
+   *
+   * @param root The file or directory to start at.
+   * @param fileOwner The name of the user whose files should be excluded from the results.
+   * @param capacity The maximum number of entries buffered between the walk and the stream.
+   * @return A sequential stream of the entries in walk order. It throws an {@link
+   *     UncheckedIOException} at its end if the walk failed, or the exception or error that ended
+   *     the walk.
+   */
+  public static Stream<FileEntry> walk(Path root, String fileOwner, int capacity) {
+    return walk(root, capacity, sink -> new FileOwnershipVisitor(fileOwner, sink));
+  }
+
+  /** Walks a file tree in the background with the visitor created for the sink of the stream. */
+  static Stream<FileEntry> walk(
+      Path root, int capacity, Function<Consumer<FileEntry>, FileVisitor<Path>> visitors) {
+    BlockingQueue<FileEntry> queue = new ArrayBlockingQueue<>(capacity);
+    Walk walk = new Walk(root, visitors, queue);
+    Thread walker =
+        Thread.ofPlatform().name("file-entry-stream-" + root.getFileName()).daemon().start(walk);
+    return StreamSupport.stream(walk, false).onClose(walker::interrupt);
+  }
+
+  /** Walks the tree into the queue and reads the queue as spliterator of the stream. */
+  private static final class Walk extends Spliterators.AbstractSpliterator<FileEntry>
+      implements Runnable {
+    private final Path root;
+    private final Function<Consumer<FileEntry>, FileVisitor<Path>> visitors;
+    private final BlockingQueue<FileEntry> queue;
+    private volatile Throwable failure;
+    private boolean ended;
+
+    Walk(
+        Path root,
+        Function<Consumer<FileEntry>, FileVisitor<Path>> visitors,
+        BlockingQueue<FileEntry> queue) {
+      super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+      this.root = root;
+      this.visitors = visitors;
+      this.queue = queue;
+    }
+
+    /** Always ends the queue unless the stream was closed, so the consumer never waits forever. */
+    @Override
+    public void run() {
+      boolean cancelled = false;
+      try {
+        Files.walkFileTree(root, visitors.apply(this::put));
+      } catch (CancellationException e) {
+        // the stream was closed, nobody waits for further entries
+        cancelled = true;
+      } catch (Throwable e) {
+        failure = e;
+      } finally {
+        if (!cancelled) {
+          try {
+            put(END);
+          } catch (CancellationException e) {
+            // closed while ending the queue
+          }
+        }
+      }
+    }
+
+    /** Blocks while the queue is full; the stream interrupts the walker when it is closed. */
+    private void put(FileEntry entry) {
+      try {
+        queue.put(entry);
+      } catch (InterruptedException e) {
+        throw new CancellationException("The stream of " + root + " was closed");
+      }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super FileEntry> action) {
+      if (ended) {
+        return false;
+      }
+      FileEntry entry;
+      try {
+        entry = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CancellationException("Interrupted while waiting for " + root);
+      }
+      if (entry == END) {
+        ended = true;
+        if (failure instanceof IOException e) {
+          throw new UncheckedIOException(e);
+        } else if (failure instanceof RuntimeException e) {
+          throw e;
+        } else if (failure instanceof Error e) {
+          throw e;
+        } else if (failure != null) {
+          throw new IllegalStateException("Walking " + root + " failed", failure);
+        }
+        return false;
+      }
+      action.accept(entry);
+      return true;
+    }
+  }
+}
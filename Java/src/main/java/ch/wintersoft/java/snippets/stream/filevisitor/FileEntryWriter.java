@@ -0,0 +1,215 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Writes {@link FileEntry} records to a compact binary file, which is read by {@link
+ * FileEntryReader}.
+ *
+ * <p>A text export repeats the full path and owner of every entry. This format stores instead:
+ *
+ * <ul>
+ *   <li><strong>paths</strong> front-coded: each path only stores the bytes following the prefix it
+ *       shares with the previous path. The chain restarts with a full path every {@value
+ *       #BLOCK_SIZE} entries, so a reader can start decoding at any block.
+ *   <li><strong>owners and problems</strong> as indexes into dictionaries written once at the end
+ *   <li><strong>type</strong> in the low bits of the owner index
+ * </ul>
+ *
+ * <p>All numbers are unsigned LEB128 variable-length integers. The file layout is:
+ *
+ * <pre>
+ * int magic "FEBX"; int version;
+ * entries * { varint sharedPrefix; varint suffixLength; byte[suffixLength] suffix;
+ *             varint owner &lt;&lt; 3 | type; varint problem + 1, or 0 without problem }
+ * varint owners; owners * { varint length; byte[length] name }
+ * varint problems; problems * { varint length; byte[length] message }
+ * varint blocks; long[blocks] blockOffset; long entries;
+ * long footerOffset; int magic
+ * </pre>
+ *
+ * <p>Entries are written as they arrive and only the dictionaries and block offsets are kept in
+ * memory, so the writer can be used directly as the sink of a scan:
+ *
+ * <pre>{@code
+ * try (FileEntryWriter writer = new FileEntryWriter(Path.of("scan.febx"))) {
+ *   Files.walkFileTree(Path.of("/srv"), new FileOwnershipVisitor("alice", writer));
+ * }
+ * }</pre>
+ *
+ * <p>Front coding works best if consecutive paths share long prefixes, as they do in walk order.
+ */
+public class FileEntryWriter implements Consumer<FileEntry>, Closeable {
+  static final int MAGIC = 0x46454258; // "FEBX"
+  static final int FORMAT_VERSION = 1;
+  static final int HEADER_SIZE = 8;
+  static final int TRAILER_SIZE = 12;
+  static final int TYPE_BITS = 3;
+
+  /** The number of entries per block of front-coded paths. */
+  public static final int BLOCK_SIZE = 64;
+
+  private final OutputStream out;
+  private final Map<String, Integer> ownerIds = new HashMap<>();
+  private final List<String> owners = new ArrayList<>();
+  private final Map<String, Integer> problemIds = new HashMap<>();
+  private final List<String> problems = new ArrayList<>();
+  private long[] blockOffsets = new long[16];
+  private int blocks;
+  private long entries;
+  private long offset;
+  private byte[] previousPath = new byte[0];
+  private boolean closed;
+
+  /**
+   * Creates or replaces an export file and writes its header.
+   *
+   * @param file The file to write.
+   * @throws IOException If the file cannot be created.
+   */
+  public FileEntryWriter(Path file) throws IOException {
+    out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+    writeInt(MAGIC);
+    writeInt(FORMAT_VERSION);
+  }
+
+  /**
+   * Appends an entry.
+   *
+   * @param entry The entry to write.
+   * @throws IOException If the entry cannot be written.
+   */
+  public void write(FileEntry entry) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("The writer is closed!");
+    }
+    byte[] path = entry.path().getBytes(StandardCharsets.UTF_8);
+    int shared = 0;
+    if (entries % BLOCK_SIZE == 0) {
+      if (blocks == blockOffsets.length) {
+        blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+      }
+      blockOffsets[blocks++] = offset;
+    } else {
+      shared = Arrays.mismatch(previousPath, path);
+      if (shared < 0) {
+        shared = path.length;
+      }
+    }
+    writeVarint(shared);
+    writeVarint(path.length - shared);
+    writeBytes(path, shared, path.length - shared);
+    int owner = ownerIds.computeIfAbsent(entry.owner(), name -> add(owners, name));
+    writeVarint(((long) owner << TYPE_BITS) | entry.type().ordinal());
+    writeVarint(
+        entry
+            .problem()
+            .map(p -> problemIds.computeIfAbsent(p, m -> add(problems, m)) + 1)
+            .orElse(0));
+    previousPath = path;
+    entries++;
+  }
+
+  /**
+   * Appends an entry, for use as the sink of a scan.
+   *
+   * @param entry The entry to write.
+   * @throws UncheckedIOException If the entry cannot be written.
+   */
+  @Override
+  public void accept(FileEntry entry) {
+    try {
+      write(entry);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the number of entries written so far.
+   *
+   * @return The entry count.
+   */
+  public long size() {
+    return entries;
+  }
+
+  /**
+   * Writes the dictionaries and the block index and closes the file.
+   *
+   * @throws IOException If the footer cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try (out) {
+      long footerOffset = offset;
+      writeStrings(owners);
+      writeStrings(problems);
+      writeVarint(blocks);
+      for (int i = 0; i < blocks; i++) {
+        writeLong(blockOffsets[i]);
+      }
+      writeLong(entries);
+      writeLong(footerOffset);
+      writeInt(MAGIC);
+    }
+  }
+
+  private static int add(List<String> dictionary, String value) {
+    dictionary.add(value);
+    return dictionary.size() - 1;
+  }
+
+  private void writeStrings(List<String> strings) throws IOException {
+    writeVarint(strings.size());
+    for (String s : strings) {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      writeVarint(bytes.length);
+      writeBytes(bytes, 0, bytes.length);
+    }
+  }
+
+  private void writeVarint(long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+      offset++;
+    }
+    out.write((int) value);
+    offset++;
+  }
+
+  private void writeBytes(byte[] bytes, int from, int length) throws IOException {
+    out.write(bytes, from, length);
+    offset += length;
+  }
+
+  private void writeInt(int value) throws IOException {
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      out.write(value >>> shift);
+    }
+    offset += 4;
+  }
+
+  private void writeLong(long value) throws IOException {
+    writeInt((int) (value >>> 32));
+    writeInt((int) value);
+  }
+}
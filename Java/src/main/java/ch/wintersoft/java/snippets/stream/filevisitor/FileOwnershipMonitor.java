@@ -0,0 +1,326 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Keeps the findings of a {@link FileOwnershipVisitor} up to date by watching a file tree for
+ * changes.
+ *
+ * <p>{@link #start()} registers every directory of the tree with a {@link WatchService} and seeds
+ * the findings with one full walk. From then on, only the paths named by watch events are checked
+ * again, and every difference to the previous findings is published as a {@link
+ * FileEntryChangeEvent}:
+ *
+ * <ul>
+ *   <li><strong>created or deleted paths</strong> are walked again including their subtree, and new
+ *       directories are registered
+ *   <li><strong>modified paths</strong>, which includes owner and permission changes, are checked
+ *       without descending into them
+ *   <li><strong>an overflow</strong> of the watch service triggers a walk of the whole tree
+ * </ul>
+ *
+ * <p>Events are coalesced: after the first event, the monitor keeps collecting events for the given
+ * window before it checks the affected paths, so a burst of events for the same path, e.g. while a
+ * large file is written, results in a single check.
+ *
+ * <p>The listener is invoked on the monitor thread and should not block for long. An exception
+ * thrown by the listener is passed to the thread's uncaught exception handler and does not stop the
+ * monitor. If watching fails, the monitor thread stops and the failure is available from {@link
+ * #getFailure()}. A change of the owner of the root directory itself is not reported, as it is not
+ * watched by a parent.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * try (FileOwnershipMonitor monitor =
+ *     new FileOwnershipMonitor(Path.of("/srv"), "alice", Duration.ofMillis(200), System.out::println)) {
+ *   monitor.start();
+ *   monitor.getFindings().forEach(System.out::println);
+ *   ...
+ * }
+ * }</pre>
+ */
+public class FileOwnershipMonitor implements Closeable {
+  private final Path root;
+  private final String fileOwner;
+  private final long coalesceNanos;
+  private final Consumer<FileEntryChangeEvent> listener;
+  private final OwnerNameCache ownerNames = new OwnerNameCache();
+  private final Map<Path, FileEntry> findings = new ConcurrentHashMap<>();
+  private final Map<WatchKey, Path> directories = new HashMap<>();
+  private WatchService watchService;
+  private Thread monitor;
+  private volatile boolean running;
+  private volatile IOException failure;
+
+  /**
+   * Constructs a monitor.
+   *
+   * @param root The directory to watch.
+   * @param fileOwner The name of the user whose files should be excluded from the findings.
+   * @param coalesceWindow How long events are collected before the affected paths are checked.
+   * @param listener The consumer receiving every change of the findings, on the monitor thread.
+   */
+  public FileOwnershipMonitor(
+      Path root,
+      String fileOwner,
+      Duration coalesceWindow,
+      Consumer<FileEntryChangeEvent> listener) {
+    if (coalesceWindow.isNegative()) {
+      throw new IllegalArgumentException("Coalesce window must not be negative!");
+    }
+    this.root = root;
+    this.fileOwner = fileOwner;
+    this.coalesceNanos = coalesceWindow.toNanos();
+    this.listener = Objects.requireNonNull(listener);
+  }
+
+  /**
+   * Registers the tree, seeds the findings and starts the monitor thread.
+   *
+   * <p>The seed walk does not publish events; its result is available from {@link #getFindings()}
+   * as soon as this method returns.
+   *
+   * @throws IOException If the watch service cannot be created or the walk fails.
+   */
+  public synchronized void start() throws IOException {
+    if (monitor != null) {
+      throw new IllegalStateException("The ownership monitor is already running!");
+    }
+    if (!Files.isDirectory(root)) {
+      throw new IllegalArgumentException(root + " is not a directory!");
+    }
+    watchService = root.getFileSystem().newWatchService();
+    try {
+      findings.putAll(walk(root, Integer.MAX_VALUE));
+    } catch (IOException | RuntimeException e) {
+      try {
+        watchService.close();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      directories.clear();
+      findings.clear();
+      throw e;
+    }
+    running = true;
+    monitor =
+        Thread.ofPlatform()
+            .name("file-ownership-monitor-" + root.getFileName())
+            .daemon()
+            .start(this::watchLoop);
+  }
+
+  /**
+   * Returns the current findings.
+   *
+   * @return A snapshot of the entries not owned by the user and the entries that could not be
+   *     visited.
+   */
+  public List<FileEntry> getFindings() {
+    return List.copyOf(findings.values());
+  }
+
+  /**
+   * Returns the failure that stopped the monitor thread.
+   *
+   * @return The {@link IOException} thrown while watching, or empty if the monitor did not fail.
+   */
+  public Optional<IOException> getFailure() {
+    return Optional.ofNullable(failure);
+  }
+
+  /**
+   * Stops watching and waits for the monitor thread to finish its current batch.
+   *
+   * @throws IOException If the watch service cannot be closed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (monitor == null) {
+      return;
+    }
+    running = false;
+    watchService.close();
+    try {
+      monitor.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void watchLoop() {
+    try {
+      while (running) {
+        Map<Path, Boolean> pending = new LinkedHashMap<>();
+        boolean overflow = collect(watchService.take(), pending);
+        long deadline = System.nanoTime() + coalesceNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+          WatchKey key = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+          if (key == null) {
+            break;
+          }
+          overflow |= collect(key, pending);
+        }
+        if (overflow) {
+          update(root, true);
+        } else {
+          for (Map.Entry<Path, Boolean> e : pending.entrySet()) {
+            update(e.getKey(), e.getValue());
+          }
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // closed while shutting down
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      if (running) {
+        failure = e;
+        running = false;
+      }
+    }
+  }
+
+  /**
+   * Adds the paths named by the events of a key to the pending paths, marking created and deleted
+   * paths for a walk of their subtree.
+   *
+   * @return {@code true} if events were lost.
+   */
+  private boolean collect(WatchKey key, Map<Path, Boolean> pending) {
+    Path dir = directories.get(key);
+    boolean overflow = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        overflow = true;
+      } else if (dir != null) {
+        Path path = dir.resolve((Path) event.context());
+        boolean subtree = event.kind() != StandardWatchEventKinds.ENTRY_MODIFY;
+        pending.merge(path, subtree, Boolean::logicalOr);
+      }
+    }
+    if (!key.reset()) {
+      directories.remove(key);
+    }
+    return overflow;
+  }
+
+  /** Checks a path, or its whole subtree, again and publishes the differences. */
+  private void update(Path path, boolean subtree) throws IOException {
+    Map<Path, FileEntry> found = walk(path, subtree ? Integer.MAX_VALUE : 0);
+    if (subtree) {
+      for (Map.Entry<Path, FileEntry> e : List.copyOf(findings.entrySet())) {
+        if (e.getKey().startsWith(path) && !found.containsKey(e.getKey())) {
+          resolve(e.getKey(), e.getValue());
+        }
+      }
+    } else if (found.isEmpty() && findings.containsKey(path)) {
+      resolve(path, findings.get(path));
+    }
+    found.forEach(
+        (p, entry) -> {
+          FileEntry previous = findings.put(p, entry);
+          if (previous == null) {
+            publish(new FileEntryChangeEvent(FileEntryChangeType.FOUND, entry, null));
+          } else if (!previous.equals(entry)) {
+            publish(new FileEntryChangeEvent(FileEntryChangeType.CHANGED, entry, previous));
+          }
+        });
+  }
+
+  private void resolve(Path path, FileEntry previous) {
+    findings.remove(path);
+    publish(new FileEntryChangeEvent(FileEntryChangeType.RESOLVED, previous, previous));
+  }
+
+  /** Passes an event to the listener, a failing listener must not stop the monitor. */
+  private void publish(FileEntryChangeEvent event) {
+    try {
+      listener.accept(event);
+    } catch (RuntimeException e) {
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+  }
+
+  /** Walks a path up to the given depth, registering every directory it enters. */
+  private Map<Path, FileEntry> walk(Path start, int maxDepth) throws IOException {
+    Map<Path, FileEntry> found = new HashMap<>();
+    Files.walkFileTree(
+        start,
+        EnumSet.noneOf(FileVisitOption.class),
+        maxDepth,
+        new RegisteringVisitor(
+            entry -> found.put(root.getFileSystem().getPath(entry.path()), entry)));
+    return found;
+  }
+
+  /** Registers the directories it enters and ignores paths deleted before they were visited. */
+  private final class RegisteringVisitor extends FileOwnershipVisitor {
+    RegisteringVisitor(Consumer<FileEntry> sink) {
+      super(fileOwner, sink, ownerNames);
+    }
+
+    @Override
+    @NonNull
+    public FileVisitResult preVisitDirectory(
+        @NonNull Path dir, @NonNull BasicFileAttributes attrs) {
+      super.preVisitDirectory(dir, attrs);
+      try {
+        directories.put(
+            dir.register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY),
+            dir);
+      } catch (IOException e) {
+        // e.g. the limit of watches is reached, report the directory as not being monitored
+        super.visitFileFailed(dir, e);
+      }
+      return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    @NonNull
+    public FileVisitResult visitFileFailed(@NonNull Path file, @NonNull IOException exc) {
+      if (exc instanceof NoSuchFileException) {
+        return FileVisitResult.CONTINUE;
+      }
+      return super.visitFileFailed(file, exc);
+    }
+
+    /** Reports a directory whose listing failed midway instead of aborting the walk. */
+    @Override
+    @NonNull
+    public FileVisitResult postVisitDirectory(@NonNull Path dir, IOException exc) {
+      return exc == null ? FileVisitResult.CONTINUE : visitFileFailed(dir, exc);
+    }
+  }
+}
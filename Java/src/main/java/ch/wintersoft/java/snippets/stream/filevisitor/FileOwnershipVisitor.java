@@ -4,12 +4,15 @@ import java.io.IOException;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import org.jspecify.annotations.NonNull;
 
 /**
@@ -20,11 +23,29 @@ import org.jspecify.annotations.NonNull;
  * file or directory whose owner does not match the provided username. If a directory or file cannot
  * be accessed due to an {@link AccessDeniedException}, the error is captured within the entry
  * rather than terminating the scan.
+ *
+ * <p>On file systems with a {@code unix} attribute view, only the numeric owner id of each entry is
+ * read and compared. The id of the given user is learned from the first entry it owns, and owner
+ * names are resolved once per id through an {@link OwnerNameCache}, so the name service is not
+ * queried for every file. Other file systems fall back to {@link Files#getOwner}.
+ *
+ * <p>By default the entries are collected in a list. For large trees, pass a sink to {@link
+ * #FileOwnershipVisitor(String, Consumer)} instead, which receives every entry as soon as it is
+ * found and keeps the memory use of the visitor constant.
+ *
+ * @see FileEntryStream
  */
 public class FileOwnershipVisitor extends SimpleFileVisitor<Path> {
 
+  private static final String UID_ATTRIBUTE = "unix:uid";
+  private static final int UNKNOWN_UID = -1;
+
   private final String fileOwner;
+  private final OwnerNameCache ownerNames;
   private final List<FileEntry> fileEntryList = new ArrayList<>();
+  private final Consumer<FileEntry> sink;
+  private int fileOwnerUid = UNKNOWN_UID;
+  private boolean uidSupported = true;
 
   /**
    * Constructs a new visitor targeting entries NOT owned by the specified user.
@@ -32,13 +53,38 @@ public class FileOwnershipVisitor extends SimpleFileVisitor<Path> {
    * @param fileOwner The name of the user whose files should be excluded from the results.
    */
   public FileOwnershipVisitor(String fileOwner) {
+    this(fileOwner, null, new OwnerNameCache());
+  }
+
+  /**
+   * Constructs a new visitor passing every entry NOT owned by the specified user to a sink instead
+   * of collecting it.
+   *
+   * @param fileOwner The name of the user whose files should be excluded from the results.
+   * @param sink The consumer receiving each entry as soon as it is found, on the walking thread.
+   */
+  public FileOwnershipVisitor(String fileOwner, Consumer<FileEntry> sink) {
+    this(fileOwner, Objects.requireNonNull(sink), new OwnerNameCache());
+  }
+
+  /**
+   * Constructs a visitor sharing resolved owner names with other visitors.
+   *
+   * @param fileOwner The name of the user whose files should be excluded from the results.
+   * @param sink The consumer receiving each entry, or {@code null} to collect the entries.
+   * @param ownerNames The cache of resolved owner names.
+   */
+  FileOwnershipVisitor(String fileOwner, Consumer<FileEntry> sink, OwnerNameCache ownerNames) {
     this.fileOwner = fileOwner;
+    this.sink = sink == null ? fileEntryList::add : sink;
+    this.ownerNames = ownerNames;
   }
 
   /**
    * Retrieves the list of discovered entries and encountered access problems.
    *
-   * @return A non-null list of {@link FileEntry} objects.
+   * @return A non-null list of {@link FileEntry} objects, which stays empty if the visitor was
+   *     created with a sink.
    */
   public List<FileEntry> getFileEntryList() {
     return fileEntryList;
@@ -86,13 +132,15 @@ public class FileOwnershipVisitor extends SimpleFileVisitor<Path> {
     FileType type = Files.isDirectory(file) ? FileType.DIRECTORY : FileType.FILE;
     String owner = resolveOwnerSilently(file);
 
-    fileEntryList.add(
+    sink.accept(
         new FileEntry(
             file.toString(),
             owner,
             type,
             Optional.of(
-                exc instanceof AccessDeniedException ? "Access Denied" : exc.getMessage())));
+                exc instanceof AccessDeniedException
+                    ? "Access Denied"
+                    : Objects.requireNonNullElse(exc.getMessage(), exc.toString()))));
     return FileVisitResult.CONTINUE;
   }
 
@@ -102,24 +150,52 @@ public class FileOwnershipVisitor extends SimpleFileVisitor<Path> {
    */
   private void findFilesNotOwnedByUser(Path path, BasicFileAttributes attrs) {
     try {
-      String owner = Files.getOwner(path).getName();
-      if (!owner.equals(fileOwner)) {
-        fileEntryList.add(
-            new FileEntry(
-                path.toString(),
-                owner,
-                attrs.isDirectory() ? FileType.DIRECTORY : FileType.FILE,
-                Optional.empty()));
+      String owner = resolveOwner(path);
+      if (owner != null) {
+        sink.accept(new FileEntry(path.toString(), owner, FileType.of(attrs), Optional.empty()));
       }
     } catch (IOException e) {
       // Usually handled by visitFileFailed if it occurs during actual walk
     }
   }
 
+  /**
+   * Returns the owner name of a path, or {@code null} if the path is owned by {@link #fileOwner}.
+   */
+  private String resolveOwner(Path path) throws IOException {
+    Integer uid = readUid(path);
+    if (uid == null) {
+      String owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).getName();
+      return owner.equals(fileOwner) ? null : owner;
+    }
+    if (uid == fileOwnerUid) {
+      return null;
+    }
+    String owner = ownerNames.name(uid, path, LinkOption.NOFOLLOW_LINKS);
+    if (owner.equals(fileOwner)) {
+      fileOwnerUid = uid;
+      return null;
+    }
+    return owner;
+  }
+
+  /** Reads the numeric owner id, or returns {@code null} if the file system does not support it. */
+  private Integer readUid(Path path) throws IOException {
+    if (!uidSupported) {
+      return null;
+    }
+    try {
+      return (Integer) Files.getAttribute(path, UID_ATTRIBUTE, LinkOption.NOFOLLOW_LINKS);
+    } catch (UnsupportedOperationException | IllegalArgumentException e) {
+      uidSupported = false;
+      return null;
+    }
+  }
+
   /** Helper to retrieve the owner name safely for problematic paths. */
   private String resolveOwnerSilently(Path path) {
     try {
-      return Files.getOwner(path).getName();
+      return Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).getName();
     } catch (IOException e) {
       return "Unknown";
     }
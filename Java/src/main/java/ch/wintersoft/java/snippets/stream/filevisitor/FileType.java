@@ -1,10 +1,13 @@
 package ch.wintersoft.java.snippets.stream.filevisitor;
 
+import java.nio.file.attribute.BasicFileAttributes;
+
 /**
  * Represents the fundamental type of a filesystem entry encountered during a file tree traversal.
  *
  * <p>This enum is used to categorize paths identified by the {@link java.nio.file.FileVisitor} to
- * distinguish between containers (directories) and leaf nodes (regular files).
+ * distinguish between containers (directories), leaf nodes (regular files), symbolic links and
+ * special files. New constants are only ever appended, as persisted formats store the ordinal.
  */
 public enum FileType {
   /** Identifies a filesystem entry that acts as a container for other files and directories. */
@@ -13,5 +16,28 @@ public enum FileType {
    * Identifies a regular filesystem entry containing data, excluding special Unix types like pipes,
    * sockets, or devices.
    */
-  FILE
+  FILE,
+  /** Identifies a symbolic link that was not followed, whether its target exists or not. */
+  SYMLINK,
+  /** Identifies a special Unix entry such as a named pipe, socket or device. */
+  OTHER;
+
+  /**
+   * Maps the attributes of an entry to its type.
+   *
+   * <p>Entries that report none of the basic kinds, e.g. on file systems with other kinds of
+   * entries, are treated as {@link #FILE}.
+   *
+   * @param attrs The entry's basic attributes, read without following symbolic links.
+   * @return The type of the entry.
+   */
+  public static FileType of(BasicFileAttributes attrs) {
+    if (attrs.isDirectory()) {
+      return DIRECTORY;
+    }
+    if (attrs.isSymbolicLink()) {
+      return SYMLINK;
+    }
+    return attrs.isOther() ? OTHER : FILE;
+  }
 }
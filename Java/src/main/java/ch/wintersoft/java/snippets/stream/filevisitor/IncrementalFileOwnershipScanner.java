@@ -0,0 +1,234 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Re-scans a file tree for entries not owned by a specific user, reusing the results of the
+ * previous run for directories that did not change.
+ *
+ * <p>After every scan, a compact {@link DirectoryIndex} with the modification time, change time,
+ * subdirectory names and findings of each directory is written to an index file. On the next scan,
+ * each directory is only stat-ed: if its modification and change times are unchanged, its cached
+ * findings are reported and its cached subdirectories are descended into without listing the
+ * directory or checking its files again. Only directories whose times changed are listed and
+ * checked with a {@link FileOwnershipVisitor}.
+ *
+ * <p>The change time of a directory changes when entries are created, deleted or renamed in it, or
+ * when the directory itself is modified, e.g. by {@code chown} or {@code chmod}. It does
+ * <strong>not</strong> change when the owner of a file inside it changes, because that only updates
+ * the change time of the file. Such changes are found by the next full scan, which is started by
+ * deleting the index file.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * IncrementalFileOwnershipScanner scanner =
+ *     new IncrementalFileOwnershipScanner("alice", Path.of("/var/lib/audit/srv.index"));
+ * scanner.scan(Path.of("/srv"), System.out::println);
+ * }</pre>
+ */
+public class IncrementalFileOwnershipScanner {
+  private static final String TIMES_ATTRIBUTES = "unix:lastModifiedTime,ctime";
+
+  private final String fileOwner;
+  private final Path indexFile;
+  private final OwnerNameCache ownerNames = new OwnerNameCache();
+  private boolean changeTimeSupported = true;
+  private int rescannedDirectories;
+  private int reusedDirectories;
+
+  /**
+   * Constructs a scanner.
+   *
+   * @param fileOwner The name of the user whose files should be excluded from the results.
+   * @param indexFile The file holding the index of the previous scan; it is created if missing.
+   */
+  public IncrementalFileOwnershipScanner(String fileOwner, Path indexFile) {
+    this.fileOwner = fileOwner;
+    this.indexFile = indexFile;
+  }
+
+  /**
+   * Scans a file tree and collects the findings.
+   *
+   * @param root The file or directory to start at.
+   * @return The entries not owned by the user and the entries that could not be visited.
+   * @throws IOException If the index cannot be read or written, or a directory listing fails.
+   */
+  public List<FileEntry> scan(Path root) throws IOException {
+    List<FileEntry> entries = new ArrayList<>();
+    scan(root, entries::add);
+    return entries;
+  }
+
+  /**
+   * Scans a file tree, passes every finding to a sink and updates the index.
+   *
+   * @param root The file or directory to start at.
+   * @param sink The consumer receiving the entries not owned by the user and the entries that could
+   *     not be visited.
+   * @throws IOException If the index cannot be read or written, or a directory listing fails.
+   */
+  public void scan(Path root, Consumer<FileEntry> sink) throws IOException {
+    rescannedDirectories = 0;
+    reusedDirectories = 0;
+    DirectoryIndex previous = DirectoryIndex.load(indexFile, fileOwner);
+    DirectoryIndex next = new DirectoryIndex(fileOwner);
+    FileOwnershipVisitor visitor = new FileOwnershipVisitor(fileOwner, sink, ownerNames);
+    try {
+      BasicFileAttributes attrs =
+          Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      if (attrs.isDirectory()) {
+        visitDirectory(root, attrs, previous, next, sink);
+      } else {
+        visitor.visitFile(root, attrs);
+      }
+    } catch (IOException e) {
+      visitor.visitFileFailed(root, e);
+    }
+    next.save(indexFile);
+  }
+
+  /**
+   * Returns the number of directories listed and checked by the last scan.
+   *
+   * @return The number of new or changed directories.
+   */
+  public int getRescannedDirectories() {
+    return rescannedDirectories;
+  }
+
+  /**
+   * Returns the number of directories whose findings were taken from the index by the last scan.
+   *
+   * @return The number of unchanged directories.
+   */
+  public int getReusedDirectories() {
+    return reusedDirectories;
+  }
+
+  private void visitDirectory(
+      Path dir,
+      BasicFileAttributes attrs,
+      DirectoryIndex previous,
+      DirectoryIndex next,
+      Consumer<FileEntry> sink)
+      throws IOException {
+    long mtime = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    long ctime = changeTime(dir, mtime);
+    DirectoryIndex.Entry cached = previous.get(dir);
+    FileOwnershipVisitor visitor = new FileOwnershipVisitor(fileOwner, sink, ownerNames);
+
+    if (cached != null && cached.mtime() == mtime && cached.ctime() == ctime) {
+      reusedDirectories++;
+      next.put(dir, cached);
+      visitor.preVisitDirectory(dir, attrs);
+      for (FileEntry finding : cached.findings()) {
+        sink.accept(
+            new FileEntry(
+                dir.resolve(finding.path()).toString(),
+                finding.owner(),
+                finding.type(),
+                finding.problem()));
+      }
+      for (String name : cached.subdirectories()) {
+        visitChild(dir.resolve(name), previous, next, sink, visitor);
+      }
+      return;
+    }
+
+    rescannedDirectories++;
+    List<String> subdirectories = new ArrayList<>();
+    List<FileEntry> findings = new ArrayList<>();
+    FileOwnershipVisitor childVisitor =
+        new FileOwnershipVisitor(
+            fileOwner,
+            entry -> {
+              sink.accept(entry);
+              findings.add(
+                  new FileEntry(
+                      Path.of(entry.path()).getFileName().toString(),
+                      entry.owner(),
+                      entry.type(),
+                      entry.problem()));
+            },
+            ownerNames);
+    List<Path> directories = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      visitor.preVisitDirectory(dir, attrs);
+      for (Path entry : stream) {
+        try {
+          BasicFileAttributes entryAttrs =
+              Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+          if (entryAttrs.isDirectory()) {
+            subdirectories.add(entry.getFileName().toString());
+            directories.add(entry);
+          } else {
+            childVisitor.visitFile(entry, entryAttrs);
+          }
+        } catch (IOException e) {
+          childVisitor.visitFileFailed(entry, e);
+        }
+      }
+    } catch (IOException e) {
+      // like walkFileTree, a directory that cannot be opened is reported instead of entered
+      visitor.visitFileFailed(dir, e);
+      return;
+    } catch (DirectoryIteratorException e) {
+      throw e.getCause();
+    }
+    next.put(dir, new DirectoryIndex.Entry(mtime, ctime, subdirectories, findings));
+    for (Path subdirectory : directories) {
+      visitChild(subdirectory, previous, next, sink, visitor);
+    }
+  }
+
+  /** Visits a subdirectory, which may have been deleted or replaced since it was listed. */
+  private void visitChild(
+      Path dir,
+      DirectoryIndex previous,
+      DirectoryIndex next,
+      Consumer<FileEntry> sink,
+      FileOwnershipVisitor visitor)
+      throws IOException {
+    BasicFileAttributes attrs;
+    try {
+      attrs = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    } catch (IOException e) {
+      visitor.visitFileFailed(dir, e);
+      return;
+    }
+    if (attrs.isDirectory()) {
+      visitDirectory(dir, attrs, previous, next, sink);
+    } else {
+      visitor.visitFile(dir, attrs);
+    }
+  }
+
+  /** Reads the change time, or falls back to the modification time without a unix view. */
+  private long changeTime(Path dir, long mtime) throws IOException {
+    if (!changeTimeSupported) {
+      return mtime;
+    }
+    try {
+      Map<String, Object> times =
+          Files.readAttributes(dir, TIMES_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+      return ((FileTime) times.get("ctime")).to(TimeUnit.NANOSECONDS);
+    } catch (UnsupportedOperationException | IllegalArgumentException e) {
+      changeTimeSupported = false;
+      return mtime;
+    }
+  }
+}
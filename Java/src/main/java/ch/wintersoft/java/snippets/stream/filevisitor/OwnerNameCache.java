@@ -0,0 +1,86 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the mapping from numeric user and group ids to their names.
+ *
+ * <p>Resolving an owner name goes through the name service (e.g. {@code /etc/passwd}, LDAP or NIS),
+ * which is much slower than reading the numeric id of a file. A file tree usually has only a
+ * handful of distinct owners, so each id is resolved once, using the first path found with it.
+ *
+ * <p>Instances are thread-safe and can be shared by several visitors.
+ */
+final class OwnerNameCache {
+  private final Map<Integer, String> names = new ConcurrentHashMap<>();
+  private final Map<Integer, String> groups = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the name of a user id.
+   *
+   * @param uid The numeric user id.
+   * @param path A path owned by that user, used to resolve the name on a cache miss.
+   * @param options Options indicating how symbolic links are handled, as used to read the id.
+   * @return The user name.
+   * @throws IOException If the owner of the path cannot be read.
+   */
+  String name(int uid, Path path, LinkOption... options) throws IOException {
+    String name = names.get(uid);
+    if (name != null) {
+      return name;
+    }
+    try {
+      return names.computeIfAbsent(uid, id -> resolve(path, false, options));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Returns the name of a user id if it was resolved before.
+   *
+   * @param uid The numeric user id.
+   * @return The user name, or {@code null} if it is not cached.
+   */
+  String cachedName(int uid) {
+    return names.get(uid);
+  }
+
+  /**
+   * Returns the name of a group id.
+   *
+   * @param gid The numeric group id.
+   * @param path A path owned by that group, used to resolve the name on a cache miss.
+   * @param options Options indicating how symbolic links are handled, as used to read the id.
+   * @return The group name.
+   * @throws IOException If the group of the path cannot be read.
+   */
+  String group(int gid, Path path, LinkOption... options) throws IOException {
+    String group = groups.get(gid);
+    if (group != null) {
+      return group;
+    }
+    try {
+      return groups.computeIfAbsent(gid, id -> resolve(path, true, options));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static String resolve(Path path, boolean group, LinkOption... options) {
+    try {
+      return group
+          ? Files.readAttributes(path, PosixFileAttributes.class, options).group().getName()
+          : Files.getOwner(path, options).getName();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.util.Arrays;
+
+/**
+ * Primitive counters of files, directories and bytes per subtree and numeric owner id.
+ *
+ * <p>The counters live in parallel {@code long} arrays indexed through an open-addressing table of
+ * packed {@code (subtree, uid)} keys, so counting an entry neither boxes nor allocates. The size
+ * only depends on the number of distinct keys, never on the number of counted entries.
+ *
+ * <p>Instances are not thread-safe. Each scanning thread owns one accumulator, and the accumulators
+ * are {@link #merge(OwnershipAccumulator) merged} once the scan is complete.
+ */
+final class OwnershipAccumulator {
+  private static final long EMPTY = -1L;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] keys;
+  private long[] files;
+  private long[] directories;
+  private long[] bytes;
+  private int size;
+  private long unreadable;
+
+  OwnershipAccumulator() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Counts one entry.
+   *
+   * @param subtree The non-negative index of the subtree the entry belongs to.
+   * @param uid The numeric owner id.
+   * @param directory Whether the entry is a directory.
+   * @param size The number of bytes to add.
+   * @return {@code true} if this is the first entry counted for the subtree and owner.
+   */
+  boolean add(int subtree, int uid, boolean directory, long size) {
+    return add(key(subtree, uid), directory ? 0 : 1, directory ? 1 : 0, size);
+  }
+
+  /** Counts an entry that could not be read. */
+  void addUnreadable() {
+    unreadable++;
+  }
+
+  /**
+   * Adds all counters of another accumulator to this one.
+   *
+   * @param other The accumulator to merge, which is left unchanged.
+   */
+  void merge(OwnershipAccumulator other) {
+    for (int i = 0; i < other.keys.length; i++) {
+      if (other.keys[i] != EMPTY) {
+        add(other.keys[i], other.files[i], other.directories[i], other.bytes[i]);
+      }
+    }
+    unreadable += other.unreadable;
+  }
+
+  /** Receives the counters of one subtree and owner. */
+  interface CounterConsumer {
+    void accept(int subtree, int uid, long files, long directories, long bytes);
+  }
+
+  /**
+   * Passes the counters of every subtree and owner to a consumer, in no particular order.
+   *
+   * @param consumer The consumer.
+   */
+  void forEach(CounterConsumer consumer) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY) {
+        consumer.accept((int) (keys[i] >>> 32), (int) keys[i], files[i], directories[i], bytes[i]);
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  long unreadable() {
+    return unreadable;
+  }
+
+  private boolean add(long key, long fileCount, long directoryCount, long byteCount) {
+    int slot = slot(key);
+    boolean added = keys[slot] == EMPTY;
+    if (added) {
+      if ((size + 1) * 4 > keys.length * 3) {
+        grow();
+        slot = slot(key);
+      }
+      keys[slot] = key;
+      size++;
+    }
+    files[slot] += fileCount;
+    directories[slot] += directoryCount;
+    bytes[slot] += byteCount;
+    return added;
+  }
+
+  /** Returns the slot holding the key, or the empty slot where it belongs. */
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    int slot = (int) mix(key) & mask;
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    long[] oldFiles = files;
+    long[] oldDirectories = directories;
+    long[] oldBytes = bytes;
+    allocate(oldKeys.length * 2);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        files[slot] = oldFiles[i];
+        directories[slot] = oldDirectories[i];
+        bytes[slot] = oldBytes[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    files = new long[capacity];
+    directories = new long[capacity];
+    bytes = new long[capacity];
+  }
+
+  /** Packs a subtree and an owner id; the key is never {@link #EMPTY} for a valid subtree. */
+  private static long key(int subtree, int uid) {
+    if (subtree < 0) {
+      throw new IllegalArgumentException("Subtree index must not be negative!");
+    }
+    return ((long) subtree << 32) | Integer.toUnsignedLong(uid);
+  }
+
+  private static long mix(long key) {
+    key *= 0x9E3779B97F4A7C15L;
+    return key ^ (key >>> 32);
+  }
+}
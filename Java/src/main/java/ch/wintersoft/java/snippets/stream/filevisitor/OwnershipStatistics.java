@@ -0,0 +1,45 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.util.Map;
+
+/**
+ * The per-owner totals of a file tree, as computed by {@link
+ * ParallelFileOwnershipScanner#aggregate(java.nio.file.Path)}.
+ *
+ * <p>Totals are kept per owner name and per top-level subtree of the scanned root. The subtree of
+ * the root itself and of the entries directly inside it is named {@link #ROOT}. The size of the
+ * statistics depends only on the number of owners and top-level entries, not on the size of the
+ * tree.
+ *
+ * @param byOwner The totals per owner name.
+ * @param bySubtree The totals per top-level directory name and owner name.
+ * @param unreadable The number of entries whose attributes or listing could not be read.
+ */
+public record OwnershipStatistics(
+    Map<String, Totals> byOwner, Map<String, Map<String, Totals>> bySubtree, long unreadable) {
+
+  /** The subtree name of the root and the entries directly inside it. */
+  public static final String ROOT = "";
+
+  /**
+   * The counters of one owner.
+   *
+   * @param files The number of entries that are not directories.
+   * @param directories The number of directories.
+   * @param bytes The total size of the entries that are not directories.
+   */
+  public record Totals(long files, long directories, long bytes) {
+    Totals plus(Totals other) {
+      return new Totals(files + other.files, directories + other.directories, bytes + other.bytes);
+    }
+  }
+
+  /**
+   * Returns the totals over all owners.
+   *
+   * @return The sum of all {@link #byOwner()} totals.
+   */
+  public Totals total() {
+    return byOwner.values().stream().reduce(new Totals(0, 0, 0), Totals::plus);
+  }
+}
@@ -0,0 +1,361 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Scans a file tree in parallel for entries not owned by a specific user.
+ *
+ * <p>Every directory is handled by its own {@link RecursiveAction} in a {@link ForkJoinPool}: the
+ * task lists the directory, checks the contained files and forks one subtask per subdirectory, so
+ * idle worker threads steal whole subtrees from busy ones. Each task applies the checks through its
+ * own {@link FileOwnershipVisitor}, which passes the entries straight to a thread-safe sink. All
+ * visitors share one {@link OwnerNameCache}, so each owner name is resolved only once.
+ *
+ * <p>The traversal mirrors {@link Files#walkFileTree(Path, java.nio.file.FileVisitor)} without
+ * following symbolic links. A directory that cannot be opened and an entry whose attributes cannot
+ * be read are reported through {@link FileOwnershipVisitor#visitFileFailed}, so the result contains
+ * the same entries as a sequential walk, including the error entries. Only the order differs.
+ *
+ * <p>If only totals are needed, {@link #aggregate(Path)} counts files, directories and bytes per
+ * owner and top-level subtree instead of creating a {@link FileEntry} per finding.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * List<FileEntry> entries = new ParallelFileOwnershipScanner("alice", 16).scan(Path.of("/srv"));
+ * }</pre>
+ */
+public class ParallelFileOwnershipScanner {
+  private static final int ROOT_SUBTREE = 0;
+  private static final String UNIX_ATTRIBUTES = "unix:uid,mode,size";
+  private static final int S_IFMT = 0170000;
+  private static final int S_IFDIR = 0040000;
+
+  private final String fileOwner;
+  private final int parallelism;
+  private final OwnerNameCache ownerNames = new OwnerNameCache();
+  private volatile boolean unixSupported = true;
+
+  /**
+   * Constructs a scanner using one thread per available processor.
+   *
+   * @param fileOwner The name of the user whose files should be excluded from the results.
+   */
+  public ParallelFileOwnershipScanner(String fileOwner) {
+    this(fileOwner, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a scanner.
+   *
+   * @param fileOwner The name of the user whose files should be excluded from the results.
+   * @param parallelism The number of threads scanning directories concurrently. Network file
+   *     systems usually benefit from more threads than processors, as most time is spent waiting.
+   */
+  public ParallelFileOwnershipScanner(String fileOwner, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1!");
+    }
+    this.fileOwner = fileOwner;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Scans a file tree.
+   *
+   * @param root The file or directory to start at.
+   * @return The entries not owned by the user and the entries that could not be visited, in no
+   *     particular order.
+   * @throws IOException If a directory listing fails after it was opened, which also aborts {@link
+   *     Files#walkFileTree(Path, java.nio.file.FileVisitor)}.
+   */
+  public List<FileEntry> scan(Path root) throws IOException {
+    ConcurrentLinkedQueue<FileEntry> entries = new ConcurrentLinkedQueue<>();
+    scan(root, entries::add);
+    return new ArrayList<>(entries);
+  }
+
+  /**
+   * Scans a file tree and passes every entry to a sink as soon as it is found.
+   *
+   * @param root The file or directory to start at.
+   * @param sink The consumer receiving the entries not owned by the user and the entries that could
+   *     not be visited. It is called concurrently from several threads and must be thread-safe. A
+   *     blocking sink, e.g. {@link java.util.concurrent.BlockingQueue#put}, slows the scan down to
+   *     its own pace.
+   * @throws IOException If a directory listing fails after it was opened, which also aborts {@link
+   *     Files#walkFileTree(Path, java.nio.file.FileVisitor)}.
+   */
+  public void scan(Path root, Consumer<FileEntry> sink) throws IOException {
+    try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+      pool.invoke(new EntryTask(root, sink));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Counts the files, directories and bytes of a file tree per owner and top-level subtree.
+   *
+   * <p>All entries are counted, including the ones owned by the user of this scanner. Each worker
+   * thread counts into its own {@link OwnershipAccumulator} without any synchronization, and the
+   * accumulators are merged once all directories are done. Owner, type and size of each entry are
+   * read with a single call, and each owner name is resolved once. The memory used is independent
+   * of the number of entries.
+   *
+   * @param root The file or directory to start at.
+   * @return The totals. Entries that could not be read are only counted as {@link
+   *     OwnershipStatistics#unreadable()}.
+   * @throws IOException If a directory listing fails after it was opened.
+   */
+  public OwnershipStatistics aggregate(Path root) throws IOException {
+    Aggregation aggregation = new Aggregation();
+    try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+      pool.invoke(new CountTask(root, ROOT_SUBTREE, true, aggregation));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    OwnershipAccumulator total = new OwnershipAccumulator();
+    for (OwnershipAccumulator accumulator : aggregation.accumulators) {
+      total.merge(accumulator);
+    }
+    Map<String, OwnershipStatistics.Totals> byOwner = new HashMap<>();
+    Map<String, Map<String, OwnershipStatistics.Totals>> bySubtree = new HashMap<>();
+    total.forEach(
+        (subtree, uid, files, directories, bytes) -> {
+          String owner = aggregation.ownerName(uid);
+          OwnershipStatistics.Totals totals =
+              new OwnershipStatistics.Totals(files, directories, bytes);
+          byOwner.merge(owner, totals, OwnershipStatistics.Totals::plus);
+          bySubtree
+              .computeIfAbsent(aggregation.subtrees.get(subtree), name -> new HashMap<>())
+              .merge(owner, totals, OwnershipStatistics.Totals::plus);
+        });
+    return new OwnershipStatistics(byOwner, bySubtree, total.unreadable());
+  }
+
+  /** The state shared by the tasks of one {@link #aggregate(Path)} call. */
+  private final class Aggregation {
+    final ConcurrentLinkedQueue<OwnershipAccumulator> accumulators = new ConcurrentLinkedQueue<>();
+    final ThreadLocal<OwnershipAccumulator> local =
+        ThreadLocal.withInitial(
+            () -> {
+              OwnershipAccumulator accumulator = new OwnershipAccumulator();
+              accumulators.add(accumulator);
+              return accumulator;
+            });
+
+    /** Subtree names by index, only appended to by the task of the root. */
+    final List<String> subtrees = new ArrayList<>(List.of(OwnershipStatistics.ROOT));
+
+    /** Stand-in ids for owners on file systems without a {@code unix} view. */
+    final Map<String, Integer> syntheticIds = new ConcurrentHashMap<>();
+
+    final AtomicInteger nextSyntheticId = new AtomicInteger(-1);
+
+    /** Reads the owner, type and size of an entry with one call. */
+    EntryAttributes read(Path path) throws IOException {
+      if (unixSupported) {
+        try {
+          Map<String, Object> attrs =
+              Files.readAttributes(path, UNIX_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+          boolean directory = ((Integer) attrs.get("mode") & S_IFMT) == S_IFDIR;
+          return new EntryAttributes(
+              (Integer) attrs.get("uid"), directory, (Long) attrs.get("size"));
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+          unixSupported = false;
+        }
+      }
+      BasicFileAttributes attrs =
+          Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      String owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).getName();
+      int uid = syntheticIds.computeIfAbsent(owner, name -> nextSyntheticId.getAndDecrement());
+      return new EntryAttributes(uid, attrs.isDirectory(), attrs.size());
+    }
+
+    /**
+     * Counts an entry, directories without their size, and resolves the name of its owner unless it
+     * is cached already. The entry is counted even if it vanished before its owner name could be
+     * resolved; the name is then resolved with the next entry of the same owner.
+     */
+    void count(OwnershipAccumulator accumulator, Path path, int subtree, EntryAttributes attrs) {
+      accumulator.add(
+          subtree, attrs.uid(), attrs.directory(), attrs.directory() ? 0 : attrs.size());
+      if (unixSupported && ownerNames.cachedName(attrs.uid()) == null) {
+        try {
+          ownerNames.name(attrs.uid(), path, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+          // the entry vanished, it is still counted but not unreadable
+        }
+      }
+    }
+
+    String ownerName(int uid) {
+      String name = ownerNames.cachedName(uid);
+      if (name != null) {
+        return name;
+      }
+      for (Map.Entry<String, Integer> synthetic : syntheticIds.entrySet()) {
+        if (synthetic.getValue() == uid) {
+          return synthetic.getKey();
+        }
+      }
+      // the owner of every counted entry vanished before its name could be resolved
+      return Integer.toString(uid);
+    }
+  }
+
+  private record EntryAttributes(int uid, boolean directory, long size) {}
+
+  /** Counts one directory, or the root entry, and forks a task for each subdirectory. */
+  private final class CountTask extends RecursiveAction {
+    private final Path path;
+    private final int subtree;
+    private final boolean root;
+    private final Aggregation aggregation;
+
+    CountTask(Path path, int subtree, boolean root, Aggregation aggregation) {
+      this.path = path;
+      this.subtree = subtree;
+      this.root = root;
+      this.aggregation = aggregation;
+    }
+
+    @Override
+    protected void compute() {
+      OwnershipAccumulator accumulator = aggregation.local.get();
+      try {
+        if (root) {
+          EntryAttributes attrs = aggregation.read(path);
+          aggregation.count(accumulator, path, ROOT_SUBTREE, attrs);
+          if (!attrs.directory()) {
+            return;
+          }
+        }
+      } catch (IOException e) {
+        accumulator.addUnreadable();
+        return;
+      }
+      List<CountTask> subtasks = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+        for (Path entry : stream) {
+          try {
+            EntryAttributes attrs = aggregation.read(entry);
+            int entrySubtree = attrs.directory() ? subtreeOf(entry) : subtree;
+            aggregation.count(accumulator, entry, entrySubtree, attrs);
+            if (attrs.directory()) {
+              subtasks.add(new CountTask(entry, entrySubtree, false, aggregation));
+            }
+          } catch (IOException e) {
+            accumulator.addUnreadable();
+          }
+        }
+      } catch (IOException e) {
+        accumulator.addUnreadable();
+      } catch (DirectoryIteratorException e) {
+        throw new UncheckedIOException(e.getCause());
+      }
+      invokeAll(subtasks);
+    }
+
+    /** Every directory directly inside the root starts a subtree of its own. */
+    private int subtreeOf(Path dir) {
+      if (!root) {
+        return subtree;
+      }
+      aggregation.subtrees.add(dir.getFileName().toString());
+      return aggregation.subtrees.size() - 1;
+    }
+  }
+
+  /** Visits the root entry, which may be a file or a directory. */
+  private final class EntryTask extends RecursiveAction {
+    private final Path path;
+    private final Consumer<FileEntry> sink;
+
+    EntryTask(Path path, Consumer<FileEntry> sink) {
+      this.path = path;
+      this.sink = sink;
+    }
+
+    @Override
+    protected void compute() {
+      FileOwnershipVisitor visitor = new FileOwnershipVisitor(fileOwner, sink, ownerNames);
+      try {
+        BasicFileAttributes attrs =
+            Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (attrs.isDirectory()) {
+          new DirectoryTask(path, attrs, sink).compute();
+          return;
+        }
+        visitor.visitFile(path, attrs);
+      } catch (IOException e) {
+        visitor.visitFileFailed(path, e);
+      }
+    }
+  }
+
+  /** Visits one directory and forks a task for each of its subdirectories. */
+  private final class DirectoryTask extends RecursiveAction {
+    private final Path dir;
+    private final BasicFileAttributes attrs;
+    private final Consumer<FileEntry> sink;
+
+    DirectoryTask(Path dir, BasicFileAttributes attrs, Consumer<FileEntry> sink) {
+      this.dir = dir;
+      this.attrs = attrs;
+      this.sink = sink;
+    }
+
+    @Override
+    protected void compute() {
+      FileOwnershipVisitor visitor = new FileOwnershipVisitor(fileOwner, sink, ownerNames);
+      List<DirectoryTask> subtasks = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+        visitor.preVisitDirectory(dir, attrs);
+        for (Path entry : stream) {
+          visitEntry(visitor, entry, subtasks);
+        }
+      } catch (IOException e) {
+        // like walkFileTree, a directory that cannot be opened is reported instead of entered
+        visitor.visitFileFailed(dir, e);
+      } catch (DirectoryIteratorException e) {
+        throw new UncheckedIOException(e.getCause());
+      }
+      invokeAll(subtasks);
+    }
+
+    private void visitEntry(
+        FileOwnershipVisitor visitor, Path entry, List<DirectoryTask> subtasks) {
+      try {
+        BasicFileAttributes entryAttrs =
+            Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (entryAttrs.isDirectory()) {
+          subtasks.add(new DirectoryTask(entry, entryAttrs, sink));
+        } else {
+          visitor.visitFile(entry, entryAttrs);
+        }
+      } catch (IOException e) {
+        visitor.visitFileFailed(entry, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package ch.wintersoft.java.snippets.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.Reference;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class MergeableDockerNetworkChangeFeedTest {
+
+  @Test
+  void addingAndMergingNetworks_publishesVersionedEvents() throws UnknownHostException {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage();
+    MergeableDockerNetwork a = new MergeableDockerNetwork("a");
+    MergeableDockerNetwork a1 =
+        new MergeableDockerNetwork("a", InetAddress.getByName("192.168.10.1"));
+    usage.addNetwork(a);
+    usage.addNetwork(a1);
+    usage.addNetwork(a1);
+
+    List<NetworkChangeEvent> changes = usage.changesSince(0);
+    assertEquals(2, changes.size());
+    assertEquals(new NetworkChangeEvent(1, NetworkChangeType.ADDED, a, null), changes.get(0));
+    assertEquals(new NetworkChangeEvent(2, NetworkChangeType.MERGED, a1, a), changes.get(1));
+    assertEquals(2, usage.currentVersion());
+  }
+
+  @Test
+  void conflictingNetwork_publishesConflictEvent() throws UnknownHostException {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage();
+    MergeableDockerNetwork n1 =
+        new MergeableDockerNetwork("a", InetAddress.getByName("192.168.10.1"));
+    MergeableDockerNetwork n2 =
+        new MergeableDockerNetwork("a", InetAddress.getByName("192.168.10.2"));
+    usage.addNetwork(n1);
+    assertThrows(IllegalArgumentException.class, () -> usage.addNetwork(n2));
+
+    List<NetworkChangeEvent> changes = usage.changesSince(1);
+    assertEquals(1, changes.size());
+    assertEquals(new NetworkChangeEvent(2, NetworkChangeType.CONFLICT, n2, n1), changes.get(0));
+    assertSame(n1, usage.getNetworks().get("a"));
+  }
+
+  @Test
+  void changesSince_returnsOnlyNewerEvents() {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage();
+    usage.addNetwork(new MergeableDockerNetwork("a"));
+    usage.addNetwork(new MergeableDockerNetwork("b"));
+    long seen = usage.currentVersion();
+    usage.addNetwork(new MergeableDockerNetwork("c"));
+
+    List<NetworkChangeEvent> changes = usage.changesSince(seen);
+    assertEquals(1, changes.size());
+    assertEquals("c", changes.getFirst().network().name());
+    assertTrue(usage.changesSince(usage.currentVersion()).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> usage.changesSince(-1));
+  }
+
+  @Test
+  void listener_receivesEveryEvent() {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage();
+    List<NetworkChangeEvent> received = new ArrayList<>();
+    Consumer<NetworkChangeEvent> listener = received::add;
+    usage.addChangeListener(listener);
+    usage.addNetwork(new MergeableDockerNetwork("a"));
+    usage.addNetwork(new MergeableDockerNetwork("b"));
+    usage.removeChangeListener(listener);
+    usage.addNetwork(new MergeableDockerNetwork("c"));
+
+    assertEquals(usage.changesSince(0).subList(0, 2), received);
+  }
+
+  @Test
+  void snapshot_isNotAffectedByLaterChanges() throws UnknownHostException {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage();
+    MergeableDockerNetwork a = new MergeableDockerNetwork("a");
+    usage.addNetwork(a);
+    MergeableDockerNetworkSnapshot snapshot = usage.snapshot();
+
+    MergeableDockerNetwork a1 =
+        new MergeableDockerNetwork("a", InetAddress.getByName("192.168.10.1"));
+    usage.addNetwork(a1);
+    usage.addNetwork(new MergeableDockerNetwork("b"));
+
+    assertEquals(1, snapshot.version());
+    assertEquals(Map.of("a", a), snapshot);
+    assertSame(a, snapshot.get("a"));
+    assertNull(snapshot.get("b"));
+    assertFalse(snapshot.containsKey("b"));
+
+    MergeableDockerNetworkSnapshot latest = usage.snapshot();
+    assertEquals(3, latest.version());
+    assertEquals(2, latest.size());
+    assertSame(a1, latest.get("a"));
+  }
+
+  @Test
+  void snapshot_isUnmodifiable() {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage();
+    MergeableDockerNetworkSnapshot snapshot = usage.snapshot();
+    MergeableDockerNetwork a = new MergeableDockerNetwork("a");
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.put("a", a));
+  }
+
+  @Test
+  void changesBeyondHistoryLimit_areDiscarded() {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage(4);
+    for (int i = 0; i < 20; i++) {
+      usage.addNetwork(new MergeableDockerNetwork("net" + i));
+    }
+
+    List<NetworkChangeEvent> changes = usage.changesSince(16);
+    assertEquals(4, changes.size());
+    assertEquals(17, changes.getFirst().version());
+    assertThrows(IllegalStateException.class, () -> usage.changesSince(0));
+  }
+
+  @Test
+  void liveSnapshot_keepsChangesSinceItsVersion() {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage(2);
+    usage.addNetwork(new MergeableDockerNetwork("first"));
+    MergeableDockerNetworkSnapshot snapshot = usage.snapshot();
+    for (int i = 0; i < 20; i++) {
+      usage.addNetwork(new MergeableDockerNetwork("net" + i));
+    }
+
+    assertEquals(20, usage.changesSince(snapshot.version()).size());
+    Reference.reachabilityFence(snapshot);
+  }
+
+  @Test
+  void oldRevisions_areKeptOnlyForLiveSnapshots() throws UnknownHostException {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage();
+    MergeableDockerNetwork a = new MergeableDockerNetwork("a");
+    MergeableDockerNetwork b = new MergeableDockerNetwork("b");
+    usage.addNetwork(a);
+    usage.addNetwork(b);
+    MergeableDockerNetworkSnapshot snapshot = usage.snapshot();
+
+    usage.addNetwork(new MergeableDockerNetwork("a", InetAddress.getByName("192.168.10.1")));
+    usage.addNetwork(new MergeableDockerNetwork("b", InetAddress.getByName("192.168.20.1")));
+
+    assertEquals(2, usage.revisions("a"));
+    assertSame(a, snapshot.get("a"));
+    assertSame(b, snapshot.get("b"));
+    Reference.reachabilityFence(snapshot);
+  }
+
+  @Test
+  void withoutSnapshots_onlyCurrentRevisionIsKept() throws UnknownHostException {
+    MergeableDockerNetworkUsage usage = new MergeableDockerNetworkUsage();
+    usage.addNetwork(new MergeableDockerNetwork("a"));
+    usage.addNetwork(new MergeableDockerNetwork("a", InetAddress.getByName("192.168.10.1")));
+
+    assertEquals(1, usage.revisions("a"));
+  }
+
+  @Test
+  void negativeHistoryLimit_isRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new MergeableDockerNetworkUsage(-1));
+  }
+}
@@ -0,0 +1,147 @@
+package ch.wintersoft.java.snippets.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MergeableDockerNetworkStoreTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void restart_restoresAllNetworks() throws IOException {
+    MergeableDockerNetwork a = new MergeableDockerNetwork("a");
+    MergeableDockerNetwork b = new MergeableDockerNetwork("b", InetAddress.getByName("10.0.0.1"));
+    MergeableDockerNetwork c = new MergeableDockerNetwork("c", InetAddress.getByName("fd00::1"));
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 100)) {
+      store.getUsage().addNetwork(a);
+      store.getUsage().addNetwork(b);
+      store.getUsage().addNetwork(c);
+    }
+
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 100)) {
+      assertEquals(Map.of("a", a, "b", b, "c", c), store.getUsage().getNetworks());
+    }
+  }
+
+  @Test
+  void restart_restoresMergedNetwork() throws IOException {
+    MergeableDockerNetwork merged =
+        new MergeableDockerNetwork("a", InetAddress.getByName("192.168.10.1"));
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 100)) {
+      store.getUsage().addNetwork(new MergeableDockerNetwork("a"));
+      store.getUsage().addNetwork(merged);
+    }
+
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 100)) {
+      assertEquals(Map.of("a", merged), store.getUsage().getNetworks());
+    }
+  }
+
+  @Test
+  void compaction_writesSnapshotAndResetsLog() throws IOException {
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 3)) {
+      for (int i = 0; i < 7; i++) {
+        store.getUsage().addNetwork(new MergeableDockerNetwork("net" + i));
+      }
+    }
+    assertTrue(Files.exists(directory.resolve(MergeableDockerNetworkStore.SNAPSHOT_FILE)));
+
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 3)) {
+      assertEquals(7, store.getUsage().getNetworks().size());
+      store.compact();
+      assertEquals(8, Files.size(directory.resolve(MergeableDockerNetworkStore.LOG_FILE)));
+    }
+
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 3)) {
+      assertEquals(7, store.getUsage().getNetworks().size());
+    }
+  }
+
+  @Test
+  void replayedLogRecords_countTowardsCompaction() throws IOException {
+    Path logFile = directory.resolve(MergeableDockerNetworkStore.LOG_FILE);
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 5)) {
+      for (int i = 0; i < 4; i++) {
+        store.getUsage().addNetwork(new MergeableDockerNetwork("net" + i));
+      }
+    }
+    assertTrue(Files.size(logFile) > 8);
+
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 5)) {
+      store.getUsage().addNetwork(new MergeableDockerNetwork("net4"));
+      assertEquals(8, Files.size(logFile));
+    }
+
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 5)) {
+      assertEquals(5, store.getUsage().getNetworks().size());
+    }
+  }
+
+  @Test
+  void logAboveThreshold_isCompactedOnOpen() throws IOException {
+    Path logFile = directory.resolve(MergeableDockerNetworkStore.LOG_FILE);
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 10)) {
+      for (int i = 0; i < 4; i++) {
+        store.getUsage().addNetwork(new MergeableDockerNetwork("net" + i));
+      }
+    }
+
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 3)) {
+      assertEquals(8, Files.size(logFile));
+      assertEquals(4, store.getUsage().getNetworks().size());
+    }
+  }
+
+  @Test
+  void failedCompactionOnOpen_keepsLog() throws IOException {
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 10)) {
+      for (int i = 0; i < 4; i++) {
+        store.getUsage().addNetwork(new MergeableDockerNetwork("net" + i));
+      }
+    }
+    // a non-empty directory in place of the temporary snapshot makes the compaction fail
+    Path tempFile = directory.resolve(MergeableDockerNetworkStore.SNAPSHOT_FILE + ".tmp");
+    Files.createDirectories(tempFile.resolve("blocker"));
+
+    assertThrows(IOException.class, () -> new MergeableDockerNetworkStore(directory, 3));
+
+    Files.delete(tempFile.resolve("blocker"));
+    Files.delete(tempFile);
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 3)) {
+      assertEquals(4, store.getUsage().getNetworks().size());
+      assertEquals(8, Files.size(directory.resolve(MergeableDockerNetworkStore.LOG_FILE)));
+    }
+  }
+
+  @Test
+  void tornLogTail_isTruncatedOnRecovery() throws IOException {
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 100)) {
+      store.getUsage().addNetwork(new MergeableDockerNetwork("a"));
+      store.getUsage().addNetwork(new MergeableDockerNetwork("b"));
+    }
+    Path logFile = directory.resolve(MergeableDockerNetworkStore.LOG_FILE);
+    long validSize = Files.size(logFile);
+    // simulate a crash in the middle of an append
+    Files.write(logFile, new byte[] {0, 0, 0, 9, 1, 2, 3}, StandardOpenOption.APPEND);
+
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 100)) {
+      assertEquals(2, store.getUsage().getNetworks().size());
+      assertEquals(validSize, Files.size(logFile));
+      store.getUsage().addNetwork(new MergeableDockerNetwork("c"));
+    }
+
+    try (MergeableDockerNetworkStore store = new MergeableDockerNetworkStore(directory, 100)) {
+      assertEquals(3, store.getUsage().getNetworks().size());
+    }
+  }
+}
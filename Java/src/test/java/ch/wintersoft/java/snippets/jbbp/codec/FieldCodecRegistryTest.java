@@ -0,0 +1,99 @@
+package ch.wintersoft.java.snippets.jbbp.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.igormaznitsa.jbbp.JBBPParser;
+import com.igormaznitsa.jbbp.compiler.JBBPNamedFieldInfo;
+import com.igormaznitsa.jbbp.exceptions.JBBPCompilationException;
+import com.igormaznitsa.jbbp.io.JBBPBitInputStream;
+import com.igormaznitsa.jbbp.io.JBBPByteOrder;
+import com.igormaznitsa.jbbp.model.JBBPFieldInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldString;
+import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class FieldCodecRegistryTest {
+
+  @Test
+  void with_returnsNewRegistryAndKeepsOriginal() {
+    FieldCodecRegistry base = FieldCodecRegistry.standard();
+    FieldCodecRegistry extended =
+        base.with("mac", FieldCodecs.MAC_LONG).with("bits", FieldCodecs.HEX);
+
+    assertSame(FieldCodecs.MAC, base.codec("mac"));
+    assertSame(FieldCodecs.MAC_LONG, extended.codec("mac"));
+    assertNull(base.codec("bits"));
+    assertArrayEquals(
+        new String[] {"mac", "ipv4", "ipv6", "hex", "bcd", "uuid", "timestamp", "bits"},
+        extended.types());
+    assertThrows(IllegalArgumentException.class, () -> base.with("Mac", FieldCodecs.MAC));
+  }
+
+  @Test
+  void codec_isResolvedOncePerFieldAtCompileTime() throws IOException {
+    AtomicInteger allowedCalls = new AtomicInteger();
+    FieldCodec counter =
+        new FieldCodec() {
+          @Override
+          public JBBPFieldInt read(
+              JBBPBitInputStream in,
+              JBBPByteOrder byteOrder,
+              JBBPNamedFieldInfo fieldName,
+              int extraData,
+              int arrayLength)
+              throws IOException {
+            return new JBBPFieldInt(fieldName, in.readByte() + extraData);
+          }
+
+          @Override
+          public boolean isAllowed(int extraData, boolean isArray) {
+            allowedCalls.incrementAndGet();
+            return extraData < 100;
+          }
+        };
+    JBBPParser parser =
+        FieldCodecRegistry.empty().with("plus", counter).prepare("plus:10 a; plus:20 b;");
+
+    for (int i = 0; i < 3; i++) {
+      JBBPFieldStruct parsed = parser.parse(new byte[] {1, 2});
+      assertEquals(11, parsed.findFieldForNameAndType("a", JBBPFieldInt.class).getAsInt());
+      assertEquals(22, parsed.findFieldForNameAndType("b", JBBPFieldInt.class).getAsInt());
+    }
+    assertEquals(2, allowedCalls.get());
+    assertThrows(
+        JBBPCompilationException.class,
+        () -> FieldCodecRegistry.empty().with("plus", counter).prepare("plus:100 a;"));
+  }
+
+  @Test
+  void sharedProcessor_servesSeveralParsers() throws IOException {
+    FieldCodecProcessor processor = new FieldCodecProcessor(FieldCodecRegistry.standard());
+    JBBPParser first = JBBPParser.prepare("ipv4 address;", processor);
+    JBBPParser second = JBBPParser.prepare("hex[2] id; ipv4 address;", processor);
+
+    assertEquals(
+        "10.0.0.1",
+        first
+            .parse(new byte[] {10, 0, 0, 1})
+            .findFieldForNameAndType("address", JBBPFieldString.class)
+            .getAsString());
+    assertEquals(
+        "0A0B",
+        second
+            .parse(new byte[] {10, 11, 10, 0, 0, 1})
+            .findFieldForNameAndType("id", JBBPFieldString.class)
+            .getAsString());
+  }
+
+  @Test
+  void unknownType_failsCompilation() {
+    assertThrows(
+        JBBPCompilationException.class, () -> FieldCodecRegistry.empty().prepare("mac address;"));
+  }
+}
@@ -0,0 +1,85 @@
+package ch.wintersoft.java.snippets.jbbp.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.igormaznitsa.jbbp.JBBPParser;
+import com.igormaznitsa.jbbp.exceptions.JBBPCompilationException;
+import com.igormaznitsa.jbbp.model.JBBPFieldLong;
+import com.igormaznitsa.jbbp.model.JBBPFieldString;
+import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class FieldCodecsTest {
+  private static final FieldCodecRegistry REGISTRY = FieldCodecRegistry.standard();
+
+  @Test
+  void ipv6_matchesInetAddress() throws IOException {
+    byte[] address = InetAddress.getByName("fd00::12:abcd").getAddress();
+    JBBPFieldStruct parsed = REGISTRY.prepare("ipv6 address;").parse(address);
+    assertEquals(
+        InetAddress.getByAddress(address).getHostAddress(),
+        parsed.findFieldForNameAndType("address", JBBPFieldString.class).getAsString());
+  }
+
+  @Test
+  void bcd_keepsLeadingZeros() throws IOException {
+    JBBPFieldStruct parsed =
+        REGISTRY.prepare("bcd[3] serial;").parse(new byte[] {0x00, 0x42, (byte) 0x99});
+    assertEquals(
+        "004299", parsed.findFieldForNameAndType("serial", JBBPFieldString.class).getAsString());
+  }
+
+  @Test
+  void bcd_invalidDigit_throwsException() {
+    JBBPParser parser = REGISTRY.prepare("bcd[1] serial;");
+    assertThrows(IllegalArgumentException.class, () -> parser.parse(new byte[] {0x1A}));
+  }
+
+  @Test
+  void uuid_isReadInBothByteOrders() throws IOException {
+    UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    byte[] bytes = new byte[16];
+    for (int i = 0; i < 8; i++) {
+      bytes[i] = (byte) (uuid.getMostSignificantBits() >>> (56 - i * 8));
+      bytes[i + 8] = (byte) (uuid.getLeastSignificantBits() >>> (56 - i * 8));
+    }
+    JBBPFieldStruct parsed = REGISTRY.prepare("uuid id;").parse(bytes);
+    assertEquals(
+        uuid.toString(), parsed.findFieldForNameAndType("id", JBBPFieldString.class).getAsString());
+
+    byte[] reversed = new byte[16];
+    for (int i = 0; i < 16; i++) {
+      reversed[i] = bytes[15 - i];
+    }
+    parsed = REGISTRY.prepare("<uuid id;").parse(reversed);
+    assertEquals(
+        uuid.toString(), parsed.findFieldForNameAndType("id", JBBPFieldString.class).getAsString());
+  }
+
+  @Test
+  void timestamp_readsSecondsAndMilliseconds() throws IOException {
+    Instant instant = Instant.parse("2106-02-07T06:28:15Z"); // 0xFFFFFFFF seconds
+    byte[] bytes = {-1, -1, -1, -1, 0, 0, 1, -114, 0, 0, 0, 1};
+    JBBPFieldStruct parsed =
+        REGISTRY.prepare("timestamp seconds; timestamp:8 millis;").parse(bytes);
+
+    assertEquals(
+        instant.toEpochMilli(),
+        parsed.findFieldForNameAndType("seconds", JBBPFieldLong.class).getAsLong());
+    assertEquals(
+        0x0000018E00000001L,
+        parsed.findFieldForNameAndType("millis", JBBPFieldLong.class).getAsLong());
+  }
+
+  @Test
+  void invalidDeclarations_failCompilation() {
+    assertThrows(JBBPCompilationException.class, () -> REGISTRY.prepare("mac[2] macs;"));
+    assertThrows(JBBPCompilationException.class, () -> REGISTRY.prepare("timestamp:2 time;"));
+    assertThrows(JBBPCompilationException.class, () -> REGISTRY.prepare("uuid[1] ids;"));
+  }
+}
@@ -0,0 +1,93 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MoxaCaptureDecoderTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void decode_matchesParserForEveryFrame() throws IOException {
+    List<byte[]> frames = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      frames.add(
+          MoxaIPReportDecoderTest.frame(
+              "NPort " + i,
+              new byte[] {0x11, (byte) i},
+              new byte[] {0, -112, -24, (byte) (i >>> 16), (byte) (i >>> 8), (byte) i},
+              new byte[] {(byte) 192, (byte) 168, (byte) (i % 3), (byte) i},
+              new byte[] {1, (byte) (i % 10), 0, 0},
+              new byte[] {1, 2, 3, 4}));
+    }
+    Path capture = write(frames);
+
+    MoxaReportColumns columns = MoxaCaptureDecoder.decode(capture);
+
+    assertEquals(frames.size(), columns.size());
+    assertEquals(0, columns.malformedCount());
+    for (int i = 0; i < frames.size(); i += 997) {
+      MoxaIPReport expected =
+          MoxaIPReport.MOXA_PARSER.parse(frames.get(i)).mapTo(new MoxaIPReport());
+      assertEquals(expected.macAddress, MoxaFieldFormat.macAddress(columns.macAddresses()[i]));
+      assertEquals(expected.serialNumber, columns.serialNumbers()[i]);
+      assertEquals(expected.ipAddress, MoxaFieldFormat.ipv4(columns.ipAddresses()[i]));
+      assertEquals(expected.netmask, MoxaFieldFormat.ipv4(columns.netmasks()[i]));
+      assertEquals(expected.gateway, MoxaFieldFormat.ipv4(columns.gateways()[i]));
+      assertEquals(expected.firmware, MoxaFieldFormat.firmware(columns.firmwares()[i]));
+    }
+    int expectedInSubnet = (frames.size() + 2) / 3;
+    assertEquals(expectedInSubnet, columns.countInSubnet(0xC0A80000, 0xFFFFFF00));
+  }
+
+  @Test
+  void malformedFrame_isMarkedAndSkipped() throws IOException {
+    byte[] valid = MoxaIPReportDecoderTest.MOXA_REPORT;
+    Path capture = write(List.of(valid, new byte[] {'M', 'O', 'X', 'A'}, valid));
+
+    MoxaReportColumns columns = MoxaCaptureDecoder.decode(capture);
+
+    assertEquals(3, columns.size());
+    assertEquals(1, columns.malformedCount());
+    assertTrue(columns.isMalformed(1));
+    assertFalse(columns.isMalformed(2));
+    assertEquals(0x0090E89C0D5BL, columns.macAddresses()[2]);
+    assertArrayEquals(new int[] {valid.length, 4, valid.length}, columns.frameLengths());
+  }
+
+  @Test
+  void truncatedCapture_throwsException() {
+    ByteBuffer capture = ByteBuffer.wrap(new byte[] {0, 10, 1, 2, 3});
+    assertThrows(IOException.class, () -> MoxaCaptureDecoder.decode(capture));
+  }
+
+  @Test
+  void emptyCapture_hasNoRows() throws IOException {
+    assertEquals(0, MoxaCaptureDecoder.decode(write(List.of())).size());
+  }
+
+  private Path write(List<byte[]> frames) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] frame : frames) {
+      out.write(frame.length >>> 8);
+      out.write(frame.length);
+      out.write(frame);
+    }
+    Path capture = directory.resolve("moxa.capture");
+    Files.write(capture, out.toByteArray());
+    return capture;
+  }
+}
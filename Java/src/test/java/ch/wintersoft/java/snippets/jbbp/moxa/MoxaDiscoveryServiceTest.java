@@ -0,0 +1,143 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+class MoxaDiscoveryServiceTest {
+  private static final InetSocketAddress LOOPBACK =
+      new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+  @Test
+  void loopbackReports_fillDeviceTable() throws Exception {
+    int devices = 200;
+    try (MoxaDiscoveryService service = new MoxaDiscoveryService(LOOPBACK, 2, 16, 64);
+        DatagramChannel generator = DatagramChannel.open()) {
+      service.start();
+      InetSocketAddress target = service.getLocalAddress();
+      for (int i = 0; i < devices; i++) {
+        generator.send(ByteBuffer.wrap(frame(i)), target);
+      }
+      generator.send(ByteBuffer.wrap(new byte[] {'M', 'O', 'X', 'A'}), target);
+
+      awaitTrue(
+          () -> {
+            MoxaDiscoveryMetrics metrics = service.getMetrics();
+            return metrics.reportsDecoded() + metrics.malformedPackets() + metrics.droppedPackets()
+                == devices + 1;
+          });
+      MoxaDiscoveryMetrics metrics = service.getMetrics();
+      assertEquals(devices + 1, metrics.packetsReceived());
+      assertEquals(1, metrics.malformedPackets());
+      assertEquals(devices - metrics.droppedPackets(), service.getDevices().size());
+      assertTrue(metrics.batches() > 0);
+      assertTrue(metrics.packetsPerSecond() > 0);
+
+      // the report may have been dropped under load, so announce the device once more
+      generator.send(ByteBuffer.wrap(frame(7)), target);
+      awaitTrue(() -> service.getDevices().containsKey(0x0090E8000007L));
+      MoxaIPReport report = service.getDevices().get(0x0090E8000007L);
+      assertNotNull(report);
+      assertEquals("00-90-E8-00-00-07", report.macAddress);
+      assertEquals("10.0.0.7", report.ipAddress);
+      assertTrue(service.getFailure().isEmpty());
+    }
+  }
+
+  @Test
+  void repeatedReports_updateDeviceByMac() throws Exception {
+    try (MoxaDiscoveryService service = new MoxaDiscoveryService(LOOPBACK, 1, 4, 4);
+        DatagramChannel generator = DatagramChannel.open()) {
+      service.start();
+      InetSocketAddress target = service.getLocalAddress();
+      generator.send(ByteBuffer.wrap(frame(1)), target);
+      awaitTrue(() -> service.getMetrics().reportsDecoded() == 1);
+      generator.send(ByteBuffer.wrap(frame(1, new byte[] {10, 0, 1, 99})), target);
+      awaitTrue(() -> service.getMetrics().reportsDecoded() == 2);
+
+      assertEquals(1, service.getDevices().size());
+      assertEquals("10.0.1.99", service.getDevices().get(0x0090E8000001L).ipAddress);
+    }
+  }
+
+  @Test
+  void oversizedDatagram_isRejectedAsMalformed() throws Exception {
+    try (MoxaDiscoveryService service = new MoxaDiscoveryService(LOOPBACK, 1, 4, 4);
+        DatagramChannel generator = DatagramChannel.open()) {
+      service.start();
+      byte[] frame = frame(1);
+      // a valid report padded beyond the maximum frame size would still decode once truncated
+      byte[] oversized = Arrays.copyOf(frame, MoxaDiscoveryService.MAX_FRAME_SIZE + 100);
+      generator.send(ByteBuffer.wrap(oversized), service.getLocalAddress());
+      awaitTrue(() -> service.getMetrics().malformedPackets() == 1);
+
+      assertEquals(0, service.getMetrics().reportsDecoded());
+      assertTrue(service.getDevices().isEmpty());
+    }
+  }
+
+  @Test
+  void lateReport_doesNotReplaceNewerReport() throws IOException {
+    try (MoxaDiscoveryService service = new MoxaDiscoveryService(LOOPBACK, 1, 1, 1)) {
+      MoxaIPReport newer = new MoxaIPReport();
+      MoxaIPReport older = new MoxaIPReport();
+      MoxaIPReport newest = new MoxaIPReport();
+
+      service.store(1L, newer, 5);
+      service.store(1L, older, 3);
+      assertSame(newer, service.getDevices().get(1L));
+
+      service.store(1L, newest, 8);
+      assertSame(newest, service.getDevices().get(1L));
+    }
+  }
+
+  @Test
+  void start_twice_throwsException() throws IOException {
+    try (MoxaDiscoveryService service = new MoxaDiscoveryService(LOOPBACK, 1, 1, 1)) {
+      service.start();
+      assertThrows(IllegalStateException.class, service::start);
+    }
+  }
+
+  @Test
+  void constructor_invalidSizes_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> new MoxaDiscoveryService(LOOPBACK, 0, 1, 1));
+    assertThrows(IllegalArgumentException.class, () -> new MoxaDiscoveryService(LOOPBACK, 1, 0, 1));
+  }
+
+  private static byte[] frame(int device) {
+    return frame(device, new byte[] {10, 0, 0, (byte) device});
+  }
+
+  private static byte[] frame(int device, byte[] ip) {
+    return MoxaIPReportDecoderTest.frame(
+        "NPort " + device,
+        new byte[] {0x11},
+        new byte[] {0, -112, -24, 0, (byte) (device >>> 8), (byte) device},
+        ip,
+        new byte[] {1, 4, 0, 0},
+        new byte[] {1, 2, 3, 4});
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        throw new AssertionError("Condition not met within 10 seconds");
+      }
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MoxaFieldFormatTest {
+
+  @Test
+  void hex_rendersUppercasePairs() {
+    assertEquals("800071A1", MoxaFieldFormat.hex(new byte[] {-128, 0, 113, -95}));
+    assertEquals("", MoxaFieldFormat.hex(new byte[0]));
+  }
+
+  @Test
+  void hex_matchesStringFormat() {
+    byte[] all = new byte[256];
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < all.length; i++) {
+      all[i] = (byte) i;
+      expected.append(String.format("%02X", all[i]));
+    }
+    assertEquals(expected.toString(), MoxaFieldFormat.hex(all));
+  }
+
+  @Test
+  void macAddress_rendersSixBytes() {
+    long mac = MoxaFieldFormat.macAddressToLong(new byte[] {0, -112, -24, -100, 13, 91});
+    assertEquals(0x0090E89C0D5BL, mac);
+    assertEquals("00-90-E8-9C-0D-5B", MoxaFieldFormat.macAddress(mac));
+    assertEquals("FF-FF-FF-FF-FF-FF", MoxaFieldFormat.macAddress(0xFFFFFFFFFFFFL));
+  }
+
+  @Test
+  void ipv4_rendersDottedDecimal() {
+    assertEquals("192.168.30.253", MoxaFieldFormat.ipv4(0xC0A81EFD));
+    assertEquals("0.0.0.0", MoxaFieldFormat.ipv4(0));
+    assertEquals("255.255.255.255", MoxaFieldFormat.ipv4(-1));
+  }
+
+  @Test
+  void firmware_decodesVersion() {
+    assertEquals(1.4, MoxaFieldFormat.firmware(0x01040000));
+    assertEquals(0.041, MoxaFieldFormat.firmware(0x00000401));
+    assertEquals(-2.5, MoxaFieldFormat.firmware(0xFE050000));
+  }
+
+  @Test
+  void firmware_matchesParsingTheConcatenatedString() {
+    Random random = new Random(42);
+    for (int i = 0; i < 200_000; i++) {
+      int major = random.nextInt(256) - 128;
+      int[] minors = {random.nextInt(128), random.nextInt(128), random.nextInt(128)};
+      if (i % 2 == 0) {
+        // favour short digit sequences, which produce the most collisions
+        minors[random.nextInt(3)] = random.nextInt(10);
+      }
+      int firmware = (major << 24) | (minors[0] << 16) | (minors[1] << 8) | minors[2];
+      double expected = Double.parseDouble(major + "." + minors[0] + minors[1] + minors[2]);
+      assertEquals(expected, MoxaFieldFormat.firmware(firmware), "firmware " + firmware);
+    }
+  }
+
+  @Test
+  void firmware_negativeMinorByte_throwsNumberFormatException() {
+    assertThrows(NumberFormatException.class, () -> MoxaFieldFormat.firmware(0x01FF0000));
+  }
+}
@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import com.igormaznitsa.jbbp.JBBPParser;
 import com.igormaznitsa.jbbp.exceptions.JBBPCompilationException;
 import com.igormaznitsa.jbbp.model.JBBPFieldDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldInt;
+import com.igormaznitsa.jbbp.model.JBBPFieldLong;
 import com.igormaznitsa.jbbp.model.JBBPFieldString;
 import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
 import java.io.IOException;
@@ -85,6 +87,34 @@ class MoxaFieldTypeProcessorTest {
     assertEquals(1.4, moxaIPReport.firmware);
   }
 
+  @Test
+  void parsePrimitiveAddressesTest() throws IOException {
+    byte[] addresses = new byte[] {0, -112, -24, -100, 13, 91, -64, -88, 30, -3};
+    JBBPFieldStruct parsed =
+        JBBPParser.prepare(
+                "mac macAddress; ipv4 ipAddress;",
+                new MoxaFieldTypeProcessor(MoxaFieldRepresentation.PRIMITIVE))
+            .parse(addresses);
+    assertEquals(
+        0x0090E89C0D5BL,
+        parsed.findFieldForNameAndType("macAddress", JBBPFieldLong.class).getAsLong());
+    assertEquals(
+        0xC0A81EFD, parsed.findFieldForNameAndType("ipAddress", JBBPFieldInt.class).getAsInt());
+  }
+
+  @Test
+  void mapPrimitiveMoxaIPReport() throws IOException {
+    JBBPFieldStruct parsed =
+        MoxaIPReport.MOXA_PRIMITIVE_PARSER.parse(MoxaIPReportDecoderTest.MOXA_REPORT);
+    long macAddress = parsed.findFieldForNameAndType("macAddress", JBBPFieldLong.class).getAsLong();
+    int gateway = parsed.findFieldForNameAndType("gateway", JBBPFieldInt.class).getAsInt();
+
+    assertEquals("00-90-E8-9C-0D-5B", MoxaFieldFormat.macAddress(macAddress));
+    assertEquals("192.168.30.1", MoxaFieldFormat.ipv4(gateway));
+    assertEquals(
+        1.4, parsed.findFieldForNameAndType("firmware", JBBPFieldDouble.class).getAsDouble());
+  }
+
   @Test
   void hexWithoutLengthTest() {
     byte[] bytes = new byte[] {1, 4, 0, 0};
@@ -0,0 +1,51 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the reflective JBBP mapping of {@link MoxaIPReport#MOXA_PARSER} with the hand-written
+ * {@link MoxaIPReportDecoder}.
+ *
+ * <p>Run it with the {@link #main(String[])} method from the IDE after the test classes have been
+ * compiled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoxaIPReportDecoderBenchmark {
+  private final byte[] frame = MoxaIPReportDecoderTest.MOXA_REPORT.clone();
+
+  @Benchmark
+  public MoxaIPReport reflectiveParser() throws IOException {
+    return MoxaIPReport.MOXA_PARSER.parse(frame).mapTo(new MoxaIPReport());
+  }
+
+  @Benchmark
+  public MoxaIPReport handWrittenDecoder() {
+    return MoxaIPReportDecoder.decode(frame);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(MoxaIPReportDecoderBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
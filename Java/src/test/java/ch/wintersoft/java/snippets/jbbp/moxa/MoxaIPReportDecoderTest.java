@@ -0,0 +1,135 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class MoxaIPReportDecoderTest {
+  static final byte[] MOXA_REPORT =
+      new byte[] {
+        77, 79, 88, 65, 1, 9, 112, 111, 119, 101, 114, 98, 111, 120, 50, 2, 2, -95, 113, 3, 6, 0,
+        -112, -24, -100, 13, 91, 4, 4, -117, 34, 0, 0, 5, 4, -64, -88, 30, -3, 6, 4, -1, -1, -1, 0,
+        7, 4, -64, -88, 30, 1, 8, 4, 0, 0, 4, 1, 9, 4, -95, 113, 0, -128
+      };
+
+  @Test
+  void decode_mapsAllFields() {
+    MoxaIPReport report = MoxaIPReportDecoder.decode(MOXA_REPORT);
+
+    assertEquals("MOXA", report.header);
+    assertEquals("powerbox2", report.serverName);
+    assertEquals("71A1", report.hwId);
+    assertEquals("800071A1", report.apId);
+    assertEquals("00-90-E8-9C-0D-5B", report.macAddress);
+    assertEquals(8843, report.serialNumber);
+    assertEquals("192.168.30.253", report.ipAddress);
+    assertEquals("255.255.255.0", report.netmask);
+    assertEquals("192.168.30.1", report.gateway);
+    assertEquals(1.4, report.firmware);
+  }
+
+  @ParameterizedTest
+  @MethodSource("frames")
+  void decode_matchesReflectiveParser(byte[] frame) throws IOException {
+    MoxaIPReport expected = MoxaIPReport.MOXA_PARSER.parse(frame).mapTo(new MoxaIPReport());
+    assertEquals(expected.toString(), MoxaIPReportDecoder.decode(frame).toString());
+  }
+
+  static Stream<Arguments> frames() {
+    return Stream.of(
+        Arguments.of((Object) MOXA_REPORT),
+        Arguments.of(
+            (Object)
+                frame(
+                    "NPort 5110",
+                    new byte[] {0x11},
+                    new byte[] {0, -112, -24, 1, 2, 3},
+                    new byte[] {10, 0, 0, 7},
+                    new byte[] {3, 2, 1, 2},
+                    new byte[] {1, 2, 3, 4, 5, 6, 7, 8})),
+        Arguments.of(
+            (Object)
+                frame(
+                    "é",
+                    new byte[] {-1, -2, -3},
+                    new byte[] {-1, -1, -1, -1, -1, -1},
+                    new byte[] {-1, -1, -1, -1},
+                    new byte[] {0, 0, 0, 0},
+                    new byte[] {0})));
+  }
+
+  @Test
+  void decode_readsFromBufferPositionWithoutMovingIt() {
+    byte[] padded = new byte[MOXA_REPORT.length + 7];
+    System.arraycopy(MOXA_REPORT, 0, padded, 5, MOXA_REPORT.length);
+    ByteBuffer buffer = ByteBuffer.wrap(padded).position(5);
+    MoxaIPReport target = new MoxaIPReport();
+
+    assertSame(target, MoxaIPReportDecoder.decode(buffer, target));
+    assertEquals("00-90-E8-9C-0D-5B", target.macAddress);
+    assertEquals(5, buffer.position());
+  }
+
+  @Test
+  void decode_ignoresByteOrderOfBuffer() {
+    ByteBuffer buffer = ByteBuffer.wrap(MOXA_REPORT).order(ByteOrder.LITTLE_ENDIAN);
+    MoxaIPReport report = MoxaIPReportDecoder.decode(buffer);
+
+    assertEquals(8843, report.serialNumber);
+    assertEquals("192.168.30.253", report.ipAddress);
+    assertEquals(1.4, report.firmware);
+  }
+
+  @Test
+  void decode_truncatedFrame_throwsIllegalArgumentException() {
+    for (int length : new int[] {0, 5, 16, 40, MOXA_REPORT.length - 1}) {
+      byte[] truncated = Arrays.copyOf(MOXA_REPORT, length);
+      assertThrows(IllegalArgumentException.class, () -> MoxaIPReportDecoder.decode(truncated));
+    }
+  }
+
+  @Test
+  void decode_invalidLengths_throwIllegalArgumentException() {
+    byte[] negativeName = MOXA_REPORT.clone();
+    negativeName[5] = -1;
+    assertThrows(IllegalArgumentException.class, () -> MoxaIPReportDecoder.decode(negativeName));
+
+    byte[] emptyHwId = MOXA_REPORT.clone();
+    emptyHwId[16] = 0;
+    assertThrows(IllegalArgumentException.class, () -> MoxaIPReportDecoder.decode(emptyHwId));
+  }
+
+  /** Builds a report frame with the layout of {@link MoxaIPReport#MOXA_PARSER}. */
+  static byte[] frame(
+      String serverName, byte[] hwId, byte[] mac, byte[] ip, byte[] firmware, byte[] apId) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.writeBytes(new byte[] {'M', 'O', 'X', 'A', 1, (byte) serverName.length()});
+    for (char c : serverName.toCharArray()) {
+      out.write(c);
+    }
+    out.writeBytes(new byte[] {2, (byte) hwId.length});
+    out.writeBytes(hwId);
+    out.writeBytes(new byte[] {3, 6});
+    out.writeBytes(mac);
+    out.writeBytes(new byte[] {4, 4, 1, 2, 3, 4, 5, 4});
+    out.writeBytes(ip);
+    out.writeBytes(new byte[] {6, 4, -1, -1, 0, 0, 7, 4});
+    out.writeBytes(ip);
+    out.writeBytes(new byte[] {8, 4});
+    out.writeBytes(firmware);
+    out.writeBytes(new byte[] {9, (byte) apId.length});
+    out.writeBytes(apId);
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,98 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.jupiter.api.Test;
+
+class MoxaIPReportEncoderTest {
+
+  @Test
+  void encodeParsedReport_reproducesOriginalFrame() throws IOException {
+    byte[] original = MoxaIPReportDecoderTest.MOXA_REPORT;
+    MoxaIPReport report = MoxaIPReport.MOXA_PARSER.parse(original).mapTo(new MoxaIPReport());
+
+    assertArrayEquals(original, new MoxaIPReportEncoder().report(report).toByteArray());
+  }
+
+  @Test
+  void encodePrimitives_roundTripsThroughParser() throws IOException {
+    MoxaIPReportEncoder encoder =
+        new MoxaIPReportEncoder()
+            .serverName("NPort 5110")
+            .hwId("0A11")
+            .apId("80001234")
+            .macAddress(0x0090E8010203L)
+            .serialNumber(123_456)
+            .ipAddress(0x0A000007)
+            .netmask(0xFFFF0000)
+            .gateway(0x0A000001)
+            .firmware(2.125);
+
+    MoxaIPReport report =
+        MoxaIPReport.MOXA_PARSER.parse(encoder.toByteArray()).mapTo(new MoxaIPReport());
+
+    assertEquals("MOXA", report.header);
+    assertEquals("NPort 5110", report.serverName);
+    assertEquals("0A11", report.hwId);
+    assertEquals("80001234", report.apId);
+    assertEquals("00-90-E8-01-02-03", report.macAddress);
+    assertEquals(123_456, report.serialNumber);
+    assertEquals("10.0.0.7", report.ipAddress);
+    assertEquals("255.255.0.0", report.netmask);
+    assertEquals("10.0.0.1", report.gateway);
+    assertEquals(2.125, report.firmware);
+  }
+
+  @Test
+  void encode_writesAtPositionIndependentOfByteOrder() {
+    MoxaIPReportEncoder encoder = new MoxaIPReportEncoder().serverName("a").ipAddress(0xC0A80001);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(256).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.position(10);
+
+    int written = encoder.encode(buffer);
+
+    assertEquals(encoder.length(), written);
+    assertEquals(10 + written, buffer.position());
+    buffer.flip().position(10);
+    MoxaIPReportView view = new MoxaIPReportView().wrap(buffer);
+    assertEquals(0xC0A80001, view.ipAddress());
+    assertEquals(written, view.length());
+  }
+
+  @Test
+  void encode_bufferTooSmall_throwsException() {
+    MoxaIPReportEncoder encoder = new MoxaIPReportEncoder();
+    ByteBuffer buffer = ByteBuffer.allocate(encoder.length() - 1);
+    assertThrows(BufferOverflowException.class, () -> encoder.encode(buffer));
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  void firmware_isRoundedToThreeDecimalPlaces() {
+    MoxaIPReportEncoder encoder = new MoxaIPReportEncoder();
+    assertEquals(1.4, new MoxaIPReportView().wrap(encoder.firmware(1.4).toByteArray()).firmware());
+    assertEquals(
+        3.057, new MoxaIPReportView().wrap(encoder.firmware(3.0571).toByteArray()).firmware());
+    assertThrows(IllegalArgumentException.class, () -> encoder.firmware(-1.0));
+    assertThrows(IllegalArgumentException.class, () -> encoder.firmware(128.0));
+  }
+
+  @Test
+  void invalidFields_throwIllegalArgumentException() {
+    MoxaIPReportEncoder encoder = new MoxaIPReportEncoder();
+    assertThrows(IllegalArgumentException.class, () -> encoder.header("MOX"));
+    assertThrows(IllegalArgumentException.class, () -> encoder.hwId(""));
+    assertThrows(IllegalArgumentException.class, () -> encoder.apId("ABC"));
+    assertThrows(IllegalArgumentException.class, () -> encoder.serverName("x".repeat(128)));
+
+    MoxaIPReport report = MoxaIPReportDecoder.decode(MoxaIPReportDecoderTest.MOXA_REPORT);
+    report.ipAddress = "192.168.1";
+    assertThrows(IllegalArgumentException.class, () -> encoder.report(report));
+  }
+}
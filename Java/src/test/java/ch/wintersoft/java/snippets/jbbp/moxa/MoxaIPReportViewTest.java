@@ -0,0 +1,91 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class MoxaIPReportViewTest {
+  private static final byte[] MOXA_REPORT = MoxaIPReportDecoderTest.MOXA_REPORT;
+
+  @Test
+  void wrap_decodesFieldsLazily() {
+    MoxaIPReportView view = new MoxaIPReportView().wrap(MOXA_REPORT);
+
+    assertEquals("MOXA", view.header());
+    assertEquals("powerbox2", view.serverName());
+    assertEquals("71A1", view.hwId());
+    assertEquals("800071A1", view.apId());
+    assertEquals(0x0090E89C0D5BL, view.macAddress());
+    assertEquals(8843, view.serialNumber());
+    assertEquals(0xC0A81EFD, view.ipAddress());
+    assertEquals(0xFFFFFF00, view.netmask());
+    assertEquals(0xC0A81E01, view.gateway());
+    assertEquals(1.4, view.firmware());
+    assertEquals(MOXA_REPORT.length, view.length());
+  }
+
+  @Test
+  void toReport_matchesDecoder() {
+    byte[] frame =
+        MoxaIPReportDecoderTest.frame(
+            "NPort 5110",
+            new byte[] {0x11},
+            new byte[] {0, -112, -24, 1, 2, 3},
+            new byte[] {10, 0, 0, 7},
+            new byte[] {3, 2, 1, 2},
+            new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    MoxaIPReportView view = new MoxaIPReportView();
+
+    for (byte[] f : new byte[][] {MOXA_REPORT, frame}) {
+      assertEquals(MoxaIPReportDecoder.decode(f).toString(), view.wrap(f).toReport().toString());
+    }
+  }
+
+  @Test
+  void wrap_readsBetweenPositionAndLimit() {
+    byte[] padded = new byte[MOXA_REPORT.length + 10];
+    System.arraycopy(MOXA_REPORT, 0, padded, 3, MOXA_REPORT.length);
+    ByteBuffer buffer = ByteBuffer.wrap(padded, 3, MOXA_REPORT.length);
+
+    MoxaIPReportView view = new MoxaIPReportView().wrap(buffer);
+    assertEquals("powerbox2", view.serverName());
+    assertEquals(0xC0A81EFD, view.ipAddress());
+    assertEquals(3, buffer.position());
+  }
+
+  @Test
+  void wrap_invalidFrames_throwIllegalArgumentException() {
+    MoxaIPReportView view = new MoxaIPReportView();
+    for (int length : new int[] {0, 5, 16, 40, MOXA_REPORT.length - 1}) {
+      byte[] truncated = Arrays.copyOf(MOXA_REPORT, length);
+      assertThrows(IllegalArgumentException.class, () -> view.wrap(truncated));
+    }
+    byte[] emptyApId = MOXA_REPORT.clone();
+    emptyApId[58] = 0;
+    assertThrows(IllegalArgumentException.class, () -> view.wrap(emptyApId));
+  }
+
+  @Test
+  void clearedView_throwsIllegalStateException() {
+    MoxaIPReportView view = new MoxaIPReportView().wrap(MOXA_REPORT);
+    view.clear();
+    assertThrows(IllegalStateException.class, view::macAddress);
+  }
+
+  @Test
+  void pool_reusesViews() {
+    MoxaIPReportViewPool pool = new MoxaIPReportViewPool(1);
+    MoxaIPReportView first = pool.acquire();
+    MoxaIPReportView second = pool.acquire();
+    assertEquals(0, pool.available());
+
+    pool.release(first);
+    pool.release(second);
+    assertEquals(1, pool.available());
+    assertSame(first, pool.acquire());
+  }
+}
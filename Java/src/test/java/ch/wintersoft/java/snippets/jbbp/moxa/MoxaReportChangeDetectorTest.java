@@ -0,0 +1,112 @@
+package ch.wintersoft.java.snippets.jbbp.moxa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Optional;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.Test;
+
+class MoxaReportChangeDetectorTest {
+  private static final long MAC = 0x0090E8000000L;
+
+  @Test
+  void repeatedReport_isEmittedOnlyOnce() {
+    MoxaReportChangeDetector detector = new MoxaReportChangeDetector();
+    byte[] frame = frame(1, 7);
+
+    Optional<MoxaIPReport> first = detector.accept(frame, 1000);
+    Optional<MoxaIPReport> second = detector.accept(frame.clone(), 2000);
+
+    assertTrue(first.isPresent());
+    assertEquals("10.0.0.7", first.get().ipAddress);
+    assertTrue(second.isEmpty());
+    assertEquals(OptionalLong.of(2000), detector.lastSeen(MAC + 1));
+    assertEquals(1, detector.size());
+  }
+
+  @Test
+  void changedReport_isEmittedAgain() {
+    MoxaReportChangeDetector detector = new MoxaReportChangeDetector();
+    detector.accept(frame(1, 7), 1000);
+
+    Optional<MoxaIPReport> changed = detector.accept(frame(1, 8), 2000);
+
+    assertTrue(changed.isPresent());
+    assertEquals("10.0.0.8", changed.get().ipAddress);
+    assertTrue(detector.accept(frame(1, 8), 3000).isEmpty());
+    assertEquals(1, detector.size());
+  }
+
+  @Test
+  void manyDevices_growTable() {
+    MoxaReportChangeDetector detector = new MoxaReportChangeDetector(4);
+    for (int device = 0; device < 5000; device++) {
+      assertTrue(detector.accept(frame(device, device), device).isPresent());
+    }
+    for (int device = 0; device < 5000; device++) {
+      assertTrue(detector.accept(frame(device, device), 10_000 + device).isEmpty());
+      assertEquals(OptionalLong.of(10_000 + device), detector.lastSeen(MAC + device));
+    }
+    assertEquals(5000, detector.size());
+    assertEquals(OptionalLong.empty(), detector.lastSeen(MAC + 5000));
+  }
+
+  @Test
+  void evictOlderThan_forgetsStaleDevices() {
+    MoxaReportChangeDetector detector = new MoxaReportChangeDetector(16);
+    for (int device = 0; device < 100; device++) {
+      detector.accept(frame(device, 1), device);
+    }
+
+    assertEquals(50, detector.evictOlderThan(50));
+
+    assertEquals(50, detector.size());
+    for (int device = 0; device < 100; device++) {
+      assertEquals(device >= 50, detector.lastSeen(MAC + device).isPresent());
+      assertEquals(device < 50, detector.accept(frame(device, 1), 200).isPresent());
+    }
+  }
+
+  @Test
+  void fingerprint_ignoresBufferPositionAndByteOrder() {
+    byte[] frame = frame(1, 7);
+    ByteBuffer padded = ByteBuffer.allocateDirect(frame.length + 3).order(ByteOrder.LITTLE_ENDIAN);
+    padded.position(3);
+    padded.put(frame).position(3);
+
+    assertEquals(
+        MoxaReportChangeDetector.fingerprint(ByteBuffer.wrap(frame), 0, frame.length),
+        MoxaReportChangeDetector.fingerprint(padded, 3, frame.length));
+    assertNotEquals(
+        MoxaReportChangeDetector.fingerprint(ByteBuffer.wrap(frame), 0, frame.length),
+        MoxaReportChangeDetector.fingerprint(ByteBuffer.wrap(frame(1, 8)), 0, frame.length));
+
+    MoxaReportChangeDetector detector = new MoxaReportChangeDetector();
+    detector.accept(frame, 1);
+    assertTrue(detector.accept(padded, 2).isEmpty());
+    assertEquals(3, padded.position());
+  }
+
+  @Test
+  void malformedFrame_throwsException() {
+    MoxaReportChangeDetector detector = new MoxaReportChangeDetector();
+    assertThrows(IllegalArgumentException.class, () -> detector.accept(new byte[] {'M'}, 0));
+    assertEquals(0, detector.size());
+  }
+
+  private static byte[] frame(int device, int host) {
+    return new MoxaIPReportEncoder()
+        .serverName("NPort")
+        .hwId("11")
+        .apId("01020304")
+        .macAddress(MAC + device)
+        .ipAddress(0x0A000000 | (host & 0xFF))
+        .firmware(1.4)
+        .toByteArray();
+  }
+}
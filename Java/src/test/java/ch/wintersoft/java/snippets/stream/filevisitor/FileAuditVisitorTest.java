@@ -0,0 +1,136 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.NO_SUCH_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileAuditVisitorTest {
+
+  @TempDir Path root;
+
+  @Test
+  void walk_evaluatesAllRulesInOnePass() throws IOException {
+    Path large = Files.write(root.resolve("large"), new byte[128 * 1024]);
+    Path shared = Files.writeString(root.resolve("shared"), "x");
+    Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rw-rw-rw-"));
+    Path old = Files.writeString(root.resolve("old"), "x");
+    Files.setLastModifiedTime(old, FileTime.from(Instant.now().minus(Duration.ofDays(400))));
+    Path link = Files.createSymbolicLink(root.resolve("link"), shared);
+    FileAuditVisitor visitor =
+        new FileAuditVisitor(
+            List.of(
+                FileAuditRule.largerThan("large", 64 * 1024),
+                FileAuditRule.worldWritable("world-writable"),
+                FileAuditRule.modifiedBefore("old", Instant.now().minus(Duration.ofDays(365))),
+                FileAuditRule.of("link", false, file -> file.type() == FileType.SYMLINK)));
+
+    Files.walkFileTree(root, visitor);
+
+    assertEquals(
+        Set.of("large " + large, "world-writable " + shared, "old " + old, "link " + link),
+        visitor.getFindings().stream()
+            .map(finding -> finding.rule() + " " + finding.entry().path())
+            .collect(Collectors.toSet()));
+  }
+
+  @Test
+  void ownerIsNot_matchesFileOwnershipVisitor() throws IOException {
+    Files.writeString(Files.createDirectory(root.resolve("dir")).resolve("file"), "x");
+    Files.writeString(root.resolve("file"), "x");
+    FileOwnershipVisitor ownership = new FileOwnershipVisitor(NO_SUCH_USER);
+    Files.walkFileTree(root, ownership);
+    FileAuditVisitor audit =
+        new FileAuditVisitor(List.of(FileAuditRule.ownerIsNot("owner", NO_SUCH_USER)));
+
+    Files.walkFileTree(root, audit);
+
+    assertEquals(
+        Set.copyOf(ownership.getFileEntryList()),
+        audit.getFindings().stream().map(FileAuditFinding::entry).collect(Collectors.toSet()));
+    assertTrue(audit.getFindings().stream().allMatch(finding -> finding.rule().equals("owner")));
+  }
+
+  @Test
+  void groupAndPermissionRules_useOwnerAttributes() throws IOException {
+    Path file = Files.writeString(root.resolve("file"), "x");
+    Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r-----"));
+    String group = Files.readAttributes(file, "posix:group").get("group").toString();
+    FileAuditVisitor visitor =
+        new FileAuditVisitor(
+            List.of(
+                FileAuditRule.groupIsNot("group", group),
+                FileAuditRule.anyPermission("group-read", Set.of(PosixFilePermission.GROUP_READ)),
+                FileAuditRule.of("mode", true, f -> f.mode() == 0640)));
+
+    visitor.visitFile(file, attrs(file));
+
+    assertEquals(
+        List.of("group-read", "mode"),
+        visitor.getFindings().stream().map(FileAuditFinding::rule).toList());
+  }
+
+  @Test
+  void matchingRules_reportOwnerOfEntry() throws IOException {
+    Path file = Files.writeString(root.resolve("file"), "x");
+    List<FileAuditFinding> received = new ArrayList<>();
+    FileAuditVisitor visitor =
+        new FileAuditVisitor(List.of(FileAuditRule.largerThan("any", -1)), received::add);
+
+    visitor.visitFile(file, attrs(file));
+
+    assertEquals(Files.getOwner(file).getName(), received.getFirst().entry().owner());
+    assertEquals(FileType.FILE, received.getFirst().entry().type());
+    assertTrue(visitor.getFindings().isEmpty());
+  }
+
+  @Test
+  void visitFileFailed_reportsUnreadableOnce() {
+    FileAuditVisitor visitor =
+        new FileAuditVisitor(
+            List.of(FileAuditRule.largerThan("a", 0), FileAuditRule.largerThan("b", 0)));
+
+    visitor.visitFileFailed(root.resolve("missing"), new IOException("gone"));
+
+    assertEquals(1, visitor.getFindings().size());
+    FileAuditFinding finding = visitor.getFindings().getFirst();
+    assertEquals(FileAuditVisitor.UNREADABLE, finding.rule());
+    assertEquals("gone", finding.entry().problem().orElseThrow());
+  }
+
+  @Test
+  void factories_declareAttributeNeeds() {
+    assertTrue(FileAuditRule.ownerIsNot("o", "root").needsOwnerAttributes());
+    assertTrue(FileAuditRule.worldWritable("w").needsOwnerAttributes());
+    assertFalse(FileAuditRule.largerThan("l", 0).needsOwnerAttributes());
+    assertFalse(FileAuditRule.modifiedBefore("m", Instant.EPOCH).needsOwnerAttributes());
+  }
+
+  @Test
+  void constructor_noRules_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> new FileAuditVisitor(List.of()));
+    assertThrows(IllegalArgumentException.class, () -> FileAuditRule.anyPermission("p", Set.of()));
+  }
+
+  private static BasicFileAttributes attrs(Path path) throws IOException {
+    return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+  }
+}
@@ -0,0 +1,117 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileEntryReaderTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void stream_returnsAllEntriesInWriteOrder() throws IOException {
+    List<FileEntry> entries = entries(1000);
+    Path file = write(entries);
+
+    try (FileEntryReader reader = FileEntryReader.open(file)) {
+      assertEquals(1000, reader.size());
+      assertEquals(entries, reader.stream().toList());
+      assertEquals(List.of("alice", "bob", "carol"), reader.owners());
+    }
+  }
+
+  @Test
+  void get_decodesSingleEntries() throws IOException {
+    List<FileEntry> entries = entries(300);
+    Path file = write(entries);
+
+    try (FileEntryReader reader = FileEntryReader.open(file)) {
+      for (int i : new int[] {0, 1, 63, 64, 65, 128, 299}) {
+        assertEquals(entries.get(i), reader.get(i));
+      }
+      assertThrows(IndexOutOfBoundsException.class, () -> reader.get(300));
+      assertThrows(IndexOutOfBoundsException.class, () -> reader.get(-1));
+    }
+  }
+
+  @Test
+  void filter_selectsByOwnerAndType() throws IOException {
+    List<FileEntry> entries = entries(500);
+    Path file = write(entries);
+
+    try (FileEntryReader reader = FileEntryReader.open(file)) {
+      assertEquals(
+          entries.stream()
+              .filter(e -> e.owner().equals("bob") && e.type() == FileType.DIRECTORY)
+              .toList(),
+          reader.filter("bob"::equals, Set.of(FileType.DIRECTORY)).toList());
+      assertEquals(0, reader.filter(owner -> false, Set.of(FileType.values())).count());
+    }
+  }
+
+  @Test
+  void parallelStream_matchesSequentialStream() throws IOException {
+    List<FileEntry> entries = entries(10_000);
+    Path file = write(entries);
+
+    try (FileEntryReader reader = FileEntryReader.open(file)) {
+      assertEquals(entries, reader.stream().parallel().toList());
+      assertEquals(
+          entries.stream().filter(e -> e.problem().isPresent()).count(),
+          reader.stream().parallel().filter(e -> e.problem().isPresent()).count());
+    }
+  }
+
+  @Test
+  void emptyExport_hasNoEntries() throws IOException {
+    Path file = write(List.of());
+
+    try (FileEntryReader reader = FileEntryReader.open(file)) {
+      assertEquals(0, reader.size());
+      assertTrue(reader.stream().toList().isEmpty());
+    }
+  }
+
+  @Test
+  void truncatedExport_isRejected() throws IOException {
+    Path file = write(entries(100));
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+
+    assertThrows(IOException.class, () -> FileEntryReader.open(file));
+  }
+
+  private Path write(List<FileEntry> entries) throws IOException {
+    Path file = directory.resolve("scan.febx");
+    try (FileEntryWriter writer = new FileEntryWriter(file)) {
+      entries.forEach(writer);
+    }
+    return file;
+  }
+
+  /** Builds entries with the shared prefixes, owners and problems of a typical walk. */
+  private static List<FileEntry> entries(int count) {
+    String[] owners = {"alice", "bob", "carol"};
+    List<FileEntry> entries = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      entries.add(
+          new FileEntry(
+              "/srv/data/project-" + (i / 100) + "/ünïcødé/file-" + i,
+              owners[i % 3],
+              i % 7 == 0 ? FileType.DIRECTORY : FileType.FILE,
+              i % 11 == 0 ? Optional.of("Access Denied") : Optional.empty()));
+    }
+    return entries;
+  }
+}
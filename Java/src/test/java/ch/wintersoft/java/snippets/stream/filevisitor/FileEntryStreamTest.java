@@ -0,0 +1,98 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.NO_SUCH_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileEntryStreamTest {
+
+  @TempDir Path root;
+
+  @Test
+  void walk_streamsSameEntriesAsCollectingVisitor() throws IOException {
+    createTree(10, 50);
+    FileOwnershipVisitor visitor = new FileOwnershipVisitor(NO_SUCH_USER);
+    Files.walkFileTree(root, visitor);
+
+    try (Stream<FileEntry> entries = FileEntryStream.walk(root, NO_SUCH_USER, 4)) {
+      assertEquals(visitor.getFileEntryList(), entries.toList());
+    }
+  }
+
+  @Test
+  void walk_partialConsumption_stopsOnClose() throws Exception {
+    createTree(10, 50);
+
+    try (Stream<FileEntry> entries = FileEntryStream.walk(root, NO_SUCH_USER, 2)) {
+      List<FileEntry> first = entries.limit(3).toList();
+      assertEquals(3, first.size());
+      assertEquals(root.toString(), first.getFirst().path());
+      assertNotNull(walker());
+    }
+
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (walker() != null) {
+      assertTrue(System.nanoTime() < deadline, "The walker did not stop");
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  void walk_failingVisitor_endsStreamWithFailure() {
+    try (Stream<FileEntry> entries =
+        FileEntryStream.walk(
+            root,
+            1,
+            sink ->
+                new SimpleFileVisitor<>() {
+                  @Override
+                  public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    throw new IllegalStateException("visitor failed");
+                  }
+                })) {
+      IllegalStateException e = assertThrows(IllegalStateException.class, entries::toList);
+      assertEquals("visitor failed", e.getMessage());
+    }
+  }
+
+  @Test
+  void walk_missingRoot_streamsFailureEntry() {
+    try (Stream<FileEntry> entries =
+        FileEntryStream.walk(root.resolve("missing"), NO_SUCH_USER, 1)) {
+      List<FileEntry> list = entries.toList();
+      assertEquals(1, list.size());
+      assertTrue(list.getFirst().problem().isPresent());
+    }
+  }
+
+  /** Returns the walker thread of the stream over {@link #root}, or null if it has ended. */
+  private Thread walker() {
+    String name = "file-entry-stream-" + root.getFileName();
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(thread -> thread.getName().equals(name))
+        .findFirst()
+        .orElse(null);
+  }
+
+  private void createTree(int directories, int filesPerDirectory) throws IOException {
+    for (int i = 0; i < directories; i++) {
+      Path dir = Files.createDirectory(root.resolve("dir" + i));
+      for (int j = 0; j < filesPerDirectory; j++) {
+        Files.createFile(dir.resolve("file" + j));
+      }
+    }
+  }
+}
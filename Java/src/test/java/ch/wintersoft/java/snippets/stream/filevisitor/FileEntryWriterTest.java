@@ -0,0 +1,73 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.NO_SUCH_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileEntryWriterTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void write_isMuchSmallerThanText() throws IOException {
+    List<FileEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      entries.add(
+          new FileEntry(
+              "/home/alice/projects/snippets/src/main/java/Entry" + i + ".java",
+              "alice",
+              FileType.FILE,
+              Optional.empty()));
+    }
+    Path file = directory.resolve("scan.febx");
+    try (FileEntryWriter writer = new FileEntryWriter(file)) {
+      for (FileEntry entry : entries) {
+        writer.write(entry);
+      }
+      assertEquals(10_000, writer.size());
+    }
+    long textSize =
+        entries.stream().map(FileEntry::toString).collect(Collectors.joining("\n")).length();
+
+    assertTrue(Files.size(file) * 5 < textSize, Files.size(file) + " vs. " + textSize);
+  }
+
+  @Test
+  void writer_asVisitorSink_exportsScan() throws IOException {
+    Path tree = Files.createDirectory(directory.resolve("tree"));
+    for (int i = 0; i < 5; i++) {
+      Files.writeString(Files.createDirectory(tree.resolve("dir" + i)).resolve("file"), "x");
+    }
+    FileOwnershipVisitor collecting = new FileOwnershipVisitor(NO_SUCH_USER);
+    Files.walkFileTree(tree, collecting);
+    Path file = directory.resolve("scan.febx");
+
+    try (FileEntryWriter writer = new FileEntryWriter(file)) {
+      Files.walkFileTree(tree, new FileOwnershipVisitor(NO_SUCH_USER, writer));
+    }
+
+    try (FileEntryReader reader = FileEntryReader.open(file)) {
+      assertEquals(collecting.getFileEntryList(), reader.stream().toList());
+    }
+  }
+
+  @Test
+  void write_afterClose_throwsException() throws IOException {
+    FileEntryWriter writer = new FileEntryWriter(directory.resolve("scan.febx"));
+    writer.close();
+    FileEntry entry = new FileEntry("/a", "alice", FileType.FILE, Optional.empty());
+
+    assertThrows(IllegalStateException.class, () -> writer.write(entry));
+  }
+}
@@ -0,0 +1,150 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.NO_SUCH_USER;
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.sequential;
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.sorted;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileOwnershipMonitorTest {
+
+  @TempDir Path root;
+  private final BlockingQueue<FileEntryChangeEvent> events = new LinkedBlockingQueue<>();
+  private FileOwnershipMonitor monitor;
+
+  @BeforeEach
+  void startMonitor() throws IOException {
+    Files.writeString(Files.createDirectory(root.resolve("dir")).resolve("file"), "x");
+    monitor = new FileOwnershipMonitor(root, NO_SUCH_USER, Duration.ofMillis(50), events::add);
+    monitor.start();
+  }
+
+  @AfterEach
+  void closeMonitor() throws IOException {
+    monitor.close();
+  }
+
+  @Test
+  void start_seedsFindingsWithoutEvents() throws IOException {
+    assertEquals(sorted(sequential(root)), sorted(monitor.getFindings()));
+    assertTrue(events.isEmpty());
+  }
+
+  @Test
+  void createdFile_isFound() throws Exception {
+    Path file = Files.writeString(root.resolve("dir").resolve("new"), "x");
+
+    FileEntryChangeEvent event = next();
+    assertEquals(FileEntryChangeType.FOUND, event.type());
+    assertEquals(file.toString(), event.entry().path());
+    assertNull(event.previous());
+  }
+
+  @Test
+  void createdDirectory_isWalkedAndWatched() throws Exception {
+    Path dir = Files.createDirectory(root.resolve("created"));
+    Path file = Files.writeString(dir.resolve("file"), "x");
+    Set<String> found = new HashSet<>();
+    while (found.size() < 2) {
+      FileEntryChangeEvent event = next();
+      assertEquals(FileEntryChangeType.FOUND, event.type());
+      found.add(event.entry().path());
+    }
+    assertEquals(Set.of(dir.toString(), file.toString()), found);
+
+    Path later = Files.writeString(dir.resolve("later"), "x");
+    assertEquals(later.toString(), next().entry().path());
+  }
+
+  @Test
+  void deletedDirectory_resolvesSubtree() throws Exception {
+    Path dir = root.resolve("dir");
+    Files.delete(dir.resolve("file"));
+    Files.delete(dir);
+    Set<String> resolved = new HashSet<>();
+    while (resolved.size() < 2) {
+      FileEntryChangeEvent event = next();
+      assertEquals(FileEntryChangeType.RESOLVED, event.type());
+      resolved.add(event.entry().path());
+    }
+
+    assertEquals(Set.of(dir.toString(), dir.resolve("file").toString()), resolved);
+    assertEquals(List.of(sequential(root).getFirst()), monitor.getFindings());
+  }
+
+  @Test
+  void ownedFiles_publishNoEvents() throws Exception {
+    monitor.close();
+    String owner = Files.getOwner(root).getName();
+    monitor = new FileOwnershipMonitor(root, owner, Duration.ZERO, events::add);
+    monitor.start();
+
+    Files.writeString(root.resolve("dir").resolve("file"), "changed");
+
+    assertNull(events.poll(500, TimeUnit.MILLISECONDS));
+    assertTrue(monitor.getFindings().isEmpty());
+  }
+
+  @Test
+  void failingListener_doesNotStopMonitor() throws Exception {
+    Path other = Files.createDirectory(root.resolve("other"));
+    BlockingQueue<FileEntryChangeEvent> received = new LinkedBlockingQueue<>();
+    try (FileOwnershipMonitor failing =
+        new FileOwnershipMonitor(
+            other,
+            NO_SUCH_USER,
+            Duration.ofMillis(50),
+            event -> {
+              received.add(event);
+              throw new IllegalStateException("listener failed");
+            })) {
+      failing.start();
+      Files.writeString(other.resolve("first"), "x");
+      assertNotNull(received.poll(10, TimeUnit.SECONDS));
+      Path second = Files.writeString(other.resolve("second"), "x");
+
+      FileEntryChangeEvent event;
+      do {
+        event = received.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event);
+      } while (!event.entry().path().equals(second.toString()));
+      assertTrue(failing.getFailure().isEmpty());
+    }
+  }
+
+  @Test
+  void start_twice_throwsException() {
+    assertThrows(IllegalStateException.class, monitor::start);
+  }
+
+  @Test
+  void constructor_negativeWindow_throwsException() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new FileOwnershipMonitor(root, NO_SUCH_USER, Duration.ofMillis(-1), events::add));
+  }
+
+  private FileEntryChangeEvent next() throws InterruptedException {
+    FileEntryChangeEvent event = events.poll(10, TimeUnit.SECONDS);
+    assertNotNull(event, "No change event received");
+    return event;
+  }
+}
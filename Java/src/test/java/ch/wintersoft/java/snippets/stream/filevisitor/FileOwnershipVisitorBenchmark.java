@@ -0,0 +1,128 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.NO_SUCH_USER;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares a walk resolving every owner with {@link Files#getOwner} against {@link
+ * FileOwnershipVisitor}, which reads the numeric owner id and resolves each name only once.
+ *
+ * <p>The tree is generated in the temporary directory with {@code files} files spread over
+ * directories of 1000 entries. Run it with the {@link #main(String[])} method from the IDE after
+ * the test classes have been compiled, e.g. with {@code -p files=1000000}. Wrapping the run in
+ * {@code strace -f -c} shows the saved name service lookups ({@code openat} of {@code /etc/passwd}
+ * or the NSS sockets) directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileOwnershipVisitorBenchmark {
+
+  @Param({"100000"})
+  public int files;
+
+  private Path root;
+
+  @Setup(Level.Trial)
+  public void createTree() throws IOException {
+    root = Files.createTempDirectory("ownership-benchmark");
+    for (int i = 0; i < files; i++) {
+      Path dir = root.resolve("dir" + i / 1000);
+      if (i % 1000 == 0) {
+        Files.createDirectory(dir);
+      }
+      Files.createFile(dir.resolve("file" + i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteTree() throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Benchmark
+  public int getOwnerPerPath() throws IOException {
+    List<FileEntry> entries = new ArrayList<>();
+    Files.walkFileTree(
+        root,
+        new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+              throws IOException {
+            check(dir, attrs);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+              throws IOException {
+            check(file, attrs);
+            return FileVisitResult.CONTINUE;
+          }
+
+          /** The check of the visitor before owner ids were compared. */
+          private void check(Path path, BasicFileAttributes attrs) throws IOException {
+            String owner = Files.getOwner(path).getName();
+            if (!owner.equals(NO_SUCH_USER)) {
+              entries.add(
+                  new FileEntry(
+                      path.toString(),
+                      owner,
+                      attrs.isDirectory() ? FileType.DIRECTORY : FileType.FILE,
+                      Optional.empty()));
+            }
+          }
+        });
+    return entries.size();
+  }
+
+  @Benchmark
+  public int cachedUidVisitor() throws IOException {
+    FileOwnershipVisitor visitor = new FileOwnershipVisitor(NO_SUCH_USER);
+    Files.walkFileTree(root, visitor);
+    return visitor.getFileEntryList().size();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(FileOwnershipVisitorBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
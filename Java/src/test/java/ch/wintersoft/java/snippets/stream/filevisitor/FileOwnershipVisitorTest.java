@@ -9,9 +9,12 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -40,7 +43,9 @@ class FileOwnershipVisitorTest {
     try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
       UserPrincipal owner = mock(UserPrincipal.class);
       when(owner.getName()).thenReturn(testOwner);
-      mockedFiles.when(() -> Files.getOwner(any(Path.class))).thenReturn(owner);
+      mockedFiles
+          .when(() -> Files.getOwner(any(Path.class), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(owner);
 
       visitor.preVisitDirectory(dir, attrs);
 
@@ -58,7 +63,9 @@ class FileOwnershipVisitorTest {
     try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
       UserPrincipal otherOwner = mock(UserPrincipal.class);
       when(otherOwner.getName()).thenReturn("otheruser");
-      mockedFiles.when(() -> Files.getOwner(eq(dir))).thenReturn(otherOwner);
+      mockedFiles
+          .when(() -> Files.getOwner(eq(dir), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(otherOwner);
 
       visitor.preVisitDirectory(dir, attrs);
 
@@ -80,7 +87,9 @@ class FileOwnershipVisitorTest {
     try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
       UserPrincipal otherOwner = mock(UserPrincipal.class);
       when(otherOwner.getName()).thenReturn("otheruser");
-      mockedFiles.when(() -> Files.getOwner(eq(dir))).thenReturn(otherOwner);
+      mockedFiles
+          .when(() -> Files.getOwner(eq(dir), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(otherOwner);
 
       visitor.preVisitDirectory(dir, attrs);
 
@@ -102,7 +111,9 @@ class FileOwnershipVisitorTest {
     try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
       UserPrincipal otherOwner = mock(UserPrincipal.class);
       when(otherOwner.getName()).thenReturn("otheruser");
-      mockedFiles.when(() -> Files.getOwner(eq(file))).thenReturn(otherOwner);
+      mockedFiles
+          .when(() -> Files.getOwner(eq(file), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(otherOwner);
 
       visitor.visitFile(file, attrs);
 
@@ -121,7 +132,7 @@ class FileOwnershipVisitorTest {
       // Mock ALL Files calls used in visitFileFailed
       mockedFiles.when(() -> Files.isDirectory(eq(filePath))).thenReturn(false);
       mockedFiles
-          .when(() -> Files.getOwner(eq(filePath)))
+          .when(() -> Files.getOwner(eq(filePath), eq(LinkOption.NOFOLLOW_LINKS)))
           .thenThrow(new IOException("Cannot get owner"));
 
       visitor.visitFileFailed(filePath, new AccessDeniedException("/inaccessible"));
@@ -144,7 +155,7 @@ class FileOwnershipVisitorTest {
     try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
       mockedFiles.when(() -> Files.isDirectory(eq(dirPath))).thenReturn(true);
       mockedFiles
-          .when(() -> Files.getOwner(eq(dirPath)))
+          .when(() -> Files.getOwner(eq(dirPath), eq(LinkOption.NOFOLLOW_LINKS)))
           .thenThrow(new IOException("Cannot get owner"));
 
       visitor.visitFileFailed(dirPath, new IOException("Permission denied"));
@@ -162,7 +173,7 @@ class FileOwnershipVisitorTest {
 
     try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
       mockedFiles
-          .when(() -> Files.getOwner(eq(file)))
+          .when(() -> Files.getOwner(eq(file), eq(LinkOption.NOFOLLOW_LINKS)))
           .thenThrow(new IOException("Permission denied"));
 
       visitor.visitFile(file, attrs);
@@ -170,4 +181,121 @@ class FileOwnershipVisitorTest {
       assertTrue(visitor.getFileEntryList().isEmpty());
     }
   }
+
+  @Test
+  void visitFile_NumericUid_ResolvesOwnerNameOncePerUid() {
+    Path first = mock(Path.class);
+    Path second = mock(Path.class);
+    when(first.toString()).thenReturn("/first");
+    when(second.toString()).thenReturn("/second");
+    BasicFileAttributes attrs = mock(BasicFileAttributes.class);
+
+    try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
+      UserPrincipal otherOwner = mock(UserPrincipal.class);
+      when(otherOwner.getName()).thenReturn("otheruser");
+      mockedFiles
+          .when(
+              () ->
+                  Files.getAttribute(
+                      any(Path.class), eq("unix:uid"), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(1001);
+      mockedFiles
+          .when(() -> Files.getOwner(eq(first), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(otherOwner);
+
+      visitor.visitFile(first, attrs);
+      visitor.visitFile(second, attrs);
+
+      var entries = visitor.getFileEntryList();
+      assertEquals(2, entries.size());
+      assertEquals("otheruser", entries.get(1).owner());
+      mockedFiles.verify(
+          () -> Files.getOwner(any(Path.class), eq(LinkOption.NOFOLLOW_LINKS)), times(1));
+    }
+  }
+
+  @Test
+  void visitFile_OwnerUid_IsSkippedWithoutNameLookup() {
+    Path first = mock(Path.class);
+    Path second = mock(Path.class);
+    BasicFileAttributes attrs = mock(BasicFileAttributes.class);
+
+    try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
+      UserPrincipal owner = mock(UserPrincipal.class);
+      when(owner.getName()).thenReturn(testOwner);
+      mockedFiles
+          .when(
+              () ->
+                  Files.getAttribute(
+                      any(Path.class), eq("unix:uid"), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(1000);
+      mockedFiles
+          .when(() -> Files.getOwner(any(Path.class), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(owner);
+
+      visitor.visitFile(first, attrs);
+      visitor.visitFile(second, attrs);
+
+      assertTrue(visitor.getFileEntryList().isEmpty());
+      mockedFiles.verify(
+          () -> Files.getOwner(any(Path.class), eq(LinkOption.NOFOLLOW_LINKS)), times(1));
+    }
+  }
+
+  @Test
+  void visitFile_WithSink_StreamsEntryInsteadOfCollecting() {
+    Path file = mock(Path.class);
+    when(file.toString()).thenReturn("/testfile");
+    BasicFileAttributes attrs = mock(BasicFileAttributes.class);
+    List<FileEntry> received = new ArrayList<>();
+    FileOwnershipVisitor streamingVisitor = new FileOwnershipVisitor(testOwner, received::add);
+
+    try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
+      UserPrincipal otherOwner = mock(UserPrincipal.class);
+      when(otherOwner.getName()).thenReturn("otheruser");
+      mockedFiles
+          .when(() -> Files.getOwner(eq(file), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(otherOwner);
+
+      streamingVisitor.visitFile(file, attrs);
+
+      assertEquals(1, received.size());
+      assertEquals("/testfile", received.getFirst().path());
+      assertTrue(streamingVisitor.getFileEntryList().isEmpty());
+    }
+  }
+
+  @Test
+  void visitFile_SymbolicLink_UsesSymlinkType() {
+    Path link = mock(Path.class);
+    when(link.toString()).thenReturn("/testlink");
+    BasicFileAttributes attrs = mock(BasicFileAttributes.class);
+    when(attrs.isSymbolicLink()).thenReturn(true);
+
+    try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
+      UserPrincipal otherOwner = mock(UserPrincipal.class);
+      when(otherOwner.getName()).thenReturn("otheruser");
+      mockedFiles
+          .when(() -> Files.getOwner(eq(link), eq(LinkOption.NOFOLLOW_LINKS)))
+          .thenReturn(otherOwner);
+
+      visitor.visitFile(link, attrs);
+
+      assertEquals(FileType.SYMLINK, visitor.getFileEntryList().getFirst().type());
+    }
+  }
+
+  @Test
+  void visitFile_DanglingSymbolicLink_ReportsLinkOwner(@TempDir Path directory) throws IOException {
+    Path link = Files.createSymbolicLink(directory.resolve("link"), directory.resolve("missing"));
+    BasicFileAttributes attrs =
+        Files.readAttributes(link, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+    visitor.visitFile(link, attrs);
+
+    FileEntry entry = visitor.getFileEntryList().getFirst();
+    assertEquals(link.toString(), entry.path());
+    assertEquals(FileType.SYMLINK, entry.type());
+    assertEquals(Files.getOwner(link, LinkOption.NOFOLLOW_LINKS).getName(), entry.owner());
+  }
 }
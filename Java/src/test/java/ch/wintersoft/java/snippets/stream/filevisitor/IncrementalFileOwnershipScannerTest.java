@@ -0,0 +1,158 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.NO_SUCH_USER;
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.sequential;
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.sorted;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IncrementalFileOwnershipScannerTest {
+
+  @TempDir Path directory;
+  private Path root;
+  private Path indexFile;
+
+  @BeforeEach
+  void createTree() throws IOException {
+    root = Files.createDirectory(directory.resolve("tree"));
+    indexFile = directory.resolve("tree.index");
+    for (int i = 0; i < 3; i++) {
+      Path dir = Files.createDirectories(root.resolve("dir" + i).resolve("sub"));
+      for (int j = 0; j < 5; j++) {
+        Files.writeString(dir.resolve("file" + j), "x");
+        Files.writeString(dir.getParent().resolve("top" + j), "x");
+      }
+    }
+    Files.createSymbolicLink(root.resolve("dangling"), root.resolve("missing"));
+  }
+
+  @Test
+  void firstScan_matchesSequentialWalk() throws IOException {
+    IncrementalFileOwnershipScanner scanner =
+        new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile);
+
+    List<FileEntry> entries = scanner.scan(root);
+
+    assertEquals(sorted(sequential(root)), sorted(entries));
+    assertEquals(7, scanner.getRescannedDirectories());
+    assertEquals(0, scanner.getReusedDirectories());
+    assertTrue(Files.exists(indexFile));
+  }
+
+  @Test
+  void secondScan_reusesUnchangedDirectories() throws IOException {
+    new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile).scan(root);
+    IncrementalFileOwnershipScanner scanner =
+        new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile);
+
+    List<FileEntry> entries = scanner.scan(root);
+
+    assertEquals(sorted(sequential(root)), sorted(entries));
+    assertEquals(0, scanner.getRescannedDirectories());
+    assertEquals(7, scanner.getReusedDirectories());
+  }
+
+  @Test
+  void changedDirectory_isRescanned() throws IOException {
+    new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile).scan(root);
+    Path dir = root.resolve("dir1");
+    Files.writeString(dir.resolve("new"), "x");
+    touch(dir);
+    IncrementalFileOwnershipScanner scanner =
+        new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile);
+
+    List<FileEntry> entries = scanner.scan(root);
+
+    assertEquals(sorted(sequential(root)), sorted(entries));
+    assertEquals(1, scanner.getRescannedDirectories());
+    assertEquals(6, scanner.getReusedDirectories());
+  }
+
+  @Test
+  void deletedDirectory_disappears() throws IOException {
+    new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile).scan(root);
+    Path sub = root.resolve("dir2").resolve("sub");
+    try (var files = Files.list(sub)) {
+      for (Path file : files.toList()) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(sub);
+    touch(sub.getParent());
+    IncrementalFileOwnershipScanner scanner =
+        new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile);
+
+    List<FileEntry> entries = scanner.scan(root);
+
+    assertEquals(sorted(sequential(root)), sorted(entries));
+    assertEquals(6, DirectoryIndex.load(indexFile, NO_SUCH_USER).size());
+  }
+
+  @Test
+  void indexForOtherOwner_isIgnored() throws IOException {
+    new IncrementalFileOwnershipScanner("other-user", indexFile).scan(root);
+    IncrementalFileOwnershipScanner scanner =
+        new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile);
+
+    List<FileEntry> entries = scanner.scan(root);
+
+    assertEquals(sorted(sequential(root)), sorted(entries));
+    assertEquals(0, scanner.getReusedDirectories());
+  }
+
+  @Test
+  void corruptIndex_triggersFullScan() throws IOException {
+    Files.write(indexFile, new byte[] {0x46, 0x4F, 0x49});
+    IncrementalFileOwnershipScanner scanner =
+        new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile);
+
+    List<FileEntry> entries = scanner.scan(root);
+
+    assertEquals(sorted(sequential(root)), sorted(entries));
+    assertEquals(7, scanner.getRescannedDirectories());
+  }
+
+  @Test
+  void garbledIndexString_triggersFullScan() throws IOException {
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(indexFile))) {
+      out.writeInt(0x464F4958);
+      out.writeInt(1);
+      // a UTF string of two bytes that are not valid modified UTF-8
+      out.writeShort(2);
+      out.write(new byte[] {(byte) 0xFF, (byte) 0xFF});
+    }
+    IncrementalFileOwnershipScanner scanner =
+        new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile);
+
+    List<FileEntry> entries = scanner.scan(root);
+
+    assertEquals(sorted(sequential(root)), sorted(entries));
+    assertEquals(7, scanner.getRescannedDirectories());
+  }
+
+  @Test
+  void scan_singleFile_reportsFile() throws IOException {
+    Path file = root.resolve("dir0").resolve("top0");
+
+    List<FileEntry> entries =
+        new IncrementalFileOwnershipScanner(NO_SUCH_USER, indexFile).scan(file);
+
+    assertEquals(sequential(file), entries);
+  }
+
+  /** Moves the modification time, so the change is seen even with coarse timestamps. */
+  private static void touch(Path dir) throws IOException {
+    FileTime mtime = Files.getLastModifiedTime(dir);
+    Files.setLastModifiedTime(dir, FileTime.fromMillis(mtime.toMillis() - 10_000));
+  }
+}
@@ -0,0 +1,78 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class OwnershipAccumulatorTest {
+
+  @Test
+  void add_countsPerSubtreeAndOwner() {
+    OwnershipAccumulator accumulator = new OwnershipAccumulator();
+
+    assertTrue(accumulator.add(0, 1000, false, 10));
+    assertFalse(accumulator.add(0, 1000, false, 5));
+    assertFalse(accumulator.add(0, 1000, true, 0));
+    assertTrue(accumulator.add(1, 1000, false, 7));
+    assertTrue(accumulator.add(0, -1, false, 1));
+
+    Map<String, List<Long>> counters = counters(accumulator);
+    assertEquals(List.of(2L, 1L, 15L), counters.get("0/1000"));
+    assertEquals(List.of(1L, 0L, 7L), counters.get("1/1000"));
+    assertEquals(List.of(1L, 0L, 1L), counters.get("0/-1"));
+    assertEquals(3, accumulator.size());
+  }
+
+  @Test
+  void add_manyKeys_growsTable() {
+    OwnershipAccumulator accumulator = new OwnershipAccumulator();
+    for (int subtree = 0; subtree < 50; subtree++) {
+      for (int uid = 0; uid < 40; uid++) {
+        accumulator.add(subtree, uid, false, uid);
+        accumulator.add(subtree, uid, false, uid);
+      }
+    }
+
+    assertEquals(2000, accumulator.size());
+    assertEquals(List.of(2L, 0L, 78L), counters(accumulator).get("49/39"));
+  }
+
+  @Test
+  void merge_addsCounters() {
+    OwnershipAccumulator a = new OwnershipAccumulator();
+    a.add(0, 1, false, 3);
+    a.addUnreadable();
+    OwnershipAccumulator b = new OwnershipAccumulator();
+    b.add(0, 1, false, 4);
+    b.add(2, 5, true, 0);
+    b.addUnreadable();
+
+    a.merge(b);
+
+    Map<String, List<Long>> counters = counters(a);
+    assertEquals(List.of(2L, 0L, 7L), counters.get("0/1"));
+    assertEquals(List.of(0L, 1L, 0L), counters.get("2/5"));
+    assertEquals(2, a.unreadable());
+    assertEquals(2, b.size());
+  }
+
+  @Test
+  void add_negativeSubtree_throwsException() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new OwnershipAccumulator().add(-1, 0, false, 0));
+  }
+
+  private static Map<String, List<Long>> counters(OwnershipAccumulator accumulator) {
+    Map<String, List<Long>> counters = new HashMap<>();
+    accumulator.forEach(
+        (subtree, uid, files, directories, bytes) ->
+            counters.put(subtree + "/" + uid, List.of(files, directories, bytes)));
+    return counters;
+  }
+}
@@ -0,0 +1,26 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+/** Shared constants and reference results of the ownership scan tests. */
+final class OwnershipScanFixtures {
+  /** No file is owned by this user, so every entry is reported. */
+  static final String NO_SUCH_USER = "no-such-user-for-ownership-scan";
+
+  private OwnershipScanFixtures() {}
+
+  /** Walks a tree with a collecting {@link FileOwnershipVisitor}, the reference result. */
+  static List<FileEntry> sequential(Path start) throws IOException {
+    FileOwnershipVisitor visitor = new FileOwnershipVisitor(NO_SUCH_USER);
+    Files.walkFileTree(start, visitor);
+    return visitor.getFileEntryList();
+  }
+
+  static List<FileEntry> sorted(List<FileEntry> entries) {
+    return entries.stream().sorted(Comparator.comparing(FileEntry::path)).toList();
+  }
+}
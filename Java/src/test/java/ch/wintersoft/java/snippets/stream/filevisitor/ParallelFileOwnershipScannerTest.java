@@ -0,0 +1,127 @@
+package ch.wintersoft.java.snippets.stream.filevisitor;
+
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.NO_SUCH_USER;
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.sequential;
+import static ch.wintersoft.java.snippets.stream.filevisitor.OwnershipScanFixtures.sorted;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelFileOwnershipScannerTest {
+
+  @TempDir Path root;
+
+  @Test
+  void scan_matchesSequentialWalk() throws IOException {
+    for (int i = 0; i < 5; i++) {
+      Path dir = Files.createDirectories(root.resolve("dir" + i).resolve("sub" + i));
+      for (int j = 0; j < 20; j++) {
+        Files.writeString(dir.resolve("file" + j), "x");
+        Files.writeString(dir.getParent().resolve("top" + j), "x");
+      }
+    }
+    Files.createSymbolicLink(root.resolve("dangling"), root.resolve("missing"));
+    Files.createSymbolicLink(root.resolve("dirlink"), root.resolve("dir0"));
+
+    List<FileEntry> parallel = new ParallelFileOwnershipScanner(NO_SUCH_USER, 4).scan(root);
+
+    assertEquals(sorted(sequential(root)), sorted(parallel));
+    // root, directories, files and both links, including the dangling one
+    assertEquals(1 + 5 * 2 + 5 * 40 + 2, parallel.size());
+  }
+
+  @Test
+  void scan_withSink_deliversEveryEntry() throws IOException {
+    for (int i = 0; i < 3; i++) {
+      Path dir = Files.createDirectory(root.resolve("dir" + i));
+      Files.writeString(dir.resolve("file"), "x");
+    }
+    LongAdder count = new LongAdder();
+
+    new ParallelFileOwnershipScanner(NO_SUCH_USER, 2).scan(root, entry -> count.increment());
+
+    assertEquals(sequential(root).size(), count.intValue());
+  }
+
+  @Test
+  void scan_fileOwner_excludesOwnedEntries() throws IOException {
+    Files.writeString(root.resolve("file"), "x");
+    String owner = Files.getOwner(root).getName();
+
+    assertTrue(new ParallelFileOwnershipScanner(owner).scan(root).isEmpty());
+  }
+
+  @Test
+  void scan_singleFile_reportsFile() throws IOException {
+    Path file = Files.writeString(root.resolve("file"), "x");
+
+    List<FileEntry> entries = new ParallelFileOwnershipScanner(NO_SUCH_USER).scan(file);
+
+    assertEquals(sequential(file), entries);
+    assertEquals(FileType.FILE, entries.getFirst().type());
+  }
+
+  @Test
+  void scan_missingRoot_reportsFailure() throws IOException {
+    Path missing = root.resolve("missing");
+
+    List<FileEntry> entries = new ParallelFileOwnershipScanner(NO_SUCH_USER).scan(missing);
+
+    assertEquals(sequential(missing), entries);
+    assertTrue(entries.getFirst().problem().isPresent());
+  }
+
+  @Test
+  void aggregate_countsPerOwnerAndSubtree() throws IOException {
+    for (int i = 0; i < 3; i++) {
+      Path dir = Files.createDirectories(root.resolve("dir" + i).resolve("sub"));
+      for (int j = 0; j < 10; j++) {
+        Files.write(dir.resolve("file" + j), new byte[i + 1]);
+      }
+    }
+    Files.write(root.resolve("top"), new byte[100]);
+    String owner = Files.getOwner(root).getName();
+
+    OwnershipStatistics statistics =
+        new ParallelFileOwnershipScanner(NO_SUCH_USER, 4).aggregate(root);
+
+    assertEquals(
+        Map.of(owner, new OwnershipStatistics.Totals(31, 7, 100 + 10 + 20 + 30)),
+        statistics.byOwner());
+    assertEquals(
+        Map.of(owner, new OwnershipStatistics.Totals(1, 1, 100)),
+        statistics.bySubtree().get(OwnershipStatistics.ROOT));
+    assertEquals(
+        Map.of(owner, new OwnershipStatistics.Totals(10, 2, 20)),
+        statistics.bySubtree().get("dir1"));
+    assertEquals(4, statistics.bySubtree().size());
+    assertEquals(statistics.byOwner().get(owner), statistics.total());
+    assertEquals(0, statistics.unreadable());
+  }
+
+  @Test
+  void aggregate_singleFileAndMissingRoot() throws IOException {
+    Path file = Files.write(root.resolve("file"), new byte[42]);
+    ParallelFileOwnershipScanner scanner = new ParallelFileOwnershipScanner(NO_SUCH_USER, 2);
+
+    assertEquals(new OwnershipStatistics.Totals(1, 0, 42), scanner.aggregate(file).total());
+    OwnershipStatistics missing = scanner.aggregate(root.resolve("missing"));
+    assertTrue(missing.byOwner().isEmpty());
+    assertEquals(1, missing.unreadable());
+  }
+
+  @Test
+  void constructor_invalidParallelism_throwsException() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new ParallelFileOwnershipScanner(NO_SUCH_USER, 0));
+  }
+}